@@ -0,0 +1,131 @@
+package com.dhi.camelkafka.benchmark;
+
+import com.dhi.camelkafka.avro.AvroRecordDecoder;
+import com.dhi.camelkafka.config.KafkaProperties;
+import com.dhi.camelkafka.config.PayloadFormat;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.confluent.kafka.schemaregistry.avro.AvroSchema;
+import io.confluent.kafka.schemaregistry.client.SchemaRegistryClient;
+import io.confluent.kafka.schemaregistry.testutil.MockSchemaRegistry;
+import io.confluent.kafka.serializers.KafkaAvroDeserializer;
+import org.apache.avro.Schema;
+import org.apache.avro.generic.GenericData;
+import org.apache.avro.generic.GenericDatumWriter;
+import org.apache.avro.generic.GenericRecord;
+import org.apache.avro.io.BinaryEncoder;
+import org.apache.avro.io.EncoderFactory;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares decoding the same purchase record from Schema Registry framed Avro and from JSON.
+ * The Avro side runs {@link AvroRecordDecoder} and Confluent's {@link KafkaAvroDeserializer} against
+ * an in-process mock registry; the JSON side runs the tree and map bindings of {@link ObjectMapper}.
+ */
+@State(Scope.Thread)
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class AvroDecodingBenchmark {
+
+    private static final String REGISTRY_SCOPE = "avro-decoding-benchmark";
+
+    private static final String PURCHASE_SCHEMA = """
+            {"type":"record","name":"Purchase","namespace":"com.dhi.camelkafka.benchmark","fields":[
+             {"name":"id","type":"string"},{"name":"customerId","type":"string"},{"name":"item","type":"string"},
+             {"name":"quantity","type":"int"},{"name":"unitPrice","type":"double"},{"name":"total","type":"double"},
+             {"name":"currency","type":"string"},{"name":"timestamp","type":"long"},
+             {"name":"status","type":"string"},{"name":"channel","type":"string"}]}""";
+
+    private static final String PURCHASE_JSON = """
+            {"id":"9f1c2a7e-4b61-4d0f-a3c8-5e2f7d9b1a04","customerId":"cust-000184213","item":"Noise cancelling headphones",\
+            "quantity":2,"unitPrice":149.95,"total":299.9,"currency":"EUR","timestamp":1715678467123,\
+            "status":"CONFIRMED","channel":"web"}""";
+
+    private AvroRecordDecoder decoder;
+    private KafkaAvroDeserializer confluentDeserializer;
+    private ObjectMapper objectMapper;
+    private byte[] avroPayload;
+    private byte[] jsonPayload;
+
+    @Setup
+    public void setup() throws Exception {
+        Schema schema = new Schema.Parser().parse(PURCHASE_SCHEMA);
+        SchemaRegistryClient registry = MockSchemaRegistry.getClientForScope(REGISTRY_SCOPE);
+        int schemaId = registry.register("avro-purchase-value", new AvroSchema(schema));
+
+        KafkaProperties kafkaProperties = new KafkaProperties();
+        kafkaProperties.setPayloadFormat(PayloadFormat.AVRO);
+        kafkaProperties.setSchemaRegistryUrl("mock://" + REGISTRY_SCOPE);
+        decoder = new AvroRecordDecoder(kafkaProperties);
+        confluentDeserializer = new KafkaAvroDeserializer(registry);
+        objectMapper = new ObjectMapper();
+
+        jsonPayload = PURCHASE_JSON.getBytes(StandardCharsets.UTF_8);
+        avroPayload = encode(schemaId, schema, objectMapper.readValue(jsonPayload, Map.class));
+    }
+
+    @TearDown
+    public void tearDown() {
+        MockSchemaRegistry.dropScope(REGISTRY_SCOPE);
+    }
+
+    @Benchmark
+    public Object avroCachedReader() {
+        return decoder.decode(avroPayload, 0, avroPayload.length);
+    }
+
+    @Benchmark
+    public Object avroConfluentDeserializer() {
+        return confluentDeserializer.deserialize("avro-purchase", avroPayload);
+    }
+
+    @Benchmark
+    public JsonNode jsonReadTree() throws IOException {
+        return objectMapper.readTree(jsonPayload);
+    }
+
+    @Benchmark
+    public void jsonReadMap(Blackhole blackhole) throws IOException {
+        blackhole.consume(objectMapper.readValue(jsonPayload, Map.class));
+    }
+
+    private static byte[] encode(int schemaId, Schema schema, Map<?, ?> values) throws IOException {
+        GenericRecord record = new GenericData.Record(schema);
+        for (Schema.Field field : schema.getFields()) {
+            Object value = values.get(field.name());
+            record.put(field.name(), switch (field.schema().getType()) {
+                case LONG -> ((Number) value).longValue();
+                case DOUBLE -> ((Number) value).doubleValue();
+                default -> value;
+            });
+        }
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        out.write(0);
+        out.write(ByteBuffer.allocate(4).putInt(schemaId).array());
+        BinaryEncoder encoder = EncoderFactory.get().binaryEncoder(out, null);
+        new GenericDatumWriter<GenericRecord>(schema).write(record, encoder);
+        encoder.flush();
+        return out.toByteArray();
+    }
+}
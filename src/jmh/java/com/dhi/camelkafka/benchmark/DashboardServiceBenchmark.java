@@ -0,0 +1,99 @@
+package com.dhi.camelkafka.benchmark;
+
+import com.dhi.camelkafka.config.DashboardProperties;
+import com.dhi.camelkafka.model.KafkaMessage;
+import com.dhi.camelkafka.service.DashboardService;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Group;
+import org.openjdk.jmh.annotations.GroupThreads;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures {@link DashboardService#addMessage(KafkaMessage)} and {@link DashboardService#getStats()}
+ * under contention: several consumer threads insert while a dashboard reader polls statistics.
+ */
+@State(Scope.Group)
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class DashboardServiceBenchmark {
+
+    private static final int MESSAGE_POOL_SIZE = 1024;
+
+    @Param({"100", "10000"})
+    private int maxMessages;
+
+    private DashboardService dashboardService;
+    private KafkaMessage[] messages;
+
+    @Setup
+    public void setup() {
+        DashboardProperties dashboardProperties = new DashboardProperties();
+        dashboardProperties.setMaxMessages(maxMessages);
+        dashboardService = new DashboardService(dashboardProperties);
+
+        messages = new KafkaMessage[MESSAGE_POOL_SIZE];
+        for (int i = 0; i < MESSAGE_POOL_SIZE; i++) {
+            messages[i] = KafkaMessage.builder()
+                    .id("topic-" + (i % 4) + "-" + (i % 8) + "-" + i)
+                    .content("payload-" + i)
+                    .topic("topic-" + (i % 4))
+                    .partition(i % 8)
+                    .offset((long) i)
+                    .timestamp(System.currentTimeMillis())
+                    .messageKey("key-" + (i % 64))
+                    .processedAtMillis(System.currentTimeMillis())
+                    .build();
+        }
+        for (KafkaMessage message : messages) {
+            dashboardService.addMessage(message);
+        }
+    }
+
+    @State(Scope.Thread)
+    public static class WriterState {
+        int next;
+    }
+
+    @Benchmark
+    @Group("contended")
+    @GroupThreads(3)
+    public void addMessage(WriterState writerState) {
+        dashboardService.addMessage(messages[writerState.next++ & (MESSAGE_POOL_SIZE - 1)]);
+    }
+
+    @Benchmark
+    @Group("contended")
+    @GroupThreads(1)
+    public DashboardService.DashboardStats getStats() {
+        return dashboardService.getStats();
+    }
+
+    @Benchmark
+    @Group("readers")
+    @GroupThreads(1)
+    public void addMessageWithReader(WriterState writerState) {
+        dashboardService.addMessage(messages[writerState.next++ & (MESSAGE_POOL_SIZE - 1)]);
+    }
+
+    @Benchmark
+    @Group("readers")
+    @GroupThreads(1)
+    public List<KafkaMessage> getRecentMessages() {
+        return dashboardService.getRecentMessages();
+    }
+}
@@ -0,0 +1,98 @@
+package com.dhi.camelkafka.benchmark;
+
+import com.dhi.camelkafka.config.ExtractionProperties;
+import com.dhi.camelkafka.extract.ExtractedFields;
+import com.dhi.camelkafka.extract.JsonFieldExtractor;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares the streaming {@link JsonFieldExtractor} against {@link ObjectMapper#readTree(byte[])} for pulling
+ * status, duration and path out of an ECS access-log record. Run with {@code -prof gc} to compare allocation.
+ */
+@State(Scope.Thread)
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class JsonExtractionBenchmark {
+
+    private static final String ACCESS_LOG = """
+            {"@timestamp":"2024-05-14T09:21:07.123Z","ecs":{"version":"1.12.0"},\
+            "event":{"dataset":"nginx.access","duration":1834000,"kind":"event","outcome":"success"},\
+            "host":{"hostname":"web-7f9c4","ip":["10.12.4.17"],"os":{"family":"debian","kernel":"5.15.0-1051-aws"}},\
+            "source":{"ip":"203.0.113.42","port":51733,"geo":{"country_iso_code":"DE","city_name":"Berlin"}},\
+            "user_agent":{"original":"Mozilla/5.0 (X11; Linux x86_64) AppleWebKit/537.36 (KHTML, like Gecko) Chrome/124.0 Safari/537.36",\
+            "name":"Chrome","version":"124.0"},\
+            "http":{"version":"1.1","request":{"method":"GET","bytes":512,"referrer":"https://example.com/catalog"},\
+            "response":{"status_code":200,"bytes":18342,"body":{"bytes":18012}}},\
+            "url":{"original":"/api/v1/products/8812?locale=de-DE","path":"/api/v1/products/8812","query":"locale=de-DE"},\
+            "labels":{"env":"prod","region":"eu-west-1","service":"catalog"},\
+            "trace":{"id":"4bf92f3577b34da6a3ce929d0e0e4736"},"transaction":{"id":"00f067aa0ba902b7"}}""";
+
+    private JsonFieldExtractor extractor;
+    private ExtractedFields reusedFields;
+    private ObjectMapper objectMapper;
+    private byte[] payload;
+
+    @Setup
+    public void setup() {
+        ExtractionProperties properties = new ExtractionProperties();
+        properties.setEnabled(true);
+        properties.getFields().put("status", "$.http.response.status_code");
+        properties.getFields().put("duration", "$.event.duration");
+        properties.getFields().put("path", "$.url.path");
+        extractor = new JsonFieldExtractor(properties);
+        reusedFields = extractor.newFields();
+        objectMapper = new ObjectMapper();
+        payload = ACCESS_LOG.getBytes(StandardCharsets.UTF_8);
+    }
+
+    @Benchmark
+    public void streamingReused(Blackhole blackhole) {
+        extractor.extract(payload, 0, payload.length, reusedFields);
+        blackhole.consume(reusedFields.getLong("status", 0));
+        blackhole.consume(reusedFields.getLong("duration", 0));
+        blackhole.consume(reusedFields.getString("path"));
+    }
+
+    @Benchmark
+    public void streamingFresh(Blackhole blackhole) {
+        ExtractedFields fields = extractor.newFields();
+        extractor.extract(payload, 0, payload.length, fields);
+        blackhole.consume(fields);
+    }
+
+    @Benchmark
+    public void readTree(Blackhole blackhole) throws IOException {
+        JsonNode root = objectMapper.readTree(payload);
+        blackhole.consume(root.at("/http/response/status_code").asLong());
+        blackhole.consume(root.at("/event/duration").asLong());
+        blackhole.consume(root.at("/url/path").asText());
+    }
+
+    @Benchmark
+    public void decodeAndReadTree(Blackhole blackhole) throws IOException {
+        // The previous path: StringDeserializer output parsed into a tree
+        JsonNode root = objectMapper.readTree(new String(payload, StandardCharsets.UTF_8));
+        blackhole.consume(root.at("/http/response/status_code").asLong());
+        blackhole.consume(root.at("/event/duration").asLong());
+        blackhole.consume(root.at("/url/path").asText());
+    }
+}
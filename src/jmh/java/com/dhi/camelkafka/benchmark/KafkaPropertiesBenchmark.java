@@ -0,0 +1,44 @@
+package com.dhi.camelkafka.benchmark;
+
+import com.dhi.camelkafka.config.KafkaProperties;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures {@link KafkaProperties#getAllTopics()} with a topic list plus individual topic properties.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class KafkaPropertiesBenchmark {
+
+    private KafkaProperties kafkaProperties;
+
+    @Setup
+    public void setup() {
+        kafkaProperties = new KafkaProperties();
+        kafkaProperties.setTopics(List.of("ecs.AccessLogJsonV1", "json-purchase", "user-analytics"));
+        kafkaProperties.setTopic1("avro-purchase");
+        kafkaProperties.setTopic2("json-purchase");
+        kafkaProperties.setTopic3("audit-events");
+    }
+
+    @Benchmark
+    public List<String> getAllTopics() {
+        return kafkaProperties.getAllTopics();
+    }
+}
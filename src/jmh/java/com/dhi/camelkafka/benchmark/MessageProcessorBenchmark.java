@@ -0,0 +1,103 @@
+package com.dhi.camelkafka.benchmark;
+
+import com.dhi.camelkafka.aggregate.AggregationService;
+import com.dhi.camelkafka.avro.AvroRecordDecoder;
+import com.dhi.camelkafka.commit.OffsetCommitter;
+import com.dhi.camelkafka.config.AggregationProperties;
+import com.dhi.camelkafka.config.DashboardProperties;
+import com.dhi.camelkafka.config.ExtractionProperties;
+import com.dhi.camelkafka.config.KafkaProperties;
+import com.dhi.camelkafka.dedup.RecordDeduplicator;
+import com.dhi.camelkafka.extract.JsonFieldExtractor;
+import com.dhi.camelkafka.flow.FlowController;
+import com.dhi.camelkafka.metrics.ConsumerMetrics;
+import com.dhi.camelkafka.processor.KafkaMessageProcessor;
+import com.dhi.camelkafka.processor.KeyOrderedWorkerPool;
+import com.dhi.camelkafka.processor.VirtualThreadDispatcher;
+import com.dhi.camelkafka.retry.RetryPipeline;
+import com.dhi.camelkafka.service.DashboardService;
+import com.dhi.camelkafka.service.KafkaCallbackService;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.apache.camel.CamelContext;
+import org.apache.camel.Exchange;
+import org.apache.camel.ProducerTemplate;
+import org.apache.camel.component.kafka.KafkaConstants;
+import org.apache.camel.impl.DefaultCamelContext;
+import org.apache.camel.support.DefaultExchange;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.beans.factory.support.StaticListableBeanFactory;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures {@link KafkaMessageProcessor#process(Exchange)} on synthetic exchanges with the simulated
+ * handler delay disabled, i.e. the framework overhead per record: extraction, dashboard insert,
+ * commit bookkeeping and meter updates.
+ */
+@State(Scope.Thread)
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class MessageProcessorBenchmark {
+
+    @Param({"512"})
+    private int payloadSize;
+
+    private CamelContext camelContext;
+    private OffsetCommitter offsetCommitter;
+    private KafkaMessageProcessor processor;
+    private String payload;
+    private long offset;
+
+    @Setup
+    public void setup() {
+        KafkaProperties kafkaProperties = new KafkaProperties();
+        kafkaProperties.setProcessingDelayMs(0);
+        KafkaCallbackService callbackService = new KafkaCallbackService();
+        DashboardService dashboardService = new DashboardService(new DashboardProperties());
+        ConsumerMetrics consumerMetrics = new ConsumerMetrics(new SimpleMeterRegistry());
+        offsetCommitter = new OffsetCommitter(callbackService, kafkaProperties, consumerMetrics);
+        processor = new KafkaMessageProcessor(callbackService, dashboardService, kafkaProperties,
+                new KeyOrderedWorkerPool(kafkaProperties), new VirtualThreadDispatcher(kafkaProperties),
+                offsetCommitter, consumerMetrics, new FlowController(kafkaProperties, consumerMetrics),
+                new JsonFieldExtractor(new ExtractionProperties()), new AvroRecordDecoder(kafkaProperties),
+                new RetryPipeline(kafkaProperties, consumerMetrics,
+                        new StaticListableBeanFactory().getBeanProvider(ProducerTemplate.class)),
+                new RecordDeduplicator(kafkaProperties, consumerMetrics),
+                new AggregationService(new AggregationProperties(), consumerMetrics));
+        camelContext = new DefaultCamelContext();
+        payload = "x".repeat(payloadSize);
+    }
+
+    @TearDown
+    public void tearDown() {
+        offsetCommitter.shutdown();
+        camelContext.stop();
+    }
+
+    @Benchmark
+    public Exchange process() throws Exception {
+        Exchange exchange = new DefaultExchange(camelContext);
+        exchange.getIn().setHeader(KafkaConstants.TOPIC, "ecs.AccessLogJsonV1");
+        exchange.getIn().setHeader(KafkaConstants.PARTITION, 0);
+        exchange.getIn().setHeader(KafkaConstants.OFFSET, offset++);
+        exchange.getIn().setHeader(KafkaConstants.TIMESTAMP, System.currentTimeMillis());
+        exchange.getIn().setHeader(KafkaConstants.KEY, "user-" + (offset & 1023));
+        exchange.getIn().setBody(payload);
+        processor.process(exchange);
+        return exchange;
+    }
+}
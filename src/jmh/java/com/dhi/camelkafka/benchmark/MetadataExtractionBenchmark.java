@@ -0,0 +1,106 @@
+package com.dhi.camelkafka.benchmark;
+
+import com.dhi.camelkafka.model.KafkaMessage;
+import com.dhi.camelkafka.service.KafkaCallbackService;
+import org.apache.camel.Exchange;
+import org.apache.camel.component.kafka.KafkaConstants;
+import org.apache.camel.impl.DefaultCamelContext;
+import org.apache.camel.support.DefaultExchange;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares {@link KafkaCallbackService#extractMessageMetadata(Exchange)} against the previous
+ * implementation (String.format id, LocalDateTime.now, converting header lookups, eager body decoding).
+ * Run with {@code -prof gc} and compare {@code gc.alloc.rate.norm} (bytes allocated per record).
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class MetadataExtractionBenchmark {
+
+    @Param({"string", "bytes", "buffer"})
+    private String bodyType;
+
+    @Param({"512"})
+    private int payloadSize;
+
+    private KafkaCallbackService callbackService;
+    private Exchange exchange;
+
+    @Setup
+    public void setup() {
+        callbackService = new KafkaCallbackService();
+        exchange = new DefaultExchange(new DefaultCamelContext());
+        exchange.getIn().setHeader(KafkaConstants.TOPIC, "ecs.AccessLogJsonV1");
+        exchange.getIn().setHeader(KafkaConstants.PARTITION, 3);
+        exchange.getIn().setHeader(KafkaConstants.OFFSET, 123456789L);
+        exchange.getIn().setHeader(KafkaConstants.TIMESTAMP, System.currentTimeMillis());
+        exchange.getIn().setHeader(KafkaConstants.KEY, "user-42");
+
+        String payload = "x".repeat(payloadSize);
+        byte[] bytes = payload.getBytes(StandardCharsets.UTF_8);
+        exchange.getIn().setBody(switch (bodyType) {
+            case "bytes" -> bytes;
+            case "buffer" -> ByteBuffer.wrap(bytes);
+            default -> payload;
+        });
+    }
+
+    @Benchmark
+    public KafkaMessage extractMetadata() {
+        return callbackService.extractMessageMetadata(exchange);
+    }
+
+    /**
+     * Extraction plus what the default handler reads: the blank check and the content length.
+     * With byte payloads neither decodes the value.
+     */
+    @Benchmark
+    public int extractAndInspect() {
+        KafkaMessage kafkaMessage = callbackService.extractMessageMetadata(exchange);
+        return kafkaMessage.isContentBlank() ? -1 : kafkaMessage.getContentLength();
+    }
+
+    @Benchmark
+    public KafkaMessage extractMetadataLegacy() {
+        String topic = exchange.getIn().getHeader(KafkaConstants.TOPIC, String.class);
+        Integer partition = exchange.getIn().getHeader(KafkaConstants.PARTITION, Integer.class);
+        Long offset = exchange.getIn().getHeader(KafkaConstants.OFFSET, Long.class);
+        Long timestamp = exchange.getIn().getHeader(KafkaConstants.TIMESTAMP, Long.class);
+        String messageKey = exchange.getIn().getHeader(KafkaConstants.KEY, String.class);
+        String content = exchange.getIn().getBody(String.class);
+
+        KafkaMessage kafkaMessage = KafkaMessage.builder()
+                .id(String.format("%s-%d-%d", topic, partition, offset))
+                .content(content)
+                .topic(topic)
+                .partition(partition)
+                .offset(offset)
+                .timestamp(timestamp)
+                .messageKey(messageKey)
+                .processedAt(LocalDateTime.now())
+                .build();
+
+        // The old log call evaluated its arguments even when INFO was disabled
+        kafkaMessage.getFormattedInfo();
+        return kafkaMessage;
+    }
+}
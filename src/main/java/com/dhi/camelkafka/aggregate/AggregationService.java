@@ -0,0 +1,99 @@
+package com.dhi.camelkafka.aggregate;
+
+import com.dhi.camelkafka.config.AggregationDefinition;
+import com.dhi.camelkafka.config.AggregationProperties;
+import com.dhi.camelkafka.metrics.ConsumerMetrics;
+import com.dhi.camelkafka.model.KafkaMessage;
+import io.micrometer.core.instrument.FunctionCounter;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Feeds processed records into the configured {@link WindowedAggregation}s and serves their windows to the dashboard.
+ */
+@Slf4j
+@Component
+public class AggregationService {
+
+    private final boolean enabled;
+    private final WindowedAggregation[] aggregations;
+    private final Map<String, WindowedAggregation> byName = new LinkedHashMap<>();
+
+    public AggregationService(AggregationProperties aggregationProperties, ConsumerMetrics consumerMetrics) {
+        List<AggregationDefinition> definitions = aggregationProperties.getDefinitions();
+        this.aggregations = new WindowedAggregation[definitions.size()];
+        for (int i = 0; i < aggregations.length; i++) {
+            WindowedAggregation aggregation = new WindowedAggregation(definitions.get(i));
+            if (byName.putIfAbsent(aggregation.getName(), aggregation) != null) {
+                throw new IllegalArgumentException("Duplicate aggregation name " + aggregation.getName());
+            }
+            aggregations[i] = aggregation;
+            FunctionCounter.builder("kafka.consumer.aggregation.late.records", aggregation, WindowedAggregation::getLateRecords)
+                    .description("Records dropped because their aggregation windows had closed")
+                    .tag("aggregation", aggregation.getName())
+                    .register(consumerMetrics.getMeterRegistry());
+            FunctionCounter.builder("kafka.consumer.aggregation.future.records", aggregation, WindowedAggregation::getFutureRecords)
+                    .description("Records dropped because their timestamp was too far ahead of the wall clock")
+                    .tag("aggregation", aggregation.getName())
+                    .register(consumerMetrics.getMeterRegistry());
+        }
+        this.enabled = aggregationProperties.isEnabled() && aggregations.length > 0;
+        if (enabled) {
+            log.info("Aggregating records into {} windowed aggregations", aggregations.length);
+        }
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Add a processed record to every aggregation of its topic. Redeliveries by the retry pipeline were
+     * counted on their first delivery and are ignored.
+     *
+     * @param kafkaMessage The record, after field extraction
+     */
+    public void record(KafkaMessage kafkaMessage) {
+        if (!enabled || kafkaMessage.getRetryAttempt() > 0) {
+            return;
+        }
+        for (WindowedAggregation aggregation : aggregations) {
+            if (aggregation.appliesTo(kafkaMessage) && !aggregation.add(kafkaMessage)) {
+                log.debug("Dropped late or future-dated message {} from aggregation {}", kafkaMessage.getId(), aggregation.getName());
+            }
+        }
+    }
+
+    /**
+     * Get the configuration and counters of all aggregations.
+     */
+    public List<WindowedAggregation.Summary> getAggregations() {
+        List<WindowedAggregation.Summary> summaries = new ArrayList<>(aggregations.length);
+        for (WindowedAggregation aggregation : aggregations) {
+            summaries.add(aggregation.getSummary());
+        }
+        return summaries;
+    }
+
+    public boolean hasAggregation(String name) {
+        return byName.containsKey(name);
+    }
+
+    /**
+     * Get the most recent windows of an aggregation, newest first.
+     *
+     * @param name The aggregation name
+     * @param limit Maximum number of windows
+     * @param group Only this group, or null for all groups
+     * @return The windows, empty for an unknown aggregation
+     */
+    public List<WindowedAggregation.Window> getWindows(String name, int limit, String group) {
+        WindowedAggregation aggregation = byName.get(name);
+        return aggregation != null ? aggregation.windows(limit, group) : List.of();
+    }
+}
@@ -0,0 +1,111 @@
+package com.dhi.camelkafka.aggregate;
+
+/**
+ * Mergeable histogram with logarithmic buckets for approximate percentiles of non-negative values.
+ * <p>
+ * Bucket {@code i} counts the values in {@code (gamma^(i-1), gamma^i]} with {@code gamma = (1 + a) / (1 - a)},
+ * so every percentile is within relative error {@code a} of an actual value. Counts are held in one dense
+ * {@code int[]} covering only the bucket range seen so far; values spanning three orders of magnitude at 1%
+ * accuracy take about 350 buckets. Histograms with the same accuracy merge by adding counts.
+ * Not thread-safe.
+ */
+public final class LogHistogram {
+
+    private static final int[] EMPTY = new int[0];
+    private static final double MIN_POSITIVE = 1e-9; // Smaller values are counted as zero
+
+    private final double relativeAccuracy;
+    private final double gamma;
+    private final double logGamma;
+    private int[] counts = EMPTY;
+    private int offset; // Bucket index of counts[0]
+    private long zeroCount;
+    private long count;
+
+    public LogHistogram(double relativeAccuracy) {
+        if (!(relativeAccuracy > 0 && relativeAccuracy < 1)) {
+            throw new IllegalArgumentException("Relative accuracy must be between 0 and 1: " + relativeAccuracy);
+        }
+        this.relativeAccuracy = relativeAccuracy;
+        this.gamma = (1 + relativeAccuracy) / (1 - relativeAccuracy);
+        this.logGamma = Math.log(gamma);
+    }
+
+    /**
+     * Add a value; negative values are counted as zero.
+     */
+    public void add(double value) {
+        count++;
+        if (!(value > MIN_POSITIVE)) {
+            zeroCount++;
+            return;
+        }
+        int index = (int) Math.ceil(Math.log(value) / logGamma);
+        cover(index, index);
+        counts[index - offset]++;
+    }
+
+    /**
+     * Add all values of another histogram with the same accuracy.
+     */
+    public void merge(LogHistogram other) {
+        if (other.relativeAccuracy != relativeAccuracy) {
+            throw new IllegalArgumentException("Cannot merge histograms of different accuracy");
+        }
+        count += other.count;
+        zeroCount += other.zeroCount;
+        if (other.counts.length == 0) {
+            return;
+        }
+        cover(other.offset, other.offset + other.counts.length - 1);
+        for (int i = 0; i < other.counts.length; i++) {
+            counts[other.offset + i - offset] += other.counts[i];
+        }
+    }
+
+    /**
+     * Get the value at a quantile.
+     *
+     * @param quantile Between 0 and 1, e.g. 0.99
+     * @return The approximate value, NaN if the histogram is empty
+     */
+    public double quantile(double quantile) {
+        if (count == 0) {
+            return Double.NaN;
+        }
+        long rank = (long) Math.floor(Math.max(0, Math.min(1, quantile)) * (count - 1));
+        long seen = zeroCount;
+        if (rank < seen) {
+            return 0;
+        }
+        for (int i = 0; i < counts.length; i++) {
+            seen += counts[i];
+            if (seen > rank) {
+                return 2 * Math.pow(gamma, offset + i) / (gamma + 1);
+            }
+        }
+        return 2 * Math.pow(gamma, offset + counts.length - 1) / (gamma + 1);
+    }
+
+    public long getCount() {
+        return count;
+    }
+
+    private void cover(int low, int high) {
+        if (counts.length == 0) {
+            counts = new int[high - low + 1];
+            offset = low;
+            return;
+        }
+        int currentHigh = offset + counts.length - 1;
+        if (low >= offset && high <= currentHigh) {
+            return;
+        }
+        int newLow = Math.min(low, offset);
+        int newHigh = Math.max(high, currentHigh);
+        int[] grown = new int[newHigh - newLow + 1];
+        System.arraycopy(counts, 0, grown, offset - newLow, counts.length);
+        counts = grown;
+        offset = newLow;
+    }
+}
@@ -0,0 +1,72 @@
+package com.dhi.camelkafka.aggregate;
+
+/**
+ * Count, sum, min, max and percentile histogram of one group in one window slide, held in primitives.
+ * Updates from concurrent workers are serialized on the accumulator.
+ */
+public final class WindowAccumulator {
+
+    private final LogHistogram histogram; // Null when the aggregation has no value field
+    private long count;
+    private long valueCount;
+    private double sum;
+    private double min = Double.POSITIVE_INFINITY;
+    private double max = Double.NEGATIVE_INFINITY;
+
+    /**
+     * @param relativeAccuracy Percentile accuracy, or 0 to count records only
+     */
+    public WindowAccumulator(double relativeAccuracy) {
+        this.histogram = relativeAccuracy > 0 ? new LogHistogram(relativeAccuracy) : null;
+    }
+
+    /**
+     * Count a record and add its value.
+     *
+     * @param value The record's value, NaN if it has none
+     */
+    public synchronized void add(double value) {
+        count++;
+        if (histogram != null && !Double.isNaN(value)) {
+            valueCount++;
+            sum += value;
+            min = Math.min(min, value);
+            max = Math.max(max, value);
+            histogram.add(value);
+        }
+    }
+
+    /**
+     * Add this accumulator's records to another one of the same aggregation.
+     *
+     * @param target The accumulator to merge into, not shared with other threads
+     */
+    public synchronized void mergeInto(WindowAccumulator target) {
+        target.count += count;
+        if (histogram != null && valueCount > 0) {
+            target.valueCount += valueCount;
+            target.sum += sum;
+            target.min = Math.min(target.min, min);
+            target.max = Math.max(target.max, max);
+            target.histogram.merge(histogram);
+        }
+    }
+
+    /**
+     * Get the statistics of the accumulated records.
+     *
+     * @param key The group key
+     * @return The group's statistics; value statistics are null when no record had a value
+     */
+    public synchronized WindowedAggregation.Group toGroup(String key) {
+        if (valueCount == 0) {
+            return new WindowedAggregation.Group(key, count, null, null, null, null, null, null, null);
+        }
+        return new WindowedAggregation.Group(key, count, sum, min, max, sum / valueCount,
+                histogram.quantile(0.5), histogram.quantile(0.95), histogram.quantile(0.99));
+    }
+
+    public synchronized long getCount() {
+        return count;
+    }
+}
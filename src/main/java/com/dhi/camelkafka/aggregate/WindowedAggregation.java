@@ -0,0 +1,257 @@
+package com.dhi.camelkafka.aggregate;
+
+import com.dhi.camelkafka.config.AggregationDefinition;
+import com.dhi.camelkafka.config.AggregationGroupBy;
+import com.dhi.camelkafka.model.KafkaMessage;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Tumbling or sliding event-time windows over consumed records, grouped by topic, key or an extracted field.
+ * <p>
+ * Records are accumulated per slide ("pane"): a tumbling window is one pane, a sliding window of {@code windowMs}
+ * merges the {@code windowMs / slideMs} panes it covers when it is queried, so each record updates exactly one
+ * accumulator whatever the overlap. Event time is the Kafka record timestamp. The watermark trails the newest
+ * timestamp by {@code allowedLatenessMs}; a window is complete once the watermark passes its end, and a record
+ * whose windows are all complete is dropped as late and counted. A record timestamped more than {@code maxFutureMs}
+ * ahead of the wall clock is dropped and counted as well, so that one bad producer clock cannot push the watermark
+ * ahead and close every window. Panes older than the retained windows are evicted.
+ */
+public class WindowedAggregation {
+
+    static final String OTHER_GROUP = "(other)";
+    static final String NO_GROUP = "(none)";
+
+    private final String name;
+    private final Set<String> topics; // Null matches all topics
+    private final AggregationGroupBy groupBy;
+    private final String groupByField;
+    private final String valueField;
+    private final long windowMs;
+    private final long slideMs;
+    private final long allowedLatenessMs;
+    private final long maxFutureMs;
+    private final int retainedWindows;
+    private final int maxGroups;
+    private final double relativeAccuracy; // 0 when there is no value field
+    private final ConcurrentSkipListMap<Long, Pane> panes = new ConcurrentSkipListMap<>();
+    private final AtomicLong maxEventTime = new AtomicLong(Long.MIN_VALUE);
+    private final LongAdder records = new LongAdder();
+    private final LongAdder lateRecords = new LongAdder();
+    private final LongAdder futureRecords = new LongAdder();
+    private volatile Pane latest;
+
+    public WindowedAggregation(AggregationDefinition definition) {
+        this.name = definition.getName();
+        this.topics = definition.getTopics().isEmpty() ? null : new HashSet<>(definition.getTopics());
+        this.groupBy = definition.getGroupBy();
+        this.groupByField = definition.getGroupByField();
+        this.valueField = definition.getValueField();
+        this.windowMs = definition.getWindowMs();
+        this.slideMs = definition.getSlideMs() != null ? definition.getSlideMs() : windowMs;
+        this.allowedLatenessMs = Math.max(0, definition.getAllowedLatenessMs());
+        this.maxFutureMs = Math.max(0, definition.getMaxFutureMs());
+        this.retainedWindows = Math.max(1, definition.getRetainedWindows());
+        this.maxGroups = Math.max(1, definition.getMaxGroups());
+        this.relativeAccuracy = valueField != null ? definition.getRelativeAccuracy() : 0;
+        if (name == null || name.isBlank()) {
+            throw new IllegalArgumentException("Aggregation needs a name");
+        }
+        if (windowMs <= 0 || slideMs <= 0 || slideMs > windowMs || windowMs % slideMs != 0) {
+            throw new IllegalArgumentException("Aggregation " + name + ": slideMs must divide windowMs, got "
+                    + windowMs + "/" + slideMs);
+        }
+        if (groupBy == AggregationGroupBy.FIELD && groupByField == null) {
+            throw new IllegalArgumentException("Aggregation " + name + " groups by field but has no groupByField");
+        }
+        if (valueField != null) {
+            new LogHistogram(relativeAccuracy); // Validates the accuracy
+        }
+    }
+
+    /**
+     * Check whether records of the message's topic are aggregated.
+     */
+    public boolean appliesTo(KafkaMessage message) {
+        return topics == null || topics.contains(message.getTopic());
+    }
+
+    /**
+     * Add a record to its window.
+     *
+     * @param message The record, with extracted fields if the aggregation uses them
+     * @return false if the record was late or timestamped too far in the future, and dropped
+     */
+    public boolean add(KafkaMessage message) {
+        long eventTime = eventTime(message);
+        if (eventTime - maxFutureMs > System.currentTimeMillis()) {
+            futureRecords.increment(); // Would hold the watermark ahead of every real record
+            return false;
+        }
+        long watermark = maxEventTime.accumulateAndGet(eventTime, Math::max) - allowedLatenessMs;
+        long paneStart = Math.floorDiv(eventTime, slideMs) * slideMs;
+        if (paneStart + windowMs <= watermark) {
+            lateRecords.increment(); // The last window containing the record is already complete
+            return false;
+        }
+        pane(paneStart, watermark).accumulator(groupKey(message), maxGroups, relativeAccuracy).add(value(message));
+        records.increment();
+        return true;
+    }
+
+    /**
+     * Get the most recent windows, newest first. The newest window is the one ending after the latest pane and is
+     * usually still incomplete.
+     *
+     * @param limit Maximum number of windows
+     * @param group Only this group, or null for all groups
+     * @return The windows with their groups, largest count first
+     */
+    public List<Window> windows(int limit, String group) {
+        List<Window> result = new ArrayList<>();
+        Pane newest = latest;
+        if (newest == null || panes.isEmpty()) {
+            return result;
+        }
+        long oldestPane = panes.firstKey();
+        long watermark = maxEventTime.get() - allowedLatenessMs;
+        for (long end = newest.start + slideMs; result.size() < limit && end - slideMs >= oldestPane; end -= slideMs) {
+            Map<String, WindowAccumulator> merged = new HashMap<>();
+            for (Pane pane : panes.subMap(end - windowMs, true, end, false).values()) {
+                pane.groups.forEach((key, accumulator) -> {
+                    if (group == null || group.equals(key)) {
+                        accumulator.mergeInto(merged.computeIfAbsent(key, k -> new WindowAccumulator(relativeAccuracy)));
+                    }
+                });
+            }
+            List<Group> groups = new ArrayList<>(merged.size());
+            merged.forEach((key, accumulator) -> groups.add(accumulator.toGroup(key)));
+            groups.sort(Comparator.comparingLong(Group::count).reversed());
+            result.add(new Window(end - windowMs, end, end <= watermark, groups));
+        }
+        return result;
+    }
+
+    /**
+     * Get the aggregation's configuration and counters.
+     */
+    public Summary getSummary() {
+        long max = maxEventTime.get();
+        return new Summary(name, groupBy, groupByField, valueField, windowMs, slideMs, allowedLatenessMs,
+                records.sum(), lateRecords.sum(), futureRecords.sum(), max != Long.MIN_VALUE ? max - allowedLatenessMs : null, panes.size());
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public long getLateRecords() {
+        return lateRecords.sum();
+    }
+
+    public long getFutureRecords() {
+        return futureRecords.sum();
+    }
+
+    private Pane pane(long start, long watermark) {
+        Pane current = latest;
+        if (current != null && current.start == start) {
+            return current;
+        }
+        Pane pane = panes.get(start);
+        if (pane == null) {
+            pane = panes.computeIfAbsent(start, Pane::new);
+            // Keep the panes of the retained complete windows and of every window still open
+            panes.headMap(watermark - windowMs - retainedWindows * slideMs).clear();
+        }
+        if (current == null || start > current.start) {
+            latest = pane; // A racing update may keep an older pane here until the next record
+        }
+        return pane;
+    }
+
+    private static long eventTime(KafkaMessage message) {
+        Long timestamp = message.getTimestamp();
+        if (timestamp != null && timestamp > 0) {
+            return timestamp;
+        }
+        return message.getProcessedAtMillis() > 0 ? message.getProcessedAtMillis() : System.currentTimeMillis();
+    }
+
+    private String groupKey(KafkaMessage message) {
+        String key = switch (groupBy) {
+            case TOPIC -> message.getTopic();
+            case KEY -> message.getMessageKey();
+            case FIELD -> message.getFields() != null ? message.getFields().getString(groupByField) : null;
+        };
+        return key != null ? key : NO_GROUP;
+    }
+
+    private double value(KafkaMessage message) {
+        if (valueField == null || message.getFields() == null) {
+            return Double.NaN;
+        }
+        return message.getFields().getDouble(valueField, Double.NaN);
+    }
+
+    /**
+     * Accumulators of one slide, by group.
+     */
+    private static final class Pane {
+        private final long start;
+        private final ConcurrentMap<String, WindowAccumulator> groups = new ConcurrentHashMap<>();
+
+        private Pane(long start) {
+            this.start = start;
+        }
+
+        WindowAccumulator accumulator(String key, int maxGroups, double relativeAccuracy) {
+            WindowAccumulator accumulator = groups.get(key);
+            if (accumulator != null) {
+                return accumulator;
+            }
+            String group = groups.size() < maxGroups ? key : OTHER_GROUP;
+            return groups.computeIfAbsent(group, k -> new WindowAccumulator(relativeAccuracy));
+        }
+    }
+
+    /**
+     * One window of an aggregation.
+     *
+     * @param start Window start, epoch millis inclusive
+     * @param end Window end, epoch millis exclusive
+     * @param complete Whether the watermark passed the end, so no more records are added
+     * @param groups Statistics per group, largest count first
+     */
+    public record Window(long start, long end, boolean complete, List<Group> groups) {
+    }
+
+    /**
+     * Statistics of one group in a window; the value statistics are null without a value field.
+     */
+    public record Group(String key, long count, Double sum, Double min, Double max, Double mean,
+                       Double p50, Double p95, Double p99) {
+    }
+
+    /**
+     * Configuration and counters of an aggregation.
+     *
+     * @param futureRecords Records dropped for a timestamp more than {@code maxFutureMs} ahead of the wall clock
+     * @param watermark Newest record timestamp minus the allowed lateness, null before the first record
+     */
+    public record Summary(String name, AggregationGroupBy groupBy, String groupByField, String valueField,
+                          long windowMs, long slideMs, long allowedLatenessMs, long records, long lateRecords,
+                          long futureRecords, Long watermark, int panes) {
+    }
+}
@@ -0,0 +1,207 @@
+package com.dhi.camelkafka.avro;
+
+import com.dhi.camelkafka.config.KafkaProperties;
+import com.dhi.camelkafka.config.PayloadFormat;
+import com.dhi.camelkafka.model.KafkaMessage;
+import io.confluent.kafka.schemaregistry.ParsedSchema;
+import io.confluent.kafka.schemaregistry.avro.AvroSchema;
+import io.confluent.kafka.schemaregistry.client.CachedSchemaRegistryClient;
+import io.confluent.kafka.schemaregistry.client.SchemaRegistryClient;
+import io.confluent.kafka.schemaregistry.client.SchemaRegistryClientConfig;
+import io.confluent.kafka.schemaregistry.client.rest.exceptions.RestClientException;
+import io.confluent.kafka.schemaregistry.testutil.MockSchemaRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.avro.Schema;
+import org.apache.avro.generic.GenericDatumReader;
+import org.apache.avro.io.BinaryDecoder;
+import org.apache.avro.io.DatumReader;
+import org.apache.avro.io.DecoderFactory;
+import org.apache.avro.specific.SpecificData;
+import org.apache.avro.specific.SpecificDatumReader;
+import org.apache.avro.specific.SpecificRecord;
+import org.apache.kafka.common.errors.SerializationException;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Decodes Avro values in the Schema Registry wire format: a zero magic byte, a 4-byte schema id and the
+ * Avro binary encoding.
+ * <p>
+ * Used with {@code kafka.payloadFormat=avro}, where values arrive as {@code byte[]}. The writer schema and the
+ * {@link DatumReader} built for it are cached per schema id, up to {@code kafka.schemaCacheCapacity} ids, so
+ * the registry is only asked once per schema. Binary decoders are reused per thread. With
+ * {@code kafka.specificAvroReader=true} records are decoded into their generated class when it is on the
+ * classpath, resolving the writer schema against the class's schema; otherwise they are {@code GenericRecord}s.
+ */
+@Slf4j
+@Component
+public class AvroRecordDecoder {
+
+    private static final byte MAGIC_BYTE = 0x0;
+    private static final int HEADER_LENGTH = 5;
+    private static final String MOCK_URL_PREFIX = "mock://";
+
+    private final SchemaRegistryClient schemaRegistryClient;
+    private final int cacheCapacity;
+    private final boolean specificReader;
+    private final ConcurrentMap<Integer, DatumReader<Object>> readers = new ConcurrentHashMap<>();
+    private final Queue<Integer> cacheOrder = new ConcurrentLinkedQueue<>();
+    private final ThreadLocal<BinaryDecoder> decoders = new ThreadLocal<>();
+    private final LongAdder schemaLookups = new LongAdder();
+
+    @Autowired
+    public AvroRecordDecoder(KafkaProperties kafkaProperties) {
+        this(kafkaProperties.getPayloadFormat() == PayloadFormat.AVRO ? createClient(kafkaProperties) : null,
+                kafkaProperties.getSchemaCacheCapacity(), Boolean.TRUE.equals(kafkaProperties.getSpecificAvroReader()));
+    }
+
+    /**
+     * Create a decoder for the given registry client, e.g. a {@code MockSchemaRegistryClient}.
+     *
+     * @param schemaRegistryClient The registry client, or null to disable decoding
+     * @param cacheCapacity Maximum number of cached schema ids
+     * @param specificReader Whether to decode into generated classes
+     */
+    AvroRecordDecoder(SchemaRegistryClient schemaRegistryClient, int cacheCapacity, boolean specificReader) {
+        this.schemaRegistryClient = schemaRegistryClient;
+        this.cacheCapacity = Math.max(1, cacheCapacity);
+        this.specificReader = specificReader;
+    }
+
+    /**
+     * Whether the message value is a Schema Registry framed Avro value this decoder should decode.
+     */
+    public boolean appliesTo(KafkaMessage kafkaMessage) {
+        return schemaRegistryClient != null
+                && kafkaMessage.getRawContent() instanceof byte[] bytes
+                && bytes.length >= HEADER_LENGTH && bytes[0] == MAGIC_BYTE;
+    }
+
+    /**
+     * Decode the message value.
+     *
+     * @param kafkaMessage A message this decoder applies to
+     * @return The decoded record
+     * @throws SerializationException If the schema cannot be retrieved or the value does not match it
+     */
+    public Object decode(KafkaMessage kafkaMessage) {
+        byte[] bytes = (byte[]) kafkaMessage.getRawContent();
+        return decode(bytes, 0, bytes.length);
+    }
+
+    /**
+     * Decode a Schema Registry framed Avro value.
+     *
+     * @param data The buffer holding the value
+     * @param offset Start of the value in the buffer
+     * @param length Length of the value
+     * @return The decoded record
+     * @throws SerializationException If the value is not framed, the schema cannot be retrieved or the value does not match it
+     */
+    public Object decode(byte[] data, int offset, int length) {
+        if (length < HEADER_LENGTH || data[offset] != MAGIC_BYTE) {
+            throw new SerializationException("Value is not in the Schema Registry wire format");
+        }
+        int schemaId = (data[offset + 1] & 0xFF) << 24 | (data[offset + 2] & 0xFF) << 16
+                | (data[offset + 3] & 0xFF) << 8 | (data[offset + 4] & 0xFF);
+        DatumReader<Object> reader = reader(schemaId);
+        BinaryDecoder decoder = DecoderFactory.get()
+                .binaryDecoder(data, offset + HEADER_LENGTH, length - HEADER_LENGTH, decoders.get());
+        decoders.set(decoder);
+        try {
+            return reader.read(null, decoder);
+        } catch (IOException | RuntimeException e) {
+            throw new SerializationException("Error decoding Avro value with schema id " + schemaId, e);
+        }
+    }
+
+    /**
+     * Get the number of schema ids with a cached reader.
+     */
+    public int getCachedSchemaCount() {
+        return readers.size();
+    }
+
+    /**
+     * Get the number of schema lookups, i.e. reader cache misses.
+     */
+    public long getSchemaLookups() {
+        return schemaLookups.sum();
+    }
+
+    private DatumReader<Object> reader(int schemaId) {
+        DatumReader<Object> reader = readers.get(schemaId);
+        if (reader != null) {
+            return reader;
+        }
+        // Loaded outside the map so a slow registry call does not block lookups of other ids
+        DatumReader<Object> loaded = createReader(schemaId);
+        DatumReader<Object> existing = readers.putIfAbsent(schemaId, loaded);
+        if (existing != null) {
+            return existing;
+        }
+        cacheOrder.add(schemaId);
+        while (readers.size() > cacheCapacity) {
+            Integer eldest = cacheOrder.poll();
+            if (eldest == null) {
+                break;
+            }
+            readers.remove(eldest);
+        }
+        return loaded;
+    }
+
+    private DatumReader<Object> createReader(int schemaId) {
+        schemaLookups.increment();
+        ParsedSchema parsedSchema;
+        try {
+            parsedSchema = schemaRegistryClient.getSchemaById(schemaId);
+        } catch (IOException | RestClientException e) {
+            throw new SerializationException("Error retrieving Avro schema for id " + schemaId, e);
+        }
+        if (!(parsedSchema instanceof AvroSchema avroSchema)) {
+            throw new SerializationException("Schema id " + schemaId + " is a " + parsedSchema.schemaType() + " schema, not Avro");
+        }
+        Schema writerSchema = avroSchema.rawSchema();
+        // Datum readers keep their resolving decoders per thread, so one instance serves all workers
+        if (specificReader && writerSchema.getType() == Schema.Type.RECORD) {
+            Class<?> specificClass = SpecificData.get().getClass(writerSchema);
+            if (specificClass != null && SpecificRecord.class.isAssignableFrom(specificClass)) {
+                log.info("Decoding schema id {} into {}", schemaId, specificClass.getName());
+                return new SpecificDatumReader<>(writerSchema, SpecificData.get().getSchema(specificClass));
+            }
+            log.warn("No generated class for {} (schema id {}), decoding as GenericRecord", writerSchema.getFullName(), schemaId);
+        } else {
+            log.info("Decoding schema id {} ({}) as GenericRecord", schemaId, writerSchema.getFullName());
+        }
+        return new GenericDatumReader<>(writerSchema);
+    }
+
+    private static SchemaRegistryClient createClient(KafkaProperties kafkaProperties) {
+        String url = kafkaProperties.getSchemaRegistryUrl();
+        if (url == null || url.isBlank()) {
+            throw new IllegalStateException("kafka.payloadFormat=avro requires kafka.schemaRegistryUrl");
+        }
+        if (url.startsWith(MOCK_URL_PREFIX)) {
+            // In-process registry shared with producers using the same mock:// scope
+            return MockSchemaRegistry.getClientForScope(url.substring(MOCK_URL_PREFIX.length()));
+        }
+        Map<String, Object> config = new HashMap<>();
+        if (kafkaProperties.getSchemaRegistryBasicAuthUserInfo() != null) {
+            config.put(SchemaRegistryClientConfig.BASIC_AUTH_CREDENTIALS_SOURCE, "USER_INFO");
+            config.put(SchemaRegistryClientConfig.USER_INFO_CONFIG, kafkaProperties.getSchemaRegistryBasicAuthUserInfo());
+        }
+        return new CachedSchemaRegistryClient(Arrays.asList(url.split(",")),
+                kafkaProperties.getSchemaCacheCapacity(), config);
+    }
+}
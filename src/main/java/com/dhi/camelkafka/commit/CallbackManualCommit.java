@@ -0,0 +1,53 @@
+package com.dhi.camelkafka.commit;
+
+import lombok.extern.slf4j.Slf4j;
+import org.apache.camel.component.kafka.consumer.KafkaManualCommit;
+import org.apache.kafka.clients.consumer.OffsetCommitCallback;
+import org.apache.kafka.common.TopicPartition;
+
+/**
+ * Manual commit of one record that is issued by its consumer's next poll and reports the broker's answer.
+ * Created by {@link CallbackManualCommitFactory}.
+ */
+@Slf4j
+public final class CallbackManualCommit implements KafkaManualCommit {
+
+    private final CallbackManualCommitFactory.CommitQueue queue;
+    private final TopicPartition partition;
+    private final long offset;
+
+    CallbackManualCommit(CallbackManualCommitFactory.CommitQueue queue, TopicPartition partition, long offset) {
+        this.queue = queue;
+        this.partition = partition;
+        this.offset = offset;
+    }
+
+    /**
+     * Queue the commit and only log its result.
+     */
+    @Override
+    public void commit() {
+        commit((offsets, error) -> {
+            if (error != null) {
+                log.warn("Commit of offset {} for {} failed: {}", offset, partition, error.getMessage());
+            }
+        });
+    }
+
+    /**
+     * Queue the commit. May be called from any thread; the callback runs on the consumer thread.
+     *
+     * @param callback Receives the committed offset, or the error if the commit failed
+     */
+    public void commit(OffsetCommitCallback callback) {
+        queue.add(new CallbackManualCommitFactory.CommitRequest(partition, offset, callback));
+    }
+
+    public TopicPartition getPartition() {
+        return partition;
+    }
+
+    public long getOffset() {
+        return offset;
+    }
+}
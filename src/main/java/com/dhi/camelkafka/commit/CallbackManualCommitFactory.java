@@ -0,0 +1,206 @@
+package com.dhi.camelkafka.commit;
+
+import lombok.extern.slf4j.Slf4j;
+import org.apache.camel.component.kafka.consumer.CommitManager;
+import org.apache.camel.component.kafka.consumer.DefaultKafkaManualAsyncCommitFactory;
+import org.apache.camel.component.kafka.consumer.KafkaManualCommit;
+import org.apache.kafka.clients.consumer.Consumer;
+import org.apache.kafka.clients.consumer.ConsumerRebalanceListener;
+import org.apache.kafka.clients.consumer.OffsetAndMetadata;
+import org.apache.kafka.clients.consumer.OffsetCommitCallback;
+import org.apache.kafka.common.KafkaException;
+import org.apache.kafka.common.TopicPartition;
+import org.springframework.stereotype.Component;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+
+/**
+ * Manual commit factory whose commits report the outcome of the broker's commit.
+ * <p>
+ * Camel's asynchronous manual commit only queues the offset and logs the result of the {@code commitAsync}
+ * issued later by the consumer thread, so a caller can neither see a failure nor time the commit. Consumers
+ * created by the client factory are wrapped here instead: {@link CallbackManualCommit#commit(OffsetCommitCallback)}
+ * queues the offset on its consumer, and every {@code poll} first issues one {@code commitAsync} for the queued
+ * offsets and hands its result to each caller's callback. Closing the consumer commits what is still queued
+ * synchronously. When partitions are revoked, the {@link OffsetCommitter}'s pending commit points are committed
+ * synchronously before its state for them is released; lost partitions are only released.
+ * Extends Camel's asynchronous factory so that Camel keeps its asynchronous commit manager.
+ * Referenced from the endpoint URI as {@code #kafkaManualCommitFactory}.
+ */
+@Slf4j
+@Component("kafkaManualCommitFactory")
+public class CallbackManualCommitFactory extends DefaultKafkaManualAsyncCommitFactory {
+
+    private final OffsetCommitter offsetCommitter;
+
+    public CallbackManualCommitFactory(OffsetCommitter offsetCommitter) {
+        this.offsetCommitter = offsetCommitter;
+    }
+
+    @Override
+    public KafkaManualCommit newInstance(CamelExchangePayload camelExchangePayload, KafkaRecordPayload kafkaRecordPayload,
+                                         CommitManager commitManager) {
+        return newCommit(camelExchangePayload.consumer, kafkaRecordPayload.partition, kafkaRecordPayload.recordOffset);
+    }
+
+    /**
+     * Create the manual commit of a record.
+     *
+     * @param consumer The consumer the record was polled by, as wrapped by {@link #wrap(Consumer)}
+     * @param partition The record's partition
+     * @param offset The record's offset; the commit stores {@code offset + 1}
+     * @return The record's manual commit
+     */
+    public CallbackManualCommit newCommit(Consumer<?, ?> consumer, TopicPartition partition, long offset) {
+        if (consumer == null || !Proxy.isProxyClass(consumer.getClass())
+                || !(Proxy.getInvocationHandler(consumer) instanceof CommitQueue queue)) {
+            throw new IllegalStateException("Consumer was not created by the kafkaClientFactory, cannot commit " + partition);
+        }
+        return new CallbackManualCommit(queue, partition, offset);
+    }
+
+    /**
+     * Wrap a consumer so that commits queued for it are issued on its own thread.
+     *
+     * @param consumer The consumer
+     * @return The wrapped consumer
+     */
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    public Consumer wrap(Consumer consumer) {
+        return (Consumer) Proxy.newProxyInstance(Consumer.class.getClassLoader(), new Class<?>[]{Consumer.class},
+                new CommitQueue(consumer, offsetCommitter));
+    }
+
+    /**
+     * A queued commit of one offset and the callback for its result.
+     */
+    record CommitRequest(TopicPartition partition, long offset, OffsetCommitCallback callback) {
+    }
+
+    /**
+     * Commits queued for one consumer, issued from its poll, close and rebalance calls on the consumer thread.
+     */
+    static final class CommitQueue implements InvocationHandler {
+
+        private final Consumer<?, ?> consumer;
+        private final OffsetCommitter offsetCommitter;
+        private final Queue<CommitRequest> requests = new ConcurrentLinkedQueue<>();
+        private volatile boolean closed;
+
+        private CommitQueue(Consumer<?, ?> consumer, OffsetCommitter offsetCommitter) {
+            this.consumer = consumer;
+            this.offsetCommitter = offsetCommitter;
+        }
+
+        void add(CommitRequest request) {
+            requests.add(request);
+            if (closed) {
+                failQueued(); // Nothing polls this consumer anymore
+            }
+        }
+
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+            String name = method.getName();
+            if ("poll".equals(name)) {
+                commitQueued(false);
+            } else if ("close".equals(name)) {
+                closed = true;
+                commitQueued(true);
+            } else if ("subscribe".equals(name) && args.length == 2 && args[1] instanceof ConsumerRebalanceListener listener) {
+                args[1] = releasing(listener);
+            }
+            try {
+                return method.invoke(consumer, args);
+            } catch (InvocationTargetException e) {
+                throw e.getCause();
+            } finally {
+                if (closed) {
+                    failQueued();
+                }
+            }
+        }
+
+        private void commitQueued(boolean sync) {
+            List<CommitRequest> batch = new ArrayList<>();
+            Map<TopicPartition, OffsetAndMetadata> offsets = new HashMap<>();
+            CommitRequest request;
+            while ((request = requests.poll()) != null) {
+                batch.add(request);
+                offsets.merge(request.partition(), new OffsetAndMetadata(request.offset() + 1),
+                        (current, next) -> next.offset() > current.offset() ? next : current);
+            }
+            if (batch.isEmpty()) {
+                return;
+            }
+            try {
+                if (sync) {
+                    consumer.commitSync(offsets);
+                    complete(batch, offsets, null);
+                } else {
+                    consumer.commitAsync(offsets, (committed, error) -> complete(batch, offsets, error));
+                }
+            } catch (KafkaException e) {
+                complete(batch, offsets, e);
+            }
+        }
+
+        private ConsumerRebalanceListener releasing(ConsumerRebalanceListener listener) {
+            return new ConsumerRebalanceListener() {
+                @Override
+                public void onPartitionsRevoked(Collection<TopicPartition> partitions) {
+                    // Commit what is done before another consumer takes over
+                    offsetCommitter.flush();
+                    commitQueued(true);
+                    offsetCommitter.release(partitions);
+                    listener.onPartitionsRevoked(partitions);
+                }
+
+                @Override
+                public void onPartitionsAssigned(Collection<TopicPartition> partitions) {
+                    listener.onPartitionsAssigned(partitions);
+                }
+
+                @Override
+                public void onPartitionsLost(Collection<TopicPartition> partitions) {
+                    // Already owned by another consumer, so nothing can be committed for them
+                    offsetCommitter.release(partitions);
+                    listener.onPartitionsLost(partitions);
+                }
+            };
+        }
+
+        private void failQueued() {
+            CommitRequest request;
+            while ((request = requests.poll()) != null) {
+                notify(request, Map.of(), new IllegalStateException("Consumer is closed, offset "
+                        + request.offset() + " of " + request.partition() + " was not committed"));
+            }
+        }
+
+        private static void complete(List<CommitRequest> batch, Map<TopicPartition, OffsetAndMetadata> offsets,
+                                     Exception error) {
+            for (CommitRequest request : batch) {
+                notify(request, Map.of(request.partition(), offsets.get(request.partition())), error);
+            }
+        }
+
+        private static void notify(CommitRequest request, Map<TopicPartition, OffsetAndMetadata> offsets, Exception error) {
+            try {
+                request.callback().onComplete(offsets, error);
+            } catch (Exception e) {
+                log.error("Commit callback failed for {} at offset {}", request.partition(), request.offset(), e);
+            }
+        }
+    }
+}
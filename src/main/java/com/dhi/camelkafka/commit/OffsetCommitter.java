@@ -0,0 +1,329 @@
+package com.dhi.camelkafka.commit;
+
+import com.dhi.camelkafka.config.KafkaProperties;
+import com.dhi.camelkafka.metrics.ConsumerMetrics;
+import com.dhi.camelkafka.model.KafkaMessage;
+import com.dhi.camelkafka.service.KafkaCallbackService;
+import io.micrometer.core.instrument.Gauge;
+import jakarta.annotation.PreDestroy;
+import lombok.Builder;
+import lombok.Data;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.camel.component.kafka.consumer.KafkaManualCommit;
+import org.apache.kafka.common.TopicPartition;
+import org.apache.kafka.common.errors.RetriableException;
+import org.springframework.stereotype.Component;
+
+import java.util.Collection;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Coalescing offset committer.
+ * <p>
+ * Records are tracked when they are handed to processing and completed when processing ends, in any order.
+ * Completions only move a partition's commit point once all earlier records are done. Instead of committing
+ * every record, the committer remembers the latest commit point per partition and flushes them every
+ * {@code commitIntervalMs} or once {@code commitMaxPendingRecords} completions are waiting, issuing one
+ * asynchronous manual commit per partition. With a {@link CallbackManualCommit} the outcome arrives from the
+ * consumer's {@code commitAsync} callback: the commit latency runs from the request to the broker's answer,
+ * retriable failures are retried after {@code commitRetryBackoffMs} times the attempt, and other failures or
+ * exhausted retries are reported to {@link KafkaCallbackService#onCommitError(KafkaMessage, Exception)}.
+ */
+@Slf4j
+@Component
+public class OffsetCommitter {
+
+    private final KafkaCallbackService callbackService;
+    private final KafkaProperties kafkaProperties;
+    private final ConsumerMetrics consumerMetrics;
+    private final OffsetTracker<TrackedRecord> offsetTracker = new OffsetTracker<>();
+    private final ConcurrentMap<TopicPartition, PartitionCommit> partitionCommits = new ConcurrentHashMap<>();
+    private final AtomicInteger pendingCompletions = new AtomicInteger(0);
+    private final AtomicBoolean flushRequested = new AtomicBoolean(false);
+    private final ScheduledExecutorService flusher;
+
+    // Commit metrics
+    private final LongAdder commitCount = new LongAdder();
+    private final LongAdder commitErrorCount = new LongAdder();
+    private final LongAdder coalescedRecordCount = new LongAdder();
+    private final LongAdder commitLatencyTotalMicros = new LongAdder();
+    private final AtomicLong commitLatencyMaxMicros = new AtomicLong(0);
+
+    public OffsetCommitter(KafkaCallbackService callbackService, KafkaProperties kafkaProperties,
+                           ConsumerMetrics consumerMetrics) {
+        this.callbackService = callbackService;
+        this.kafkaProperties = kafkaProperties;
+        this.consumerMetrics = consumerMetrics;
+        this.flusher = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "kafka-offset-committer");
+            thread.setDaemon(true);
+            return thread;
+        });
+        Gauge.builder("kafka.consumer.inflight", offsetTracker, OffsetTracker::getInFlightCount)
+                .description("Records handed to processing and not yet covered by a commit point")
+                .register(consumerMetrics.getMeterRegistry());
+        long interval = Math.max(1, kafkaProperties.getCommitIntervalMs());
+        flusher.scheduleWithFixedDelay(this::flushQuietly, interval, interval, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Track a record that is about to be processed. Must be called in poll order for each partition.
+     *
+     * @param kafkaMessage The record's metadata
+     * @param manualCommit The record's manual commit, may be null when Camel does not provide one
+     */
+    public void track(KafkaMessage kafkaMessage, KafkaManualCommit manualCommit) {
+        if (kafkaProperties.isEnableAutoCommit()) {
+            return;
+        }
+        // A record's manual commit commits exactly its own offset + 1, so it travels with the record
+        offsetTracker.register(topicPartition(kafkaMessage), kafkaMessage.getOffset(),
+                new TrackedRecord(kafkaMessage, manualCommit));
+    }
+
+    /**
+     * Mark a tracked record as processed. May be called from any thread.
+     *
+     * @param kafkaMessage The record's metadata
+     */
+    public void complete(KafkaMessage kafkaMessage) {
+        if (kafkaProperties.isEnableAutoCommit()) {
+            return;
+        }
+        TopicPartition topicPartition = topicPartition(kafkaMessage);
+        TrackedRecord released = offsetTracker.complete(topicPartition, kafkaMessage.getOffset());
+        if (released == null) {
+            return;
+        }
+        partitionCommits.computeIfAbsent(topicPartition, tp -> new PartitionCommit()).advance(released);
+        if (pendingCompletions.incrementAndGet() >= kafkaProperties.getCommitMaxPendingRecords()
+                && flushRequested.compareAndSet(false, true)) {
+            flusher.execute(this::flushQuietly);
+        }
+    }
+
+    /**
+     * Get the number of tracked records that are not yet covered by a commit point.
+     *
+     * @return Number of in-flight records
+     */
+    public int getInFlightCount() {
+        return offsetTracker.getInFlightCount();
+    }
+
+    /**
+     * Get the number of in-flight records for a partition.
+     *
+     * @param topicPartition The partition
+     * @return Number of in-flight records for the partition
+     */
+    public int getInFlightCount(TopicPartition topicPartition) {
+        return offsetTracker.getInFlightCount(topicPartition);
+    }
+
+    /**
+     * Commit the pending commit point of every partition.
+     */
+    public void flush() {
+        flushRequested.set(false);
+        pendingCompletions.set(0);
+        for (var entry : partitionCommits.entrySet()) {
+            PartitionCommit partitionCommit = entry.getValue();
+            PendingCommit commit = partitionCommit.take();
+            if (commit != null) {
+                commitPartition(entry.getKey(), commit, partitionCommit);
+            }
+        }
+    }
+
+    /**
+     * Forget the tracked records and pending commit point of partitions this consumer no longer owns.
+     * Completions of their records still running on workers are ignored.
+     *
+     * @param partitions The revoked or lost partitions
+     */
+    public void release(Collection<TopicPartition> partitions) {
+        for (TopicPartition topicPartition : partitions) {
+            offsetTracker.reset(topicPartition);
+            partitionCommits.remove(topicPartition);
+        }
+        log.debug("Released commit state of {}", partitions);
+    }
+
+    /**
+     * Get commit statistics.
+     *
+     * @return Commit statistics
+     */
+    public CommitStats getCommitStats() {
+        long commits = commitCount.sum();
+        return CommitStats.builder()
+                .commits(commits)
+                .commitErrors(commitErrorCount.sum())
+                .coalescedRecords(coalescedRecordCount.sum())
+                .averageLatencyMicros(commits > 0 ? commitLatencyTotalMicros.sum() / commits : 0)
+                .maxLatencyMicros(commitLatencyMaxMicros.get())
+                .inFlightRecords(offsetTracker.getInFlightCount())
+                .build();
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        flusher.shutdown();
+        flushQuietly();
+    }
+
+    private void commitPartition(TopicPartition topicPartition, PendingCommit commit, PartitionCommit partitionCommit) {
+        TrackedRecord target = commit.target();
+        KafkaMessage message = target.message();
+        if (target.manualCommit() == null) {
+            log.debug("No manual commit available for {}, skipping commit of offset {}", topicPartition, message.getOffset());
+            return;
+        }
+
+        long requestedNanos = System.nanoTime();
+        if (target.manualCommit() instanceof CallbackManualCommit callbackCommit) {
+            callbackCommit.commit((offsets, error) -> {
+                if (error == null) {
+                    recordCommitted(commit, System.nanoTime() - requestedNanos);
+                } else {
+                    onCommitFailed(topicPartition, commit, partitionCommit, error);
+                }
+            });
+            return;
+        }
+        // Other handles report nothing beyond accepting the commit
+        try {
+            target.manualCommit().commit();
+            recordCommitted(commit, System.nanoTime() - requestedNanos);
+        } catch (Exception e) {
+            onCommitFailed(topicPartition, commit, partitionCommit, e);
+        }
+    }
+
+    private void recordCommitted(PendingCommit commit, long latencyNanos) {
+        KafkaMessage message = commit.target().message();
+        long latencyMicros = TimeUnit.NANOSECONDS.toMicros(latencyNanos);
+        consumerMetrics.recordCommit(message, latencyNanos);
+        commitCount.increment();
+        coalescedRecordCount.add(commit.coalesced());
+        commitLatencyTotalMicros.add(latencyMicros);
+        commitLatencyMaxMicros.accumulateAndGet(latencyMicros, Math::max);
+        callbackService.onManualCommit(message);
+    }
+
+    private void onCommitFailed(TopicPartition topicPartition, PendingCommit commit, PartitionCommit partitionCommit,
+                                Exception error) {
+        KafkaMessage message = commit.target().message();
+        log.warn("Commit attempt {} failed for {} at offset {}: {}",
+                commit.attempt() + 1, topicPartition, message.getOffset(), error.getMessage());
+        if (error instanceof RetriableException && commit.attempt() < kafkaProperties.getCommitMaxRetries()) {
+            long backoffMs = kafkaProperties.getCommitRetryBackoffMs() * (commit.attempt() + 1L);
+            try {
+                flusher.schedule(() -> {
+                    if (partitionCommit.retry(commit)) {
+                        flushQuietly();
+                    }
+                }, backoffMs, TimeUnit.MILLISECONDS);
+                return;
+            } catch (RejectedExecutionException e) {
+                log.debug("Offset committer is shut down, not retrying commit of {}", topicPartition);
+            }
+        }
+        commitErrorCount.increment();
+        consumerMetrics.recordCommitFailure(message);
+        callbackService.onCommitError(message, error);
+    }
+
+    private void flushQuietly() {
+        try {
+            flush();
+        } catch (Exception e) {
+            log.error("Error flushing offset commits", e);
+        }
+    }
+
+    private static TopicPartition topicPartition(KafkaMessage kafkaMessage) {
+        return new TopicPartition(kafkaMessage.getTopic(), kafkaMessage.getPartition());
+    }
+
+    /**
+     * A tracked record together with the manual commit that commits up to it.
+     */
+    private record TrackedRecord(KafkaMessage message, KafkaManualCommit manualCommit) {
+    }
+
+    /**
+     * A commit point taken for committing, with the completions it covers and the commit attempts it already had.
+     */
+    private record PendingCommit(TrackedRecord target, long coalesced, int attempt) {
+    }
+
+    /**
+     * Latest commit point of one partition that has not been committed yet.
+     */
+    private static final class PartitionCommit {
+
+        private TrackedRecord pending;
+        private long takenOffset = -1;
+        private long coalesced;
+        private int attempt;
+
+        synchronized void advance(TrackedRecord released) {
+            long current = pending != null ? pending.message().getOffset() : takenOffset;
+            if (released.message().getOffset() <= current) {
+                return; // A later commit point was already released by another thread
+            }
+            if (pending == null) {
+                coalesced = 0;
+            }
+            pending = released;
+            coalesced++;
+            attempt = 0;
+        }
+
+        synchronized PendingCommit take() {
+            if (pending == null) {
+                return null;
+            }
+            PendingCommit commit = new PendingCommit(pending, coalesced, attempt);
+            takenOffset = pending.message().getOffset();
+            pending = null;
+            return commit;
+        }
+
+        synchronized boolean retry(PendingCommit commit) {
+            // Put the failed commit point back unless a newer one was released or taken meanwhile
+            if (pending != null || takenOffset != commit.target().message().getOffset()) {
+                return false;
+            }
+            pending = commit.target();
+            coalesced = commit.coalesced();
+            attempt = commit.attempt() + 1;
+            return true;
+        }
+    }
+
+    /**
+     * Statistics for offset commits.
+     */
+    @Data
+    @Builder
+    public static class CommitStats {
+        private long commits;
+        private long commitErrors;
+        private long coalescedRecords;
+        private long averageLatencyMicros;
+        private long maxLatencyMicros;
+        private int inFlightRecords;
+    }
+}
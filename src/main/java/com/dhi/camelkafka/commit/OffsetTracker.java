@@ -0,0 +1,192 @@
+package com.dhi.camelkafka.commit;
+
+import org.apache.kafka.common.TopicPartition;
+
+import java.util.Arrays;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * Tracks in-flight offsets per partition when records complete out of order.
+ * <p>
+ * Offsets are registered in poll order by the consumer thread and completed by any thread.
+ * The commit point of a partition only advances past a record once every earlier registered
+ * record has completed (the low-watermark), so a commit never skips unfinished work.
+ *
+ * @param <H> Handle attached to each offset, e.g. the record's manual commit
+ */
+public class OffsetTracker<H> {
+
+    private static final int INITIAL_CAPACITY = 64;
+
+    private final ConcurrentMap<TopicPartition, PartitionOffsets<H>> partitions = new ConcurrentHashMap<>();
+
+    /**
+     * Register a record that is about to be processed.
+     * Registering an offset at or below the last registered one (e.g. after a seek or rebalance)
+     * discards the partition's earlier in-flight state.
+     *
+     * @param partition The record's partition
+     * @param offset The record's offset
+     * @param handle Handle returned once this record becomes the commit point
+     */
+    public void register(TopicPartition partition, long offset, H handle) {
+        partitions.computeIfAbsent(partition, tp -> new PartitionOffsets<>()).register(offset, handle);
+    }
+
+    /**
+     * Mark a record as completed.
+     *
+     * @param partition The record's partition
+     * @param offset The record's offset
+     * @return The handle of the highest record below the new low-watermark if it advanced, otherwise null
+     */
+    public H complete(TopicPartition partition, long offset) {
+        PartitionOffsets<H> offsets = partitions.get(partition);
+        return offsets != null ? offsets.complete(offset) : null;
+    }
+
+    /**
+     * Get the offset that is safe to commit for a partition.
+     *
+     * @param partition The partition
+     * @return The next offset to consume (last contiguous completed offset + 1), or -1 if nothing completed yet
+     */
+    public long getCommittableOffset(TopicPartition partition) {
+        PartitionOffsets<H> offsets = partitions.get(partition);
+        return offsets != null ? offsets.getCommittableOffset() : -1;
+    }
+
+    /**
+     * Get the number of registered records that have not been released by the low-watermark yet.
+     *
+     * @return Number of in-flight records across all partitions
+     */
+    public int getInFlightCount() {
+        int count = 0;
+        for (PartitionOffsets<H> offsets : partitions.values()) {
+            count += offsets.size();
+        }
+        return count;
+    }
+
+    /**
+     * Get the number of in-flight records for a single partition.
+     *
+     * @param partition The partition
+     * @return Number of in-flight records for the partition
+     */
+    public int getInFlightCount(TopicPartition partition) {
+        PartitionOffsets<H> offsets = partitions.get(partition);
+        return offsets != null ? offsets.size() : 0;
+    }
+
+    /**
+     * Forget all state for a partition, e.g. when it is revoked.
+     *
+     * @param partition The partition
+     */
+    public void reset(TopicPartition partition) {
+        partitions.remove(partition);
+    }
+
+    /**
+     * Offsets of one partition kept as a sorted circular queue.
+     * Completions flip a flag in place; the head is popped while it is completed.
+     */
+    private static final class PartitionOffsets<H> {
+
+        private long[] offsets = new long[INITIAL_CAPACITY];
+        private boolean[] completed = new boolean[INITIAL_CAPACITY];
+        private Object[] handles = new Object[INITIAL_CAPACITY];
+        private int head = 0;
+        private int size = 0;
+        private long lastRegistered = -1;
+        private long committableOffset = -1;
+
+        synchronized void register(long offset, H handle) {
+            if (offset <= lastRegistered) {
+                clear();
+            }
+            if (size == offsets.length) {
+                grow();
+            }
+            int index = (head + size) % offsets.length;
+            offsets[index] = offset;
+            completed[index] = false;
+            handles[index] = handle;
+            size++;
+            lastRegistered = offset;
+        }
+
+        @SuppressWarnings("unchecked")
+        synchronized H complete(long offset) {
+            int index = indexOf(offset);
+            if (index < 0) {
+                return null;
+            }
+            completed[index] = true;
+
+            Object released = null;
+            while (size > 0 && completed[head]) {
+                released = handles[head];
+                committableOffset = offsets[head] + 1;
+                handles[head] = null;
+                head = (head + 1) % offsets.length;
+                size--;
+            }
+            return (H) released;
+        }
+
+        synchronized long getCommittableOffset() {
+            return committableOffset;
+        }
+
+        synchronized int size() {
+            return size;
+        }
+
+        private int indexOf(long offset) {
+            // Registered offsets are strictly increasing, so binary search the logical range
+            int low = 0;
+            int high = size - 1;
+            while (low <= high) {
+                int mid = (low + high) >>> 1;
+                long value = offsets[(head + mid) % offsets.length];
+                if (value < offset) {
+                    low = mid + 1;
+                } else if (value > offset) {
+                    high = mid - 1;
+                } else {
+                    return (head + mid) % offsets.length;
+                }
+            }
+            return -1;
+        }
+
+        private void grow() {
+            int capacity = offsets.length * 2;
+            long[] newOffsets = new long[capacity];
+            boolean[] newCompleted = new boolean[capacity];
+            Object[] newHandles = new Object[capacity];
+            for (int i = 0; i < size; i++) {
+                int index = (head + i) % offsets.length;
+                newOffsets[i] = offsets[index];
+                newCompleted[i] = completed[index];
+                newHandles[i] = handles[index];
+            }
+            offsets = newOffsets;
+            completed = newCompleted;
+            handles = newHandles;
+            head = 0;
+        }
+
+        private void clear() {
+            Arrays.fill(handles, null);
+            head = 0;
+            size = 0;
+            lastRegistered = -1;
+            committableOffset = -1;
+        }
+    }
+}
@@ -0,0 +1,28 @@
+package com.dhi.camelkafka.config;
+
+import lombok.Data;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * A windowed aggregation over consumed records, by Kafka record timestamp.
+ * Windows are tumbling unless {@code slideMs} is set, in which case a window of {@code windowMs}
+ * starts every {@code slideMs}.
+ */
+@Data
+public class AggregationDefinition {
+
+    private String name; // Used in the dashboard API path
+    private List<String> topics = new ArrayList<>(); // Empty means all topics
+    private AggregationGroupBy groupBy = AggregationGroupBy.TOPIC;
+    private String groupByField; // Extracted field for groupBy=field
+    private String valueField; // Numeric extracted field for sum, min, max and percentiles; unset counts records only
+    private long windowMs = 60000;
+    private Long slideMs; // Must divide windowMs
+    private long allowedLatenessMs = 5000; // How far behind the newest timestamp a record may be before its windows close
+    private long maxFutureMs = 60000; // How far ahead of the wall clock a timestamp may be; later records are dropped
+    private int retainedWindows = 60; // Closed windows kept for queries
+    private int maxGroups = 1000; // Groups per slide; records of further groups are counted under (other)
+    private double relativeAccuracy = 0.01; // Relative error bound of the percentiles
+}
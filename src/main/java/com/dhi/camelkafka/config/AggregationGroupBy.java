@@ -0,0 +1,22 @@
+package com.dhi.camelkafka.config;
+
+/**
+ * What the records of a windowed aggregation are grouped by.
+ */
+public enum AggregationGroupBy {
+
+    /**
+     * One group per topic (default).
+     */
+    TOPIC,
+
+    /**
+     * One group per record key.
+     */
+    KEY,
+
+    /**
+     * One group per value of an extracted JSON field.
+     */
+    FIELD
+}
@@ -0,0 +1,20 @@
+package com.dhi.camelkafka.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Configuration properties for the windowed streaming aggregations shown on the dashboard.
+ */
+@Data
+@Component
+@ConfigurationProperties(prefix = "aggregation")
+public class AggregationProperties {
+
+    private boolean enabled = false;
+    private List<AggregationDefinition> definitions = new ArrayList<>();
+}
@@ -0,0 +1,24 @@
+package com.dhi.camelkafka.config;
+
+import lombok.Data;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * A named consumer route serving a set of topics with its own consumer settings.
+ * Use one entry with many topics and a small {@code consumersCount} for low-volume topics,
+ * and a dedicated entry with a larger {@code consumersCount} for a hot topic.
+ * Unset settings fall back to the global {@code kafka.*} values.
+ */
+@Data
+public class ConsumerTopology {
+
+    private String name; // Route id suffix
+    private List<String> topics = new ArrayList<>();
+    private Integer consumersCount; // Consumer threads for this route, each with its own Kafka consumer
+    private Integer maxPollRecords;
+    private Integer fetchMinBytes;
+    private Integer fetchMaxBytes;
+    private Integer maxPartitionFetchBytes;
+}
@@ -0,0 +1,26 @@
+package com.dhi.camelkafka.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+/**
+ * Configuration properties for the message dashboard.
+ */
+@Data
+@Component
+@ConfigurationProperties(prefix = "dashboard")
+public class DashboardProperties {
+
+    private int maxMessages = 100; // Number of recent messages kept for the dashboard
+    private long streamIntervalMs = 1000; // How often new messages are pushed to stream viewers
+    private long streamTimeoutMs = 1800000; // Stream connection lifetime; browsers reconnect and resume
+    private long streamHeartbeatMs = 15000; // Keep-alive comment interval for idle streams
+
+    // Message Journal Configuration
+    private boolean journalEnabled = false; // Also append messages to a memory-mapped journal that survives restarts
+    private String journalDirectory = "data/journal";
+    private int journalSegmentBytes = 64 * 1024 * 1024; // Size of one segment file, the unit of retention
+    private long journalRetentionBytes = 1024L * 1024 * 1024; // Delete the oldest segments beyond this size, 0 keeps all
+    private long journalRetentionMs = 86400000; // Delete segments whose newest message is older, 0 keeps all
+}
@@ -0,0 +1,29 @@
+package com.dhi.camelkafka.config;
+
+/**
+ * Where the business logic of a consumed record runs.
+ */
+public enum ExecutionMode {
+
+    /**
+     * Process every record on the Kafka consumer thread (default).
+     */
+    CONSUMER_THREAD,
+
+    /**
+     * Hand records to a bounded pool of workers, one lane per key hash, preserving per-key order.
+     */
+    WORKER_POOL,
+
+    /**
+     * Run every record on its own virtual thread, bounded by the in-flight limit (requires Java 21).
+     */
+    VIRTUAL_THREADS;
+
+    /**
+     * Whether records are processed off the consumer thread and committed by low-watermark.
+     */
+    public boolean isAsynchronous() {
+        return this != CONSUMER_THREAD;
+    }
+}
@@ -0,0 +1,23 @@
+package com.dhi.camelkafka.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Configuration properties for extracting JSON fields from record values.
+ */
+@Data
+@Component
+@ConfigurationProperties(prefix = "extraction")
+public class ExtractionProperties {
+
+    private boolean enabled = false;
+    private List<String> topics = new ArrayList<>(); // Topics whose values are JSON; empty means all topics
+    private Map<String, String> fields = new LinkedHashMap<>(); // Result name -> selector, e.g. status=$.http.response.status_code
+}
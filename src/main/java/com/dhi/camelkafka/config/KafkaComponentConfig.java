@@ -0,0 +1,40 @@
+package com.dhi.camelkafka.config;
+
+import lombok.extern.slf4j.Slf4j;
+import org.apache.camel.component.kafka.KafkaComponent;
+import org.apache.camel.spi.ComponentCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Applies Kafka client properties that have no Camel endpoint option to the Kafka component,
+ * so every consumer route inherits them.
+ */
+@Slf4j
+@Configuration
+public class KafkaComponentConfig {
+
+    /**
+     * Pass {@code kafka.clientDnsLookup} and the {@code kafka.consumer-properties.*} map through as
+     * {@code additionalProperties}. The Kafka client receives them after the endpoint options, so an entry in
+     * the map overrides a named option with the same client property.
+     */
+    @Bean
+    public ComponentCustomizer kafkaAdditionalPropertiesCustomizer(KafkaProperties kafkaProperties) {
+        return ComponentCustomizer.forType(KafkaComponent.class, component -> {
+            Map<String, Object> additionalProperties = new LinkedHashMap<>();
+            if (component.getConfiguration().getAdditionalProperties() != null) {
+                additionalProperties.putAll(component.getConfiguration().getAdditionalProperties());
+            }
+            if (kafkaProperties.getClientDnsLookup() != null) {
+                additionalProperties.put("client.dns.lookup", kafkaProperties.getClientDnsLookup());
+            }
+            additionalProperties.putAll(kafkaProperties.getConsumerProperties());
+            component.getConfiguration().setAdditionalProperties(additionalProperties);
+            log.info("Applied Kafka consumer properties: {}", additionalProperties.keySet());
+        });
+    }
+}
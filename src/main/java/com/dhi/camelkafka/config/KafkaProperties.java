@@ -4,7 +4,10 @@ import lombok.Data;
 import org.springframework.boot.context.properties.ConfigurationProperties;
 import org.springframework.stereotype.Component;
 
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 
 /**
  * Configuration properties for Kafka consumer settings.
@@ -23,6 +26,11 @@ public class KafkaProperties {
     private String topic3;
     private String topic4;
     private String topic5;
+    private String topicPattern; // Regex subscription served by a single consumer; new matching topics are picked up automatically
+    private boolean sharedConsumer = false; // Serve all listed topics from one consumer instead of one consumer per topic
+    private Integer metadataMaxAgeMs; // Metadata refresh interval, bounds how late a pattern subscription sees new topics
+    private int consumersCount = 1; // Consumer threads per route unless overridden by a consumer topology entry
+    private List<ConsumerTopology> consumers = new ArrayList<>(); // Named routes with their own topics and consumer settings
     private String autoOffsetReset = "earliest";
     private boolean enableAutoCommit = false;
     private int sessionTimeoutMs = 30000;
@@ -30,6 +38,57 @@ public class KafkaProperties {
     private int maxPollIntervalMs = 300000;
     private String keyDeserializer = "org.apache.kafka.common.serialization.StringDeserializer";
     private String valueDeserializer = "org.apache.kafka.common.serialization.StringDeserializer";
+    private PayloadFormat payloadFormat = PayloadFormat.STRING; // bytes / byte-buffer skip UTF-8 decoding of values nobody reads
+    
+    // Fetch Tuning (unset keeps the Kafka client default)
+    private Integer fetchMinBytes; // fetch.min.bytes: wait for this much data before a fetch returns
+    private Integer fetchMaxWaitMs; // fetch.max.wait.ms: upper bound on that wait
+    private Integer fetchMaxBytes; // fetch.max.bytes
+    private Integer maxPartitionFetchBytes; // max.partition.fetch.bytes
+    private Integer receiveBufferBytes; // receive.buffer.bytes (socket SO_RCVBUF), -1 uses the OS default
+    private String partitionAssignmentStrategy; // partition.assignment.strategy, e.g. org.apache.kafka.clients.consumer.CooperativeStickyAssignor
+    private Map<String, String> consumerProperties = new LinkedHashMap<>(); // Any other consumer property, applied last
+    private boolean batching = false; // Deliver each poll as one List<Exchange> and commit once per batch
+    private long processingDelayMs = 100; // Simulated handler time in KafkaMessageProcessor, 0 disables it
+    
+    // Execution Configuration
+    private ExecutionMode execution = ExecutionMode.CONSUMER_THREAD;
+    private int workerCount = Runtime.getRuntime().availableProcessors(); // Lanes for worker-pool execution
+    private int workerQueueCapacity = 1000; // Pending records per lane before the consumer blocks
+    private int maxInFlight = 10000; // Concurrent records for virtual-thread execution before the consumer blocks
+    
+    // Offset Commit Configuration
+    private long commitIntervalMs = 1000; // Flush pending commits at least this often
+    private int commitMaxPendingRecords = 500; // Flush early once this many completions are waiting
+    private int commitMaxRetries = 3;
+    private long commitRetryBackoffMs = 100;
+    
+    // Flow Control Configuration
+    private boolean flowControlEnabled = false; // Opt-in, the consumers are not wrapped unless enabled
+    private int flowControlPauseInFlight = 1000; // Pause a partition once this many of its records are in flight, 0 disables pausing
+    private int flowControlResumeInFlight = 500; // Resume a paused partition once its in-flight records drop to this
+    private long flowControlMaxLatencyMs = 0; // Partitions with a slower average handler time get lower in-flight limits, 0 disables
+    private int flowControlMinBatchSize = 1; // Lower bound of the effective batch size
+    private double flowControlPollBudget = 0.5; // Share of maxPollIntervalMs the records of one poll may take on the consumer thread
+    
+    // Retry / Dead-Letter Configuration
+    private boolean retryEnabled = false; // Hand failed records to the retry pipeline and move on, instead of the error route
+    private RetryMode retryMode = RetryMode.LOCAL; // LOCAL is at-most-once: waiting redeliveries are lost on shutdown or crash
+    private int retryMaxAttempts = 3; // Redeliveries before a record is dead-lettered, 0 dead-letters on the first failure
+    private long retryBackoffMs = 1000; // Delay before the first redelivery
+    private double retryBackoffMultiplier = 2.0;
+    private long retryMaxBackoffMs = 60000;
+    private int retryThreads = 2; // Threads for local redeliveries and retry/dead-letter publishing
+    private int retryQueueCapacity = 10000; // Records waiting for a local redelivery; beyond this failures are dead-lettered at once
+    private String retryTopicSuffix = ".retry"; // Retry topic of each source topic for retryMode=kafka
+    private boolean dlqEnabled = true; // Publish exhausted records to a dead-letter topic; otherwise they are logged and dropped
+    private String dlqTopicSuffix = ".DLQ"; // Dead-letter topic of each source topic
+    
+    // Deduplication Configuration
+    private boolean dedupEnabled = false; // Opt-in: skip redelivered records whose offset was already processed by this instance
+    private int dedupWindowSize = 65536; // Processed offsets remembered above each partition's watermark, one bit each
+    private long dedupKeyTtlMs = 0; // Also skip records whose key was processed this recently, 0 disables the key cache
+    private int dedupKeyCacheSize = 100000; // Keys remembered per topic, oldest evicted first
     
     // Confluent Cloud / Security Configuration
     private String securityProtocol;
@@ -46,6 +105,14 @@ public class KafkaProperties {
     private String schemaRegistryUrl;
     private String schemaRegistryBasicAuthUserInfo;
     private Boolean specificAvroReader;
+    private int schemaCacheCapacity = 1000; // Schema ids whose Avro reader is kept for payloadFormat=avro, oldest evicted first
+    
+    /**
+     * Get the value deserializer, taking the payload format into account.
+     */
+    public String getEffectiveValueDeserializer() {
+        return payloadFormat.getValueDeserializer() != null ? payloadFormat.getValueDeserializer() : valueDeserializer;
+    }
     
     /**
      * Get all configured topics, combining individual and list properties.
@@ -75,6 +142,15 @@ public class KafkaProperties {
             allTopics.add(topic5);
         }
         
+        // Add topics served by consumer topology entries
+        for (ConsumerTopology consumer : consumers) {
+            for (String consumerTopic : consumer.getTopics()) {
+                if (!allTopics.contains(consumerTopic)) {
+                    allTopics.add(consumerTopic);
+                }
+            }
+        }
+        
         // Fallback to single topic if no topics configured
         if (allTopics.isEmpty() && topic != null && !topic.trim().isEmpty()) {
             allTopics.add(topic);
@@ -0,0 +1,41 @@
+package com.dhi.camelkafka.config;
+
+/**
+ * How record values are handed to the processor.
+ */
+public enum PayloadFormat {
+
+    /**
+     * Deserialize values with {@code kafka.valueDeserializer}, a UTF-8 {@code StringDeserializer} by default.
+     */
+    STRING(null),
+
+    /**
+     * Keep values as the fetched {@code byte[]}; content is decoded only when it is first read.
+     */
+    BYTES("org.apache.kafka.common.serialization.ByteArrayDeserializer"),
+
+    /**
+     * Keep values as a {@code ByteBuffer} wrapping the fetched bytes; content is decoded only when it is first read.
+     */
+    BYTE_BUFFER("org.apache.kafka.common.serialization.ByteBufferDeserializer"),
+
+    /**
+     * Keep values as {@code byte[]} and decode Schema Registry framed Avro values with a cached reader per schema id.
+     * Values without the Avro framing, e.g. JSON on other topics, are handled like {@link #BYTES}.
+     */
+    AVRO("org.apache.kafka.common.serialization.ByteArrayDeserializer");
+
+    private final String valueDeserializer;
+
+    PayloadFormat(String valueDeserializer) {
+        this.valueDeserializer = valueDeserializer;
+    }
+
+    /**
+     * The value deserializer this format requires, or null to use the configured one.
+     */
+    public String getValueDeserializer() {
+        return valueDeserializer;
+    }
+}
@@ -0,0 +1,19 @@
+package com.dhi.camelkafka.config;
+
+/**
+ * Where failed records wait for their next delivery attempt.
+ */
+public enum RetryMode {
+
+    /**
+     * Keep failed records in memory and redeliver them from a scheduler (default).
+     * Pending retries are lost on shutdown.
+     */
+    LOCAL,
+
+    /**
+     * Publish failed records to a retry topic per source topic, consumed by a separate route that waits for
+     * each record's redelivery time. Pending retries survive restarts.
+     */
+    KAFKA
+}
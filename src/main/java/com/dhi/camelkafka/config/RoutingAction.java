@@ -0,0 +1,22 @@
+package com.dhi.camelkafka.config;
+
+/**
+ * What the routing stage does with a record.
+ */
+public enum RoutingAction {
+
+    /**
+     * Hand the record to the message processor (default).
+     */
+    PROCESS,
+
+    /**
+     * Skip the record; its offset is still committed.
+     */
+    DROP,
+
+    /**
+     * Send the record to the rule's Camel endpoint instead of the message processor, then commit it.
+     */
+    ROUTE
+}
@@ -0,0 +1,21 @@
+package com.dhi.camelkafka.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Configuration properties for the content-based routing stage in front of the message processor.
+ */
+@Data
+@Component
+@ConfigurationProperties(prefix = "routing")
+public class RoutingProperties {
+
+    private boolean enabled = false;
+    private List<RoutingRule> rules = new ArrayList<>(); // Evaluated in order; the first matching rule decides
+    private RoutingAction defaultAction = RoutingAction.PROCESS; // For records no rule matches
+}
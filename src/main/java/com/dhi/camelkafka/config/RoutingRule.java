@@ -0,0 +1,28 @@
+package com.dhi.camelkafka.config;
+
+import lombok.Data;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * A routing rule: predicates on the record's topic, key, headers and raw value, and the action for matching records.
+ * All configured predicates must hold; unset predicates match everything.
+ */
+@Data
+public class RoutingRule {
+
+    private String name; // Tag of the rule's hit counter
+    private List<String> topics = new ArrayList<>(); // Empty means all topics
+    private String keyEquals;
+    private String keyPrefix;
+    private String keyPattern; // Regex the whole key must match
+    private Map<String, String> headers = new LinkedHashMap<>(); // Header name -> required value
+    private String valueStartsWith; // Leading bytes of the raw value, e.g. {"level":"ERROR"
+    private List<String> valueContains = new ArrayList<>(); // Byte sequences that must all occur in the raw value
+    private List<String> valueNotContains = new ArrayList<>(); // Byte sequences that must not occur
+    private RoutingAction action = RoutingAction.PROCESS;
+    private String endpoint; // Camel endpoint URI for action=route, e.g. kafka:errors?brokers=localhost:9092
+}
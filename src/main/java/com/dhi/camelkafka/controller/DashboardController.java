@@ -1,15 +1,30 @@
 package com.dhi.camelkafka.controller;
 
+import com.dhi.camelkafka.aggregate.AggregationService;
+import com.dhi.camelkafka.aggregate.WindowedAggregation;
+import com.dhi.camelkafka.commit.OffsetCommitter;
 import com.dhi.camelkafka.model.KafkaMessage;
 import com.dhi.camelkafka.service.DashboardService;
+import com.dhi.camelkafka.service.DashboardStreamService;
+import com.dhi.camelkafka.store.MessageQuery;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.stereotype.Controller;
 import org.springframework.ui.Model;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
 import java.util.List;
+import java.util.Set;
 
 /**
  * Controller for the Kafka message dashboard.
@@ -20,7 +35,14 @@ import java.util.List;
 @RequestMapping("/dashboard")
 public class DashboardController {
 
+    private static final int MAX_PAGE_SIZE = 1000;
+    private static final String NEXT_BEFORE_HEADER = "X-Next-Before";
+
     private final DashboardService dashboardService;
+    private final OffsetCommitter offsetCommitter;
+    private final DashboardStreamService dashboardStreamService;
+    private final ObjectMapper objectMapper;
+    private final AggregationService aggregationService;
 
     /**
      * Display the main dashboard page.
@@ -28,17 +50,44 @@ public class DashboardController {
     @GetMapping
     public String dashboard(Model model) {
         model.addAttribute("stats", dashboardService.getStats());
+        model.addAttribute("maxMessages", dashboardService.getCapacity());
         return "dashboard";
     }
 
     /**
-     * REST endpoint to get recent messages as JSON.
+     * REST endpoint to get recent messages as a JSON array, newest first.
+     * Messages are written straight from the ring buffer. {@code limit} pages the result; the
+     * {@code X-Next-Before} response header is the {@code before} value of the next page.
+     * {@code fields} selects properties, e.g. {@code ?fields=id,topic,offset}.
      */
     @GetMapping("/api/messages")
     @ResponseBody
-    public ResponseEntity<List<KafkaMessage>> getRecentMessages() {
-        List<KafkaMessage> messages = dashboardService.getRecentMessages();
-        return ResponseEntity.ok(messages);
+    public ResponseEntity<StreamingResponseBody> getRecentMessages(@RequestParam(required = false) Long before,
+                                                                   @RequestParam(required = false) Integer limit,
+                                                                   @RequestParam(required = false) String fields) {
+        Set<MessageJsonWriter.Field> projection = MessageJsonWriter.parseFields(fields);
+        long to = Math.min(before != null ? before : Long.MAX_VALUE, dashboardService.getLatestSequence() + 1);
+        long oldest = dashboardService.getOldestSequence();
+        long from = limit != null ? Math.max(oldest, to - Math.max(1, limit)) : oldest;
+        
+        StreamingResponseBody body = out -> writeArray(out, generator ->
+                dashboardService.forEachMessage(from, to, (sequence, message) -> {
+                    writeMessage(generator, message, projection);
+                    return true;
+                }));
+        return streamed(body, from > oldest ? from : null);
+    }
+
+    /**
+     * Server-Sent Events stream of new messages and statistics changes.
+     * Pass {@code since=-1} to replay all retained messages first; browsers resume automatically
+     * after a reconnect through the {@code Last-Event-ID} header.
+     */
+    @GetMapping(path = "/api/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    @ResponseBody
+    public SseEmitter streamMessages(@RequestParam(required = false) Long since,
+                                     @RequestHeader(value = "Last-Event-ID", required = false) Long lastEventId) {
+        return dashboardStreamService.subscribe(lastEventId != null ? lastEventId : since);
     }
 
     /**
@@ -46,9 +95,78 @@ public class DashboardController {
      */
     @GetMapping("/api/messages/topic/{topic}")
     @ResponseBody
-    public ResponseEntity<List<KafkaMessage>> getMessagesByTopic(@PathVariable String topic) {
-        List<KafkaMessage> messages = dashboardService.getMessagesByTopic(topic);
-        return ResponseEntity.ok(messages);
+    public ResponseEntity<StreamingResponseBody> getMessagesByTopic(@PathVariable String topic,
+                                                                    @RequestParam(required = false) Long before,
+                                                                    @RequestParam(required = false) Integer limit,
+                                                                    @RequestParam(required = false) String fields) {
+        Set<MessageJsonWriter.Field> projection = MessageJsonWriter.parseFields(fields);
+        DashboardService.MessagePage page = dashboardService.findMessages(MessageQuery.forTopic(topic), before,
+                limit != null ? Math.max(1, limit) : Integer.MAX_VALUE);
+        
+        StreamingResponseBody body = out -> writeArray(out, generator -> {
+            for (KafkaMessage message : page.getMessages()) {
+                writeMessage(generator, message, projection);
+            }
+        });
+        return streamed(body, page.getNextBefore());
+    }
+
+    /**
+     * REST endpoint to query recent messages by topic, partition, key, offset range and processing time
+     * (epoch millis), newest first. Follow {@code nextBefore} for the next page.
+     */
+    @GetMapping("/api/messages/search")
+    @ResponseBody
+    public ResponseEntity<DashboardService.MessagePage> searchMessages(@RequestParam(required = false) String topic,
+                                                                       @RequestParam(required = false) Integer partition,
+                                                                       @RequestParam(required = false) String key,
+                                                                       @RequestParam(required = false) Long fromOffset,
+                                                                       @RequestParam(required = false) Long toOffset,
+                                                                       @RequestParam(required = false) Long from,
+                                                                       @RequestParam(required = false) Long to,
+                                                                       @RequestParam(required = false) Long before,
+                                                                       @RequestParam(defaultValue = "100") int limit) {
+        MessageQuery query = new MessageQuery(topic, partition, key, fromOffset, toOffset, from, to);
+        return ResponseEntity.ok(dashboardService.findMessages(query, before, Math.max(1, Math.min(limit, MAX_PAGE_SIZE))));
+    }
+
+    /**
+     * REST endpoint to page through the message journal, newest first.
+     * Follow {@code nextBefore} for older pages; {@code until} (epoch millis) starts at a point in time.
+     */
+    @GetMapping("/api/journal")
+    @ResponseBody
+    public ResponseEntity<?> getJournal(@RequestParam(required = false) Long before,
+                                        @RequestParam(required = false) Long until,
+                                        @RequestParam(defaultValue = "100") int limit) {
+        if (!dashboardService.isJournalEnabled()) {
+            return ResponseEntity.status(HttpStatus.NOT_FOUND).body("Message journal is disabled");
+        }
+        return ResponseEntity.ok(dashboardService.getJournalPage(before, until, Math.max(1, Math.min(limit, MAX_PAGE_SIZE))));
+    }
+
+    /**
+     * REST endpoint to list the windowed aggregations with their record and late-record counts.
+     */
+    @GetMapping("/api/aggregations")
+    @ResponseBody
+    public ResponseEntity<List<WindowedAggregation.Summary>> getAggregations() {
+        return ResponseEntity.ok(aggregationService.getAggregations());
+    }
+
+    /**
+     * REST endpoint to get the most recent windows of an aggregation, newest first.
+     * {@code group} restricts the result to one topic, key or field value.
+     */
+    @GetMapping("/api/aggregations/{name}")
+    @ResponseBody
+    public ResponseEntity<?> getAggregationWindows(@PathVariable String name,
+                                                   @RequestParam(defaultValue = "10") int limit,
+                                                   @RequestParam(required = false) String group) {
+        if (!aggregationService.hasAggregation(name)) {
+            return ResponseEntity.status(HttpStatus.NOT_FOUND).body("Unknown aggregation " + name);
+        }
+        return ResponseEntity.ok(aggregationService.getWindows(name, Math.max(1, Math.min(limit, MAX_PAGE_SIZE)), group));
     }
 
     /**
@@ -61,6 +179,15 @@ public class DashboardController {
         return ResponseEntity.ok(stats);
     }
 
+    /**
+     * REST endpoint to get offset commit statistics, including commit latency.
+     */
+    @GetMapping("/api/commit-stats")
+    @ResponseBody
+    public ResponseEntity<OffsetCommitter.CommitStats> getCommitStats() {
+        return ResponseEntity.ok(offsetCommitter.getCommitStats());
+    }
+
     /**
      * REST endpoint to clear all messages.
      */
@@ -71,6 +198,12 @@ public class DashboardController {
         return ResponseEntity.ok("Messages cleared successfully");
     }
 
+    @ExceptionHandler(IllegalArgumentException.class)
+    @ResponseBody
+    public ResponseEntity<String> handleInvalidRequest(IllegalArgumentException e) {
+        return ResponseEntity.badRequest().body(e.getMessage());
+    }
+
     /**
      * Redirect root URL to dashboard.
      */
@@ -78,4 +211,41 @@ public class DashboardController {
     public String home() {
         return "redirect:/dashboard";
     }
+
+    private ResponseEntity<StreamingResponseBody> streamed(StreamingResponseBody body, Long nextBefore) {
+        ResponseEntity.BodyBuilder response = ResponseEntity.ok().contentType(MediaType.APPLICATION_JSON);
+        if (nextBefore != null) {
+            response.header(NEXT_BEFORE_HEADER, String.valueOf(nextBefore));
+        }
+        return response.body(body);
+    }
+
+    private void writeArray(OutputStream out, ArrayContent content) throws IOException {
+        try (JsonGenerator generator = objectMapper.createGenerator(out)) {
+            generator.writeStartArray();
+            try {
+                content.write(generator);
+            } catch (UncheckedIOException e) {
+                throw e.getCause();
+            }
+            generator.writeEndArray();
+        }
+    }
+
+    private static void writeMessage(JsonGenerator generator, KafkaMessage message, Set<MessageJsonWriter.Field> fields) {
+        try {
+            MessageJsonWriter.write(generator, message, fields);
+        } catch (IOException e) {
+            // Visitors cannot throw checked exceptions; unwrapped again by writeArray
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Writes the elements of a streamed JSON array.
+     */
+    @FunctionalInterface
+    private interface ArrayContent {
+        void write(JsonGenerator generator) throws IOException;
+    }
 }
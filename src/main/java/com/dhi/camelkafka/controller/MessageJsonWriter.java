@@ -0,0 +1,133 @@
+package com.dhi.camelkafka.controller;
+
+import com.dhi.camelkafka.model.KafkaMessage;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.io.SerializedString;
+
+import java.io.IOException;
+import java.time.format.DateTimeFormatter;
+import java.util.EnumSet;
+import java.util.Set;
+
+/**
+ * Writes {@link KafkaMessage}s to a {@link JsonGenerator} field by field, limited to a projection.
+ * <p>
+ * The output matches what Jackson produces for the message bean, without bean introspection and without
+ * computing the properties that were not requested. Field names are pre-encoded.
+ */
+public final class MessageJsonWriter {
+
+    /**
+     * Message properties that can be selected with {@code ?fields=}.
+     */
+    public enum Field {
+        ID("id"),
+        TOPIC("topic"),
+        PARTITION("partition"),
+        OFFSET("offset"),
+        TIMESTAMP("timestamp"),
+        MESSAGE_KEY("messageKey"),
+        CONTENT("content"),
+        CONTENT_LENGTH("contentLength"),
+        PROCESSED_AT("processedAt"),
+        FIELDS("fields");
+
+        private final SerializedString jsonName;
+
+        Field(String jsonName) {
+            this.jsonName = new SerializedString(jsonName);
+        }
+
+        public String getJsonName() {
+            return jsonName.getValue();
+        }
+    }
+
+    private MessageJsonWriter() {
+    }
+
+    /**
+     * Parse a comma-separated projection such as {@code id,topic,offset}.
+     *
+     * @param fields The projection, null or blank for all fields
+     * @return The selected fields
+     * @throws IllegalArgumentException If a field name is unknown
+     */
+    public static Set<Field> parseFields(String fields) {
+        if (fields == null || fields.isBlank()) {
+            return EnumSet.allOf(Field.class);
+        }
+        Set<Field> selected = EnumSet.noneOf(Field.class);
+        for (String name : fields.split(",")) {
+            String trimmed = name.trim();
+            if (trimmed.isEmpty()) {
+                continue;
+            }
+            Field match = null;
+            for (Field field : Field.values()) {
+                if (field.getJsonName().equals(trimmed)) {
+                    match = field;
+                    break;
+                }
+            }
+            if (match == null) {
+                throw new IllegalArgumentException("Unknown message field: " + trimmed);
+            }
+            selected.add(match);
+        }
+        return selected;
+    }
+
+    /**
+     * Write one message as a JSON object.
+     *
+     * @param generator The generator to write to
+     * @param message The message
+     * @param fields The fields to include
+     * @throws IOException If writing fails
+     */
+    public static void write(JsonGenerator generator, KafkaMessage message, Set<Field> fields) throws IOException {
+        generator.writeStartObject();
+        for (Field field : fields) {
+            generator.writeFieldName(field.jsonName);
+            switch (field) {
+                case ID -> writeString(generator, message.getId());
+                case TOPIC -> writeString(generator, message.getTopic());
+                case PARTITION -> writeNumber(generator, message.getPartition());
+                case OFFSET -> writeNumber(generator, message.getOffset());
+                case TIMESTAMP -> writeNumber(generator, message.getTimestamp());
+                case MESSAGE_KEY -> writeString(generator, message.getMessageKey());
+                case CONTENT -> writeString(generator, message.getContent());
+                case CONTENT_LENGTH -> generator.writeNumber(message.getContentLength());
+                case PROCESSED_AT -> writeString(generator, message.getProcessedAt() != null
+                        ? DateTimeFormatter.ISO_LOCAL_DATE_TIME.format(message.getProcessedAt()) : null);
+                case FIELDS -> {
+                    if (message.getFields() != null) {
+                        generator.writeObject(message.getFields());
+                    } else {
+                        generator.writeNull();
+                    }
+                }
+            }
+        }
+        generator.writeEndObject();
+    }
+
+    private static void writeString(JsonGenerator generator, String value) throws IOException {
+        if (value != null) {
+            generator.writeString(value);
+        } else {
+            generator.writeNull();
+        }
+    }
+
+    private static void writeNumber(JsonGenerator generator, Number value) throws IOException {
+        if (value == null) {
+            generator.writeNull();
+        } else if (value instanceof Integer intValue) {
+            generator.writeNumber(intValue);
+        } else {
+            generator.writeNumber(value.longValue());
+        }
+    }
+}
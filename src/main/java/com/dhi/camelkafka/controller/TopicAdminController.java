@@ -0,0 +1,96 @@
+package com.dhi.camelkafka.controller;
+
+import com.dhi.camelkafka.service.TopicSubscriptionService;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.NoSuchElementException;
+
+/**
+ * Admin endpoints for changing topic subscriptions and starting or stopping consumer routes at runtime.
+ */
+@Slf4j
+@RestController
+@RequiredArgsConstructor
+@RequestMapping("/api/admin")
+public class TopicAdminController {
+
+    private final TopicSubscriptionService topicSubscriptionService;
+
+    /**
+     * Get the subscribed topics, the pattern and the consumer routes.
+     */
+    @GetMapping("/topics")
+    public ResponseEntity<TopicSubscriptionService.SubscriptionInfo> getSubscriptions() {
+        return ResponseEntity.ok(topicSubscriptionService.getSubscriptions());
+    }
+
+    /**
+     * Subscribe to a topic.
+     */
+    @PostMapping("/topics/{topic}")
+    public ResponseEntity<String> addTopic(@PathVariable String topic) throws Exception {
+        return topicSubscriptionService.addTopic(topic)
+                ? ResponseEntity.status(HttpStatus.CREATED).body("Subscribed to topic " + topic)
+                : ResponseEntity.ok("Already subscribed to topic " + topic);
+    }
+
+    /**
+     * Unsubscribe from a topic.
+     */
+    @DeleteMapping("/topics/{topic}")
+    public ResponseEntity<String> removeTopic(@PathVariable String topic) throws Exception {
+        return topicSubscriptionService.removeTopic(topic)
+                ? ResponseEntity.ok("Unsubscribed from topic " + topic)
+                : ResponseEntity.status(HttpStatus.NOT_FOUND).body("Not subscribed to topic " + topic);
+    }
+
+    /**
+     * Replace the topic pattern, e.g. {@code PUT /api/admin/pattern?pattern=orders\..*}.
+     */
+    @PutMapping("/pattern")
+    public ResponseEntity<String> setPattern(@RequestParam String pattern) throws Exception {
+        topicSubscriptionService.setPattern(pattern);
+        return ResponseEntity.ok("Subscribed to topic pattern " + pattern);
+    }
+
+    /**
+     * Remove the pattern subscription.
+     */
+    @DeleteMapping("/pattern")
+    public ResponseEntity<String> removePattern() throws Exception {
+        topicSubscriptionService.setPattern(null);
+        return ResponseEntity.ok("Topic pattern removed");
+    }
+
+    /**
+     * Start a stopped consumer route.
+     */
+    @PostMapping("/routes/{routeId}/start")
+    public ResponseEntity<String> startRoute(@PathVariable String routeId) throws Exception {
+        topicSubscriptionService.startRoute(routeId);
+        return ResponseEntity.ok("Started route " + routeId);
+    }
+
+    /**
+     * Stop a consumer route; its subscription is kept and it can be started again.
+     */
+    @PostMapping("/routes/{routeId}/stop")
+    public ResponseEntity<String> stopRoute(@PathVariable String routeId) throws Exception {
+        topicSubscriptionService.stopRoute(routeId);
+        return ResponseEntity.ok("Stopped route " + routeId);
+    }
+
+    @ExceptionHandler(IllegalArgumentException.class)
+    public ResponseEntity<String> handleInvalidRequest(IllegalArgumentException e) {
+        return ResponseEntity.badRequest().body(e.getMessage());
+    }
+
+    @ExceptionHandler(NoSuchElementException.class)
+    public ResponseEntity<String> handleUnknownRoute(NoSuchElementException e) {
+        return ResponseEntity.status(HttpStatus.NOT_FOUND).body(e.getMessage());
+    }
+}
@@ -0,0 +1,112 @@
+package com.dhi.camelkafka.dedup;
+
+import java.util.Arrays;
+
+/**
+ * The processed offsets of one partition: a watermark below which every offset is done, and a fixed ring of
+ * bits for the offsets above it, so records that complete out of order are remembered in constant memory.
+ * <p>
+ * Offsets skipped between two delivered records (compaction, transaction markers, another consumer's progress)
+ * can never be delivered in between and count as done. Offsets below the first record seen on the partition
+ * count as done as well, since the consumer started after them. If a record arrives more than the window size
+ * above the watermark, the watermark is moved up to make room; the offsets it passes are treated as done.
+ */
+public class ProcessedOffsetWindow {
+
+    private final long[] words;
+    private final int size;
+    private long watermark = -1; // Offsets below are done; -1 until the first record
+    private long maxSeen = -1;
+    private long slides = 0;
+
+    /**
+     * @param size Offsets remembered above the watermark, rounded up to a multiple of 64
+     */
+    public ProcessedOffsetWindow(int size) {
+        this.size = Math.max(64, (size + 63) & ~63);
+        this.words = new long[this.size >>> 6];
+    }
+
+    /**
+     * Check a delivered offset and register it when it was not processed yet.
+     *
+     * @param offset The record's offset
+     * @return true if the offset was already processed
+     */
+    public synchronized boolean checkAndRegister(long offset) {
+        if (watermark >= 0 && (offset < watermark || (offset <= maxSeen && offset < watermark + size && isSet(offset)))) {
+            return true;
+        }
+        if (watermark < 0) {
+            watermark = offset;
+            maxSeen = offset - 1;
+        }
+        if (offset > maxSeen) {
+            if (offset - watermark >= size) {
+                slideTo(offset - size + 1);
+            }
+            for (long gap = Math.max(maxSeen + 1, watermark); gap < offset; gap++) {
+                set(gap);
+            }
+            maxSeen = offset;
+            advance();
+        }
+        return false;
+    }
+
+    /**
+     * Mark a registered offset as processed.
+     *
+     * @param offset The record's offset
+     */
+    public synchronized void markProcessed(long offset) {
+        if (offset < watermark || offset > maxSeen || offset >= watermark + size) {
+            return;
+        }
+        set(offset);
+        advance();
+    }
+
+    public synchronized long getWatermark() {
+        return watermark;
+    }
+
+    public synchronized long getSlides() {
+        return slides;
+    }
+
+    private void advance() {
+        while (watermark <= maxSeen && isSet(watermark)) {
+            clear(watermark);
+            watermark++;
+        }
+    }
+
+    private void slideTo(long newWatermark) {
+        if (newWatermark - watermark >= size) {
+            Arrays.fill(words, 0L);
+        } else {
+            for (long offset = watermark; offset < newWatermark; offset++) {
+                clear(offset);
+            }
+        }
+        watermark = newWatermark;
+        slides++;
+    }
+
+    private boolean isSet(long offset) {
+        return (words[word(offset)] & (1L << offset)) != 0;
+    }
+
+    private void set(long offset) {
+        words[word(offset)] |= 1L << offset;
+    }
+
+    private void clear(long offset) {
+        words[word(offset)] &= ~(1L << offset);
+    }
+
+    private int word(long offset) {
+        return (int) ((offset % size) >>> 6); // size is a multiple of 64, so the bit within the word is offset & 63
+    }
+}
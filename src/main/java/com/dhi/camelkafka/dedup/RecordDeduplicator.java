@@ -0,0 +1,191 @@
+package com.dhi.camelkafka.dedup;
+
+import com.dhi.camelkafka.config.KafkaProperties;
+import com.dhi.camelkafka.metrics.ConsumerMetrics;
+import com.dhi.camelkafka.model.KafkaMessage;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * Idempotent-consumer stage that skips records which were already processed, e.g. after a rebalance or a
+ * failed commit redelivers them.
+ * <p>
+ * The first layer is a {@link ProcessedOffsetWindow} per partition. The optional second layer remembers the
+ * keys processed per topic for {@code dedupKeyTtlMs}, which also catches a record that was produced twice
+ * under the same key. A duplicate costs a map lookup and a bit test and is committed without running the handler.
+ * Only records that were processed successfully register their key, and redeliveries by the retry pipeline
+ * are never matched by key, so a failed record is not mistaken for a duplicate of itself.
+ */
+@Slf4j
+@Component
+public class RecordDeduplicator {
+
+    private final KafkaProperties kafkaProperties;
+    private final MeterRegistry meterRegistry;
+    private final ConcurrentMap<String, ConcurrentMap<Integer, ProcessedOffsetWindow>> windows = new ConcurrentHashMap<>();
+    private final ConcurrentMap<String, TopicDuplicates> topics = new ConcurrentHashMap<>();
+
+    public RecordDeduplicator(KafkaProperties kafkaProperties, ConsumerMetrics consumerMetrics) {
+        this.kafkaProperties = kafkaProperties;
+        this.meterRegistry = consumerMetrics.getMeterRegistry();
+    }
+
+    public boolean isEnabled() {
+        return kafkaProperties.isDedupEnabled();
+    }
+
+    /**
+     * Check a delivered record against both layers and register it when it is new.
+     * Must be called in poll order for each partition, before the record is processed.
+     *
+     * @param kafkaMessage The record's metadata
+     * @return true if the record was processed before and should be skipped
+     */
+    public boolean isDuplicate(KafkaMessage kafkaMessage) {
+        if (!kafkaProperties.isDedupEnabled() || kafkaMessage.getOffset() == null) {
+            return false;
+        }
+        ProcessedOffsetWindow window = windowFor(kafkaMessage);
+        if (window == null) {
+            return false;
+        }
+        if (window.checkAndRegister(kafkaMessage.getOffset())) {
+            topicFor(kafkaMessage.getTopic()).offsetDuplicates.increment();
+            log.debug("Skipping already processed message {}", kafkaMessage.getId());
+            return true;
+        }
+        if (kafkaProperties.getDedupKeyTtlMs() > 0 && kafkaMessage.getMessageKey() != null
+                && kafkaMessage.getRetryAttempt() == 0) {
+            TopicDuplicates topic = topicFor(kafkaMessage.getTopic());
+            if (topic.keys.contains(kafkaMessage.getMessageKey(), System.currentTimeMillis())) {
+                window.markProcessed(kafkaMessage.getOffset());
+                topic.keyDuplicates.increment();
+                log.debug("Skipping message {} with recently processed key {}", kafkaMessage.getId(), kafkaMessage.getMessageKey());
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Record that a record registered by {@link #isDuplicate(KafkaMessage)} was processed, registering its key.
+     *
+     * @param kafkaMessage The record's metadata
+     */
+    public void markProcessed(KafkaMessage kafkaMessage) {
+        mark(kafkaMessage, true);
+    }
+
+    /**
+     * Record that a record registered by {@link #isDuplicate(KafkaMessage)} failed and was handed to the retry
+     * pipeline. Only its offset counts as done; its key stays unregistered until a redelivery succeeds.
+     *
+     * @param kafkaMessage The record's metadata
+     */
+    public void markHandedOver(KafkaMessage kafkaMessage) {
+        mark(kafkaMessage, false);
+    }
+
+    private void mark(KafkaMessage kafkaMessage, boolean processed) {
+        if (!kafkaProperties.isDedupEnabled() || kafkaMessage.getOffset() == null) {
+            return;
+        }
+        ProcessedOffsetWindow window = windowFor(kafkaMessage);
+        if (window != null) {
+            window.markProcessed(kafkaMessage.getOffset());
+        }
+        if (processed && kafkaProperties.getDedupKeyTtlMs() > 0 && kafkaMessage.getMessageKey() != null) {
+            long now = System.currentTimeMillis();
+            topicFor(kafkaMessage.getTopic()).keys.put(kafkaMessage.getMessageKey(), now + kafkaProperties.getDedupKeyTtlMs(), now);
+        }
+    }
+
+    private ProcessedOffsetWindow windowFor(KafkaMessage kafkaMessage) {
+        String topic = kafkaMessage.getTopic();
+        Integer partition = kafkaMessage.getPartition();
+        if (topic == null || partition == null) {
+            return null;
+        }
+        ConcurrentMap<Integer, ProcessedOffsetWindow> byPartition = windows.get(topic);
+        if (byPartition == null) {
+            byPartition = windows.computeIfAbsent(topic, t -> new ConcurrentHashMap<>());
+        }
+        ProcessedOffsetWindow window = byPartition.get(partition);
+        if (window == null) {
+            window = byPartition.computeIfAbsent(partition, p -> new ProcessedOffsetWindow(kafkaProperties.getDedupWindowSize()));
+        }
+        return window;
+    }
+
+    private TopicDuplicates topicFor(String topic) {
+        TopicDuplicates duplicates = topics.get(topic);
+        if (duplicates == null) {
+            duplicates = topics.computeIfAbsent(topic, t -> new TopicDuplicates(meterRegistry, t, kafkaProperties.getDedupKeyCacheSize()));
+        }
+        return duplicates;
+    }
+
+    /**
+     * Key cache and duplicate counters of one topic.
+     */
+    private static final class TopicDuplicates {
+        private final KeyCache keys;
+        private final Counter offsetDuplicates;
+        private final Counter keyDuplicates;
+
+        TopicDuplicates(MeterRegistry registry, String topic, int keyCacheSize) {
+            keys = new KeyCache(keyCacheSize);
+            offsetDuplicates = Counter.builder("kafka.consumer.dedup.duplicates")
+                    .description("Records skipped as already processed, by the layer that matched")
+                    .tags("topic", topic, "layer", "offset")
+                    .register(registry);
+            keyDuplicates = Counter.builder("kafka.consumer.dedup.duplicates")
+                    .description("Records skipped as already processed, by the layer that matched")
+                    .tags("topic", topic, "layer", "key")
+                    .register(registry);
+        }
+    }
+
+    /**
+     * Processed keys with their expiry time, oldest first. All entries share one TTL, so insertion order is
+     * expiry order and expired entries are removed from the head on every insert.
+     */
+    static final class KeyCache {
+        private final LinkedHashMap<String, Long> expiries = new LinkedHashMap<>();
+        private final int maxSize;
+
+        KeyCache(int maxSize) {
+            this.maxSize = Math.max(1, maxSize);
+        }
+
+        synchronized boolean contains(String key, long now) {
+            Long expiresAt = expiries.get(key);
+            return expiresAt != null && expiresAt > now;
+        }
+
+        synchronized void put(String key, long expiresAt, long now) {
+            expiries.remove(key); // Re-insert at the tail
+            expiries.put(key, expiresAt);
+            Iterator<Map.Entry<String, Long>> oldest = expiries.entrySet().iterator();
+            while (oldest.hasNext()) {
+                Map.Entry<String, Long> entry = oldest.next();
+                if (entry.getValue() > now && expiries.size() <= maxSize) {
+                    break;
+                }
+                oldest.remove();
+            }
+        }
+
+        synchronized int size() {
+            return expiries.size();
+        }
+    }
+}
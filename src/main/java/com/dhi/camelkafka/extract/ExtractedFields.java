@@ -0,0 +1,182 @@
+package com.dhi.camelkafka.extract;
+
+import com.fasterxml.jackson.annotation.JsonValue;
+
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Values of the configured JSON fields for one record.
+ * <p>
+ * Field names and their slots are shared by all instances of an extractor; an instance only holds a type tag,
+ * a primitive slot and a string slot per field. Numbers and booleans are stored unboxed. An instance can be
+ * {@link #reset()} and reused for the next record when the caller does not keep it.
+ */
+public final class ExtractedFields {
+
+    static final byte MISSING = 0;
+    static final byte NULL = 1;
+    static final byte LONG = 2;
+    static final byte DOUBLE = 3;
+    static final byte STRING = 4;
+    static final byte BOOLEAN = 5;
+
+    private final String[] names;
+    private final Map<String, Integer> slots;
+    private final byte[] types;
+    private final long[] numbers; // long values, double bits or 0/1 for booleans
+    private final String[] strings;
+    private int found;
+
+    ExtractedFields(String[] names, Map<String, Integer> slots) {
+        this.names = names;
+        this.slots = slots;
+        this.types = new byte[names.length];
+        this.numbers = new long[names.length];
+        this.strings = new String[names.length];
+    }
+
+    /**
+     * Clear all values so the instance can be filled again.
+     */
+    public void reset() {
+        Arrays.fill(types, MISSING);
+        Arrays.fill(strings, null);
+        found = 0;
+    }
+
+    /**
+     * Whether the field was present in the record, including an explicit JSON null.
+     */
+    public boolean has(String name) {
+        int slot = slot(name);
+        return slot >= 0 && types[slot] != MISSING;
+    }
+
+    /**
+     * Get a field as text. Numbers and booleans are formatted; missing and null fields return null.
+     */
+    public String getString(String name) {
+        int slot = slot(name);
+        if (slot < 0) {
+            return null;
+        }
+        return switch (types[slot]) {
+            case STRING -> strings[slot];
+            case LONG -> Long.toString(numbers[slot]);
+            case DOUBLE -> Double.toString(Double.longBitsToDouble(numbers[slot]));
+            case BOOLEAN -> numbers[slot] != 0 ? "true" : "false";
+            default -> null;
+        };
+    }
+
+    /**
+     * Get a numeric field as a long, truncating decimals.
+     */
+    public long getLong(String name, long defaultValue) {
+        int slot = slot(name);
+        if (slot < 0) {
+            return defaultValue;
+        }
+        return switch (types[slot]) {
+            case LONG -> numbers[slot];
+            case DOUBLE -> (long) Double.longBitsToDouble(numbers[slot]);
+            default -> defaultValue;
+        };
+    }
+
+    /**
+     * Get a numeric field as a double.
+     */
+    public double getDouble(String name, double defaultValue) {
+        int slot = slot(name);
+        if (slot < 0) {
+            return defaultValue;
+        }
+        return switch (types[slot]) {
+            case LONG -> numbers[slot];
+            case DOUBLE -> Double.longBitsToDouble(numbers[slot]);
+            default -> defaultValue;
+        };
+    }
+
+    /**
+     * Get a boolean field.
+     */
+    public boolean getBoolean(String name, boolean defaultValue) {
+        int slot = slot(name);
+        return slot >= 0 && types[slot] == BOOLEAN ? numbers[slot] != 0 : defaultValue;
+    }
+
+    /**
+     * Get the number of configured fields that were found.
+     */
+    public int getFoundCount() {
+        return found;
+    }
+
+    /**
+     * Get the found fields as a map, used when the message is serialized to JSON.
+     */
+    @JsonValue
+    public Map<String, Object> asMap() {
+        Map<String, Object> map = new LinkedHashMap<>();
+        for (int slot = 0; slot < names.length; slot++) {
+            switch (types[slot]) {
+                case NULL -> map.put(names[slot], null);
+                case LONG -> map.put(names[slot], numbers[slot]);
+                case DOUBLE -> map.put(names[slot], Double.longBitsToDouble(numbers[slot]));
+                case STRING -> map.put(names[slot], strings[slot]);
+                case BOOLEAN -> map.put(names[slot], numbers[slot] != 0);
+                default -> {
+                    // Missing fields are left out
+                }
+            }
+        }
+        return map;
+    }
+
+    @Override
+    public String toString() {
+        return asMap().toString();
+    }
+
+    boolean isSet(int slot) {
+        return types[slot] != MISSING;
+    }
+
+    void setNull(int slot) {
+        set(slot, NULL, 0, null);
+    }
+
+    void setLong(int slot, long value) {
+        set(slot, LONG, value, null);
+    }
+
+    void setDouble(int slot, double value) {
+        set(slot, DOUBLE, Double.doubleToRawLongBits(value), null);
+    }
+
+    void setBoolean(int slot, boolean value) {
+        set(slot, BOOLEAN, value ? 1 : 0, null);
+    }
+
+    void setString(int slot, String value) {
+        set(slot, STRING, 0, value);
+    }
+
+    private void set(int slot, byte type, long number, String string) {
+        if (types[slot] == MISSING) {
+            found++;
+        }
+        types[slot] = type;
+        numbers[slot] = number;
+        strings[slot] = string;
+    }
+
+    private int slot(String name) {
+        Integer slot = slots.get(name);
+        return slot != null ? slot : -1;
+    }
+}
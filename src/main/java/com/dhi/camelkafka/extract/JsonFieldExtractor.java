@@ -0,0 +1,292 @@
+package com.dhi.camelkafka.extract;
+
+import com.dhi.camelkafka.config.ExtractionProperties;
+import com.dhi.camelkafka.model.KafkaMessage;
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Pulls selected fields out of JSON record values with a streaming {@link JsonParser}.
+ * <p>
+ * Selectors use a JSONPath subset: {@code $.http.response.status_code}, {@code $.tags[0]} and
+ * {@code $['url.path']} for keys containing dots. They are compiled at startup into a tree of path segments.
+ * Parsing follows only the branches of that tree, skips every other subtree without building it, and stops
+ * as soon as all fields were found. Selectors must point at scalar values; objects and arrays are skipped.
+ * Raw {@code byte[]} and {@code ByteBuffer} values are parsed directly, without decoding them to a String first.
+ */
+@Slf4j
+@Component
+public class JsonFieldExtractor {
+
+    private static final JsonFactory JSON_FACTORY = new JsonFactory();
+
+    private final boolean enabled;
+    private final Set<String> topics;
+    private final String[] names;
+    private final Map<String, Integer> slots = new HashMap<>();
+    private final Node root = new Node();
+
+    public JsonFieldExtractor(ExtractionProperties extractionProperties) {
+        this.topics = new HashSet<>(extractionProperties.getTopics());
+        this.names = extractionProperties.getFields().keySet().toArray(new String[0]);
+        for (int slot = 0; slot < names.length; slot++) {
+            String selector = extractionProperties.getFields().get(names[slot]);
+            Node node = root;
+            for (Object segment : parseSelector(selector)) {
+                node = node.child(segment);
+            }
+            if (node == root) {
+                throw new IllegalArgumentException("Selector for field " + names[slot] + " selects the whole document");
+            }
+            node.addSlot(slot);
+            slots.put(names[slot], slot);
+        }
+        this.enabled = extractionProperties.isEnabled() && names.length > 0;
+        if (enabled) {
+            log.info("Extracting JSON fields {} from {}", extractionProperties.getFields(),
+                    topics.isEmpty() ? "all topics" : topics);
+        }
+    }
+
+    /**
+     * Whether fields should be extracted from this message's topic.
+     */
+    public boolean appliesTo(KafkaMessage kafkaMessage) {
+        return enabled && (topics.isEmpty() || topics.contains(kafkaMessage.getTopic()));
+    }
+
+    /**
+     * Create an empty result that can be filled by the extract methods and reused.
+     */
+    public ExtractedFields newFields() {
+        return new ExtractedFields(names, slots);
+    }
+
+    /**
+     * Extract the configured fields from a message value into a new result.
+     *
+     * @param kafkaMessage The message
+     * @return The extracted fields, possibly none
+     */
+    public ExtractedFields extract(KafkaMessage kafkaMessage) {
+        ExtractedFields fields = newFields();
+        extract(kafkaMessage, fields);
+        return fields;
+    }
+
+    /**
+     * Extract the configured fields from a message value, reading the raw value when there is one.
+     *
+     * @param kafkaMessage The message
+     * @param target The result to fill; it is reset first
+     * @return false if the value is not valid JSON (fields found before the error are kept)
+     */
+    public boolean extract(KafkaMessage kafkaMessage, ExtractedFields target) {
+        // A decoded Avro value is read through its JSON rendering, not its binary encoding
+        Object raw = kafkaMessage.getRecord() == null ? kafkaMessage.getRawContent() : null;
+        if (raw instanceof byte[] bytes) {
+            return extract(bytes, 0, bytes.length, target);
+        }
+        if (raw instanceof ByteBuffer buffer && buffer.hasArray()) {
+            return extract(buffer.array(), buffer.arrayOffset() + buffer.position(), buffer.remaining(), target);
+        }
+        String content = kafkaMessage.getContent();
+        if (content == null) {
+            target.reset();
+            return true;
+        }
+        return extract(content, target);
+    }
+
+    /**
+     * Extract the configured fields from UTF-8 JSON bytes.
+     */
+    public boolean extract(byte[] json, int offset, int length, ExtractedFields target) {
+        target.reset();
+        try (JsonParser parser = JSON_FACTORY.createParser(json, offset, length)) {
+            return extract(parser, target);
+        } catch (IOException e) {
+            log.debug("Stopped JSON field extraction at invalid JSON: {}", e.getMessage());
+            return false;
+        }
+    }
+
+    /**
+     * Extract the configured fields from a JSON string.
+     */
+    public boolean extract(String json, ExtractedFields target) {
+        target.reset();
+        try (JsonParser parser = JSON_FACTORY.createParser(json)) {
+            return extract(parser, target);
+        } catch (IOException e) {
+            log.debug("Stopped JSON field extraction at invalid JSON: {}", e.getMessage());
+            return false;
+        }
+    }
+
+    private boolean extract(JsonParser parser, ExtractedFields target) throws IOException {
+        JsonToken token = parser.nextToken();
+        if (token == JsonToken.START_OBJECT || token == JsonToken.START_ARRAY) {
+            walk(parser, root, token, target);
+        }
+        return true;
+    }
+
+    /**
+     * Walk the container the parser is positioned at, descending only into selected branches.
+     *
+     * @return false once every field was found, to stop parsing early
+     */
+    private boolean walk(JsonParser parser, Node node, JsonToken container, ExtractedFields target) throws IOException {
+        if (container == JsonToken.START_OBJECT) {
+            while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                // Field names are canonicalized by the parser, so the lookup does not allocate for repeated keys
+                Node child = node.fields != null ? node.fields.get(parser.currentName()) : null;
+                JsonToken value = parser.nextToken();
+                if (child == null) {
+                    parser.skipChildren();
+                } else if (!visit(parser, child, value, target)) {
+                    return false;
+                }
+            }
+        } else {
+            int index = 0;
+            JsonToken value;
+            while ((value = parser.nextToken()) != JsonToken.END_ARRAY && value != null) {
+                Node child = node.indexes != null ? node.indexes.get(index) : null;
+                index++;
+                if (child == null) {
+                    parser.skipChildren();
+                } else if (!visit(parser, child, value, target)) {
+                    return false;
+                }
+            }
+        }
+        return true;
+    }
+
+    private boolean visit(JsonParser parser, Node node, JsonToken value, ExtractedFields target) throws IOException {
+        if (value == JsonToken.START_OBJECT || value == JsonToken.START_ARRAY) {
+            if (node.fields == null && node.indexes == null) {
+                parser.skipChildren();
+                return true;
+            }
+            return walk(parser, node, value, target);
+        }
+        for (int slot : node.slots) {
+            if (!target.isSet(slot)) {
+                store(parser, value, slot, target);
+            }
+        }
+        return target.getFoundCount() < names.length;
+    }
+
+    private static void store(JsonParser parser, JsonToken value, int slot, ExtractedFields target) throws IOException {
+        switch (value) {
+            case VALUE_STRING -> target.setString(slot, parser.getText());
+            case VALUE_NUMBER_INT -> {
+                if (parser.getNumberType() == JsonParser.NumberType.BIG_INTEGER) {
+                    target.setString(slot, parser.getText());
+                } else {
+                    target.setLong(slot, parser.getLongValue());
+                }
+            }
+            case VALUE_NUMBER_FLOAT -> target.setDouble(slot, parser.getDoubleValue());
+            case VALUE_TRUE -> target.setBoolean(slot, true);
+            case VALUE_FALSE -> target.setBoolean(slot, false);
+            case VALUE_NULL -> target.setNull(slot);
+            default -> {
+                // Embedded objects and other tokens are not extracted
+            }
+        }
+    }
+
+    /**
+     * Split a selector into field names ({@code String}) and array indexes ({@code Integer}).
+     */
+    static List<Object> parseSelector(String selector) {
+        if (selector == null || selector.isBlank()) {
+            throw new IllegalArgumentException("Empty JSON field selector");
+        }
+        String path = selector.trim();
+        List<Object> segments = new ArrayList<>();
+        int i = path.startsWith("$") ? 1 : 0;
+        if (i == 0 && !path.startsWith("[")) {
+            path = "." + path; // Allow "http.response.status_code" without the leading "$."
+        }
+        while (i < path.length()) {
+            char c = path.charAt(i);
+            if (c == '.') {
+                int end = i + 1;
+                while (end < path.length() && path.charAt(end) != '.' && path.charAt(end) != '[') {
+                    end++;
+                }
+                if (end == i + 1) {
+                    throw new IllegalArgumentException("Empty field name in selector " + selector);
+                }
+                segments.add(path.substring(i + 1, end));
+                i = end;
+            } else if (c == '[') {
+                int close = path.indexOf(']', i);
+                if (close < 0) {
+                    throw new IllegalArgumentException("Unclosed bracket in selector " + selector);
+                }
+                String inner = path.substring(i + 1, close).trim();
+                if (inner.length() >= 2 && (inner.charAt(0) == '\'' || inner.charAt(0) == '"')
+                        && inner.charAt(inner.length() - 1) == inner.charAt(0)) {
+                    segments.add(inner.substring(1, inner.length() - 1));
+                } else {
+                    try {
+                        segments.add(Integer.parseInt(inner));
+                    } catch (NumberFormatException e) {
+                        throw new IllegalArgumentException("Invalid index [" + inner + "] in selector " + selector, e);
+                    }
+                }
+                i = close + 1;
+            } else {
+                throw new IllegalArgumentException("Unexpected '" + c + "' in selector " + selector);
+            }
+        }
+        return segments;
+    }
+
+    /**
+     * One step in the compiled selector tree.
+     */
+    private static final class Node {
+        private Map<String, Node> fields;
+        private Map<Integer, Node> indexes;
+        private int[] slots = new int[0];
+
+        void addSlot(int slot) {
+            slots = Arrays.copyOf(slots, slots.length + 1);
+            slots[slots.length - 1] = slot;
+        }
+
+        Node child(Object segment) {
+            if (segment instanceof Integer index) {
+                if (indexes == null) {
+                    indexes = new HashMap<>();
+                }
+                return indexes.computeIfAbsent(index, k -> new Node());
+            }
+            if (fields == null) {
+                fields = new HashMap<>();
+            }
+            return fields.computeIfAbsent((String) segment, k -> new Node());
+        }
+    }
+}
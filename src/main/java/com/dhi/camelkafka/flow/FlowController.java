@@ -0,0 +1,288 @@
+package com.dhi.camelkafka.flow;
+
+import com.dhi.camelkafka.config.KafkaProperties;
+import com.dhi.camelkafka.metrics.ConsumerMetrics;
+import com.dhi.camelkafka.model.KafkaMessage;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.kafka.clients.consumer.Consumer;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.apache.kafka.clients.consumer.ConsumerRecords;
+import org.apache.kafka.common.TopicPartition;
+import org.springframework.stereotype.Component;
+
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Proxy;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Adaptive flow control between the Kafka consumer and the message handler.
+ * <p>
+ * Consumers created by the client factory are wrapped so that every {@code poll} runs two steps on the
+ * consumer thread, which is the only thread allowed to touch the consumer:
+ * <ul>
+ *   <li>Before polling, partitions whose in-flight records reached {@code flowControlPauseInFlight} are paused
+ *   and resumed once they drain to {@code flowControlResumeInFlight}. Partitions whose average handler time
+ *   exceeds {@code flowControlMaxLatencyMs} get lower limits. A paused consumer keeps polling, so it stays in
+ *   the group while the workers catch up.</li>
+ *   <li>After polling, the records are cut to the effective batch size: the number of records the consumer
+ *   thread can get through within {@code flowControlPollBudget} of {@code maxPollIntervalMs}, based on the
+ *   observed time per record. Partitions that were cut are seeked back to their first deferred record.
+ *   Polls that already fit, including every poll of a route with a lower {@code maxPollRecords}, pass unchanged.</li>
+ * </ul>
+ */
+@Slf4j
+@Component
+public class FlowController {
+
+    private static final double EWMA_WEIGHT = 0.2;
+
+    private final KafkaProperties kafkaProperties;
+    private final MeterRegistry meterRegistry;
+    private final ConcurrentMap<TopicPartition, PartitionFlow> partitions = new ConcurrentHashMap<>();
+    private final Set<TopicPartition> pausedPartitions = ConcurrentHashMap.newKeySet();
+    private final Counter deferredRecords;
+    private final Counter trimmedPolls;
+
+    // Smoothed consumer-thread time per record; updates race benignly, it is only an estimate
+    private volatile double recordNanosEwma;
+    private volatile int effectiveBatchSize;
+
+    public FlowController(KafkaProperties kafkaProperties, ConsumerMetrics consumerMetrics) {
+        this.kafkaProperties = kafkaProperties;
+        this.meterRegistry = consumerMetrics.getMeterRegistry();
+        this.effectiveBatchSize = Integer.MAX_VALUE;
+        this.deferredRecords = Counter.builder("kafka.consumer.flow.deferred.records")
+                .description("Polled records handed back to the consumer because they exceeded the batch size")
+                .register(meterRegistry);
+        this.trimmedPolls = Counter.builder("kafka.consumer.flow.trimmed.polls")
+                .description("Polls cut to the effective batch size")
+                .register(meterRegistry);
+        Gauge.builder("kafka.consumer.flow.paused.partitions", pausedPartitions, Set::size)
+                .description("Partitions paused by flow control")
+                .register(meterRegistry);
+        Gauge.builder("kafka.consumer.flow.batch.size", this,
+                        flowController -> flowController.effectiveBatchSize == Integer.MAX_VALUE
+                                ? Double.NaN : flowController.effectiveBatchSize)
+                .description("Records the consumer thread currently accepts per poll, below maxPollRecords")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Wrap a consumer so that its polls are subject to flow control. All other calls pass through.
+     *
+     * @param consumer The consumer created by the client factory
+     * @return The wrapped consumer, or the consumer itself when flow control is disabled
+     */
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    public Consumer wrap(Consumer consumer) {
+        if (!kafkaProperties.isFlowControlEnabled()) {
+            return consumer;
+        }
+        ConsumerFlow consumerFlow = new ConsumerFlow();
+        return (Consumer) Proxy.newProxyInstance(Consumer.class.getClassLoader(), new Class<?>[]{Consumer.class},
+                (proxy, method, args) -> {
+                    if ("poll".equals(method.getName()) && args != null && args.length == 1) {
+                        Duration timeout = args[0] instanceof Duration duration
+                                ? duration : Duration.ofMillis((Long) args[0]);
+                        return poll(consumer, timeout, consumerFlow);
+                    }
+                    try {
+                        return method.invoke(consumer, args);
+                    } catch (InvocationTargetException e) {
+                        throw e.getCause();
+                    }
+                });
+    }
+
+    /**
+     * Count a record handed to a worker.
+     *
+     * @param kafkaMessage The dispatched record
+     */
+    public void onDispatched(KafkaMessage kafkaMessage) {
+        partitionFlow(kafkaMessage).inFlight.incrementAndGet();
+    }
+
+    /**
+     * Count a worker record as finished and feed its handler time into the partition's latency estimate.
+     *
+     * @param kafkaMessage The finished record
+     * @param handlerNanos Time spent in the handler
+     */
+    public void onCompleted(KafkaMessage kafkaMessage, long handlerNanos) {
+        PartitionFlow flow = partitionFlow(kafkaMessage);
+        flow.inFlight.decrementAndGet();
+        flow.latencyNanosEwma = ewma(flow.latencyNanosEwma, handlerNanos);
+    }
+
+    /**
+     * Feed the time the consumer thread spent on processor calls into the batch size estimate.
+     *
+     * @param nanos Time spent on the consumer thread
+     * @param records Number of records covered by that time
+     */
+    public void recordConsumerThreadTime(long nanos, int records) {
+        if (records <= 0) {
+            return;
+        }
+        recordNanosEwma = ewma(recordNanosEwma, (double) nanos / records);
+        effectiveBatchSize = computeBatchSize();
+    }
+
+    public int getEffectiveBatchSize() {
+        return effectiveBatchSize;
+    }
+
+    public Set<TopicPartition> getPausedPartitions() {
+        return Set.copyOf(pausedPartitions);
+    }
+
+    private ConsumerRecords<Object, Object> poll(Consumer<Object, Object> consumer, Duration timeout,
+                                                 ConsumerFlow consumerFlow) {
+        adjustPausedPartitions(consumer, consumerFlow);
+        ConsumerRecords<Object, Object> records = consumer.poll(timeout);
+        return limitToBatchSize(consumer, records, consumerFlow.pollCount++);
+    }
+
+    private void adjustPausedPartitions(Consumer<Object, Object> consumer, ConsumerFlow consumerFlow) {
+        // Partitions revoked in a rebalance come back unpaused
+        Set<TopicPartition> consumerPaused = consumer.paused();
+        for (Iterator<TopicPartition> it = consumerFlow.paused.iterator(); it.hasNext(); ) {
+            TopicPartition topicPartition = it.next();
+            if (!consumerPaused.contains(topicPartition)) {
+                it.remove();
+                pausedPartitions.remove(topicPartition);
+            }
+        }
+
+        int pauseInFlight = kafkaProperties.getFlowControlPauseInFlight();
+        if (pauseInFlight <= 0) {
+            return;
+        }
+        int resumeInFlight = Math.min(kafkaProperties.getFlowControlResumeInFlight(), pauseInFlight);
+        long maxLatencyNanos = TimeUnit.MILLISECONDS.toNanos(kafkaProperties.getFlowControlMaxLatencyMs());
+        List<TopicPartition> toPause = new ArrayList<>();
+        List<TopicPartition> toResume = new ArrayList<>();
+
+        for (TopicPartition topicPartition : consumer.assignment()) {
+            PartitionFlow flow = partitions.get(topicPartition);
+            int inFlight = flow != null ? flow.inFlight.get() : 0;
+            boolean slow = maxLatencyNanos > 0 && flow != null && flow.latencyNanosEwma > maxLatencyNanos;
+            int pauseAt = slow ? resumeInFlight : pauseInFlight;
+            int resumeAt = slow ? resumeInFlight / 2 : resumeInFlight;
+
+            if (!consumerFlow.paused.contains(topicPartition)) {
+                if (inFlight >= pauseAt) {
+                    toPause.add(topicPartition);
+                    pauseCounter(topicPartition, slow ? "latency" : "depth").increment();
+                    log.info("Pausing {}: {} records in flight, average handler time {} ms", topicPartition,
+                            inFlight, flow != null ? TimeUnit.NANOSECONDS.toMillis((long) flow.latencyNanosEwma) : 0);
+                }
+            } else if (inFlight <= resumeAt) {
+                toResume.add(topicPartition);
+                log.info("Resuming {}: {} records in flight", topicPartition, inFlight);
+            }
+        }
+
+        if (!toPause.isEmpty()) {
+            consumer.pause(toPause);
+            consumerFlow.paused.addAll(toPause);
+            pausedPartitions.addAll(toPause);
+        }
+        if (!toResume.isEmpty()) {
+            consumer.resume(toResume);
+            toResume.forEach(consumerFlow.paused::remove);
+            toResume.forEach(pausedPartitions::remove);
+        }
+    }
+
+    private ConsumerRecords<Object, Object> limitToBatchSize(Consumer<Object, Object> consumer,
+                                                             ConsumerRecords<Object, Object> records, int pollNumber) {
+        int batchSize = effectiveBatchSize;
+        if (records.count() <= batchSize) {
+            return records;
+        }
+
+        // Rotate the starting partition so a small batch size does not starve the later partitions
+        List<TopicPartition> polledPartitions = new ArrayList<>(records.partitions());
+        Map<TopicPartition, List<ConsumerRecord<Object, Object>>> kept = new HashMap<>();
+        int remaining = batchSize;
+        for (int i = 0; i < polledPartitions.size(); i++) {
+            TopicPartition topicPartition = polledPartitions.get(Math.floorMod(pollNumber + i, polledPartitions.size()));
+            List<ConsumerRecord<Object, Object>> partitionRecords = records.records(topicPartition);
+            int take = Math.min(remaining, partitionRecords.size());
+            if (take > 0) {
+                kept.put(topicPartition, partitionRecords.subList(0, take));
+            }
+            if (take < partitionRecords.size()) {
+                consumer.seek(topicPartition, partitionRecords.get(take).offset());
+            }
+            remaining -= take;
+        }
+
+        int deferred = records.count() - batchSize;
+        deferredRecords.increment(deferred);
+        trimmedPolls.increment();
+        log.debug("Deferred {} of {} polled records, effective batch size {}", deferred, records.count(), batchSize);
+        return new ConsumerRecords<>(kept);
+    }
+
+    private int computeBatchSize() {
+        double perRecord = recordNanosEwma;
+        if (perRecord <= 0) {
+            return Integer.MAX_VALUE;
+        }
+        double budgetNanos = TimeUnit.MILLISECONDS.toNanos(kafkaProperties.getMaxPollIntervalMs())
+                * kafkaProperties.getFlowControlPollBudget();
+        long fits = (long) (budgetNanos / perRecord);
+        // No upper clamp: consumers never poll more than their own maxPollRecords, which may differ per route
+        return (int) Math.max(Math.max(1, kafkaProperties.getFlowControlMinBatchSize()), Math.min(Integer.MAX_VALUE, fits));
+    }
+
+    private PartitionFlow partitionFlow(KafkaMessage kafkaMessage) {
+        TopicPartition topicPartition = new TopicPartition(kafkaMessage.getTopic(), kafkaMessage.getPartition());
+        PartitionFlow flow = partitions.get(topicPartition);
+        return flow != null ? flow : partitions.computeIfAbsent(topicPartition, tp -> new PartitionFlow());
+    }
+
+    private Counter pauseCounter(TopicPartition topicPartition, String reason) {
+        return Counter.builder("kafka.consumer.flow.pauses")
+                .description("Partitions paused by flow control")
+                .tags("topic", topicPartition.topic(), "reason", reason)
+                .register(meterRegistry);
+    }
+
+    private static double ewma(double current, double sample) {
+        return current <= 0 ? sample : current + EWMA_WEIGHT * (sample - current);
+    }
+
+    /**
+     * Flow control state of one wrapped consumer, only accessed by its consumer thread.
+     */
+    private static final class ConsumerFlow {
+        private final Set<TopicPartition> paused = new HashSet<>();
+        private int pollCount;
+    }
+
+    /**
+     * In-flight count and handler latency estimate of one partition.
+     */
+    private static final class PartitionFlow {
+        private final AtomicInteger inFlight = new AtomicInteger();
+        private volatile double latencyNanosEwma;
+    }
+}
@@ -0,0 +1,159 @@
+package com.dhi.camelkafka.metrics;
+
+import com.dhi.camelkafka.model.KafkaMessage;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Micrometer instrumentation of the consumer pipeline.
+ * <p>
+ * Timers publish percentile histograms, which the Prometheus registry exports as buckets for
+ * {@code histogram_quantile} queries. With dozens of buckets per timer they are tagged by topic only;
+ * counters are tagged by topic and partition. Meters are cached per partition, so recording on the hot
+ * path is a map lookup and a histogram update without building tags.
+ */
+@Component
+public class ConsumerMetrics {
+
+    private static final Duration MIN_EXPECTED = Duration.ofNanos(1_000);
+    private static final Duration MAX_EXPECTED = Duration.ofMinutes(5);
+
+    private final MeterRegistry meterRegistry;
+    private final ConcurrentMap<String, TopicMeters> topicMeters = new ConcurrentHashMap<>();
+
+    public ConsumerMetrics(MeterRegistry meterRegistry) {
+        this.meterRegistry = meterRegistry;
+    }
+
+    /**
+     * Record the time spent in {@code extractMessageMetadata}.
+     */
+    public void recordExtraction(KafkaMessage kafkaMessage, long nanos) {
+        metersFor(kafkaMessage).extraction.record(nanos, TimeUnit.NANOSECONDS);
+    }
+
+    /**
+     * Record the time spent in {@code processMessage} and the end-to-end lag from the record timestamp.
+     */
+    public void recordProcessing(KafkaMessage kafkaMessage, long nanos, boolean success) {
+        PartitionMeters meters = metersFor(kafkaMessage);
+        meters.processing.record(nanos, TimeUnit.NANOSECONDS);
+        if (!success) {
+            meters.processingErrors.increment();
+        }
+        Long timestamp = kafkaMessage.getTimestamp();
+        if (timestamp != null && timestamp > 0) {
+            long lagMillis = System.currentTimeMillis() - timestamp;
+            if (lagMillis >= 0) {
+                meters.endToEndLag.record(lagMillis, TimeUnit.MILLISECONDS);
+            }
+        }
+    }
+
+    /**
+     * Record a successful commit and the time from its request until the broker acknowledged it.
+     */
+    public void recordCommit(KafkaMessage kafkaMessage, long latencyNanos) {
+        PartitionMeters meters = metersFor(kafkaMessage);
+        meters.commitLatency.record(latencyNanos, TimeUnit.NANOSECONDS);
+        meters.commitSuccess.increment();
+    }
+
+    /**
+     * Record a commit that failed after all retries.
+     */
+    public void recordCommitFailure(KafkaMessage kafkaMessage) {
+        metersFor(kafkaMessage).commitFailure.increment();
+    }
+
+    public MeterRegistry getMeterRegistry() {
+        return meterRegistry;
+    }
+
+    private PartitionMeters metersFor(KafkaMessage kafkaMessage) {
+        String topic = kafkaMessage.getTopic() != null ? kafkaMessage.getTopic() : "unknown";
+        int partition = kafkaMessage.getPartition() != null ? kafkaMessage.getPartition() : -1;
+        TopicMeters byTopic = topicMeters.get(topic);
+        if (byTopic == null) {
+            byTopic = topicMeters.computeIfAbsent(topic, t -> new TopicMeters(meterRegistry, t));
+        }
+        PartitionMeters meters = byTopic.partitions.get(partition);
+        if (meters == null) {
+            meters = byTopic.partitions.computeIfAbsent(partition, p -> new PartitionMeters(meterRegistry, byTopic, p));
+        }
+        return meters;
+    }
+
+    /**
+     * Timers of one topic and the meters of its partitions.
+     */
+    private static final class TopicMeters {
+        private final String topic;
+        private final Timer extraction;
+        private final Timer processing;
+        private final Timer endToEndLag;
+        private final Timer commitLatency;
+        private final ConcurrentMap<Integer, PartitionMeters> partitions = new ConcurrentHashMap<>();
+
+        TopicMeters(MeterRegistry registry, String topic) {
+            this.topic = topic;
+            extraction = timer(registry, "kafka.consumer.extract", "Time to extract record metadata", topic);
+            processing = timer(registry, "kafka.consumer.process", "Time spent in the message handler", topic);
+            endToEndLag = timer(registry, "kafka.consumer.end.to.end.lag",
+                    "Time from the record timestamp until processing finished", topic);
+            commitLatency = timer(registry, "kafka.consumer.commit",
+                    "Time from a commit request until the broker acknowledged it", topic);
+        }
+
+        private static Timer timer(MeterRegistry registry, String name, String description, String topic) {
+            return Timer.builder(name)
+                    .description(description)
+                    .tags("topic", topic)
+                    .publishPercentileHistogram()
+                    .minimumExpectedValue(MIN_EXPECTED)
+                    .maximumExpectedValue(MAX_EXPECTED)
+                    .register(registry);
+        }
+    }
+
+    /**
+     * Meters of one topic partition, sharing the timers of its topic.
+     */
+    private static final class PartitionMeters {
+        private final Timer extraction;
+        private final Timer processing;
+        private final Timer endToEndLag;
+        private final Timer commitLatency;
+        private final Counter processingErrors;
+        private final Counter commitSuccess;
+        private final Counter commitFailure;
+
+        PartitionMeters(MeterRegistry registry, TopicMeters topicMeters, int partition) {
+            String topic = topicMeters.topic;
+            String partitionTag = Integer.toString(partition);
+            extraction = topicMeters.extraction;
+            processing = topicMeters.processing;
+            endToEndLag = topicMeters.endToEndLag;
+            commitLatency = topicMeters.commitLatency;
+            processingErrors = Counter.builder("kafka.consumer.process.errors")
+                    .description("Records whose handler failed")
+                    .tags("topic", topic, "partition", partitionTag)
+                    .register(registry);
+            commitSuccess = Counter.builder("kafka.consumer.commits")
+                    .description("Offset commits by result")
+                    .tags("topic", topic, "partition", partitionTag, "result", "success")
+                    .register(registry);
+            commitFailure = Counter.builder("kafka.consumer.commits")
+                    .description("Offset commits by result")
+                    .tags("topic", topic, "partition", partitionTag, "result", "failure")
+                    .register(registry);
+        }
+    }
+}
@@ -0,0 +1,77 @@
+package com.dhi.camelkafka.metrics;
+
+import com.dhi.camelkafka.commit.CallbackManualCommitFactory;
+import com.dhi.camelkafka.flow.FlowController;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.kafka.KafkaClientMetrics;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.camel.component.kafka.DefaultKafkaClientFactory;
+import org.apache.kafka.clients.consumer.Consumer;
+import org.springframework.stereotype.Component;
+
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Proxy;
+import java.util.List;
+import java.util.Properties;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+/**
+ * Camel Kafka client factory that binds the Kafka client metrics of every consumer it creates to Micrometer.
+ * This exposes the client's own per-partition consumer lag ({@code kafka.consumer.fetch.manager.records.lag}),
+ * fetch rates and coordinator commit latency. The consumer handed to Camel is wrapped by the {@link FlowController}
+ * and, outermost, by the {@link CallbackManualCommitFactory} that issues the offset commits. A consumer's metrics
+ * are unbound when it is closed, as consumers come and go with runtime subscriptions.
+ * Referenced from the endpoint URI as {@code #kafkaClientFactory}.
+ */
+@Slf4j
+@Component("kafkaClientFactory")
+public class MetricsKafkaClientFactory extends DefaultKafkaClientFactory {
+
+    private final MeterRegistry meterRegistry;
+    private final FlowController flowController;
+    private final CallbackManualCommitFactory manualCommitFactory;
+    private final List<KafkaClientMetrics> clientMetrics = new CopyOnWriteArrayList<>();
+
+    public MetricsKafkaClientFactory(MeterRegistry meterRegistry, FlowController flowController,
+                                     CallbackManualCommitFactory manualCommitFactory) {
+        this.meterRegistry = meterRegistry;
+        this.flowController = flowController;
+        this.manualCommitFactory = manualCommitFactory;
+    }
+
+    @Override
+    public Consumer getConsumer(Properties kafkaProps) {
+        Consumer consumer = super.getConsumer(kafkaProps);
+        KafkaClientMetrics metrics = new KafkaClientMetrics(consumer);
+        metrics.bindTo(meterRegistry);
+        clientMetrics.add(metrics);
+        log.debug("Bound Kafka client metrics for consumer in group {}", kafkaProps.getProperty("group.id"));
+        return manualCommitFactory.wrap(flowController.wrap(unbindingOnClose(consumer, metrics)));
+    }
+
+    /**
+     * Wrap a consumer so that closing it also closes its client metrics, which removes their meters.
+     */
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    private Consumer unbindingOnClose(Consumer consumer, KafkaClientMetrics metrics) {
+        return (Consumer) Proxy.newProxyInstance(Consumer.class.getClassLoader(), new Class<?>[]{Consumer.class},
+                (proxy, method, args) -> {
+                    try {
+                        return method.invoke(consumer, args);
+                    } catch (InvocationTargetException e) {
+                        throw e.getCause();
+                    } finally {
+                        if ("close".equals(method.getName()) && clientMetrics.remove(metrics)) {
+                            metrics.close();
+                        }
+                    }
+                });
+    }
+
+    @PreDestroy
+    public void close() {
+        clientMetrics.forEach(KafkaClientMetrics::close);
+        clientMetrics.clear();
+    }
+}
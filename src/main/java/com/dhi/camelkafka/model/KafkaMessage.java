@@ -1,11 +1,17 @@
 package com.dhi.camelkafka.model;
 
+import com.dhi.camelkafka.extract.ExtractedFields;
+import com.fasterxml.jackson.annotation.JsonIgnore;
 import lombok.AllArgsConstructor;
 import lombok.Builder;
 import lombok.Data;
 import lombok.NoArgsConstructor;
 
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
 import java.time.LocalDateTime;
+import java.time.ZoneId;
 
 /**
  * Message model for Kafka consumer processing.
@@ -23,9 +29,148 @@ public class KafkaMessage {
     private Long timestamp;
     private String messageKey; // Add message key field
     private LocalDateTime processedAt;
+    private ExtractedFields fields; // Configured JSON fields of the value, null when extraction does not apply
     
+    @JsonIgnore
+    private Object rawContent; // Undecoded record value, decoded into content on first access
+    @JsonIgnore
+    private Object record; // Decoded Avro value (GenericRecord or generated class); rawContent keeps the encoded bytes
+    @JsonIgnore
+    private long processedAtMillis; // Epoch millis, converted into processedAt on first access
+    @JsonIgnore
+    private int retryAttempt; // Redeliveries before this one by the retry pipeline, 0 for the first delivery
+    
+    /**
+     * Get the message content, decoding the raw record value on first access.
+     * 
+     * @return The message content as a string
+     */
+    public String getContent() {
+        if (content == null && record != null) {
+            content = record.toString(); // Avro records render as JSON
+        }
+        if (content == null && rawContent != null) {
+            content = decode(rawContent);
+        }
+        return content;
+    }
+    
+    /**
+     * Get the size of the message content in UTF-8 bytes, without decoding a raw record value.
+     * For a decoded Avro value this is its encoded size.
+     * 
+     * @return The content length in bytes
+     */
+    public int getContentLength() {
+        if (record != null && rawContent instanceof byte[] bytes) {
+            return bytes.length;
+        }
+        if (content == null && rawContent instanceof byte[] bytes) {
+            return bytes.length;
+        }
+        if (content == null && rawContent instanceof ByteBuffer buffer) {
+            return buffer.remaining();
+        }
+        String text = getContent();
+        return text != null ? utf8Length(text) : 0;
+    }
+    
+    /**
+     * Check whether the content is empty or whitespace only, without decoding a raw record value.
+     * Matches {@code getContent().trim().isEmpty()}: UTF-8 encodes characters up to U+0020 as single bytes
+     * and never uses such bytes inside multi-byte sequences.
+     * 
+     * @return true if there is content and it is empty or whitespace only
+     */
+    @JsonIgnore
+    public boolean isContentBlank() {
+        if (record != null) {
+            return false;
+        }
+        if (content == null && rawContent instanceof byte[] bytes) {
+            for (byte b : bytes) {
+                if ((b & 0xFF) > ' ') {
+                    return false;
+                }
+            }
+            return true;
+        }
+        if (content == null && rawContent instanceof ByteBuffer buffer) {
+            for (int i = buffer.position(); i < buffer.limit(); i++) {
+                if ((buffer.get(i) & 0xFF) > ' ') {
+                    return false;
+                }
+            }
+            return true;
+        }
+        String text = getContent();
+        return text != null && text.trim().isEmpty();
+    }
+    
+    /**
+     * Get a read-only view of the content bytes. Raw record values are shared, not copied,
+     * so records can be forwarded without a decode/encode round trip. Avro values are returned in their encoded form.
+     * 
+     * @return The content as UTF-8 bytes, or null if there is no content
+     */
+    @JsonIgnore
+    public ByteBuffer getContentBuffer() {
+        if ((content == null || record != null) && rawContent instanceof byte[] bytes) {
+            return ByteBuffer.wrap(bytes).asReadOnlyBuffer();
+        }
+        if (content == null && rawContent instanceof ByteBuffer buffer) {
+            return buffer.asReadOnlyBuffer();
+        }
+        String text = getContent();
+        return text != null ? ByteBuffer.wrap(text.getBytes(StandardCharsets.UTF_8)).asReadOnlyBuffer() : null;
+    }
+    
+    /**
+     * Get the processing time, converting the captured epoch millis on first access.
+     * 
+     * @return The time the message was processed
+     */
+    public LocalDateTime getProcessedAt() {
+        if (processedAt == null && processedAtMillis > 0) {
+            processedAt = LocalDateTime.ofInstant(Instant.ofEpochMilli(processedAtMillis), ZoneId.systemDefault());
+        }
+        return processedAt;
+    }
+    
+    @JsonIgnore
     public String getFormattedInfo() {
         return String.format("Topic: %s, Partition: %d, Offset: %d, Timestamp: %d", 
                            topic, partition, offset, timestamp);
     }
+    
+    private static String decode(Object value) {
+        if (value instanceof String text) {
+            return text;
+        }
+        if (value instanceof byte[] bytes) {
+            return new String(bytes, StandardCharsets.UTF_8);
+        }
+        if (value instanceof ByteBuffer buffer) {
+            return StandardCharsets.UTF_8.decode(buffer.duplicate()).toString();
+        }
+        return value.toString();
+    }
+    
+    private static int utf8Length(String text) {
+        int length = 0;
+        for (int i = 0; i < text.length(); i++) {
+            char c = text.charAt(i);
+            if (c < 0x80) {
+                length++;
+            } else if (c < 0x800) {
+                length += 2;
+            } else if (Character.isHighSurrogate(c) && i + 1 < text.length() && Character.isLowSurrogate(text.charAt(i + 1))) {
+                length += 4;
+                i++;
+            } else {
+                length += 3;
+            }
+        }
+        return length;
+    }
 }
@@ -1,15 +1,36 @@
 package com.dhi.camelkafka.processor;
 
+import com.dhi.camelkafka.aggregate.AggregationService;
+import com.dhi.camelkafka.avro.AvroRecordDecoder;
+import com.dhi.camelkafka.commit.OffsetCommitter;
+import com.dhi.camelkafka.config.ExecutionMode;
+import com.dhi.camelkafka.config.KafkaProperties;
+import com.dhi.camelkafka.config.RetryMode;
+import com.dhi.camelkafka.dedup.RecordDeduplicator;
+import com.dhi.camelkafka.extract.JsonFieldExtractor;
+import com.dhi.camelkafka.flow.FlowController;
+import com.dhi.camelkafka.metrics.ConsumerMetrics;
 import com.dhi.camelkafka.model.KafkaMessage;
+import com.dhi.camelkafka.retry.RetryPipeline;
+import com.dhi.camelkafka.routing.RecordRouter;
 import com.dhi.camelkafka.service.KafkaCallbackService;
 import com.dhi.camelkafka.service.DashboardService;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.apache.camel.CamelContext;
 import org.apache.camel.Exchange;
+import org.apache.camel.Message;
 import org.apache.camel.Processor;
 import org.apache.camel.component.kafka.KafkaConstants;
+import org.apache.camel.component.kafka.consumer.KafkaManualCommit;
+import org.apache.kafka.common.TopicPartition;
 import org.springframework.stereotype.Component;
 
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+
 /**
  * Processor for handling Kafka messages with manual commits and callbacks.
  */
@@ -20,23 +41,64 @@ public class KafkaMessageProcessor implements Processor {
 
     private final KafkaCallbackService callbackService;
     private final DashboardService dashboardService;
+    private final KafkaProperties kafkaProperties;
+    private final KeyOrderedWorkerPool workerPool;
+    private final VirtualThreadDispatcher virtualThreadDispatcher;
+    private final OffsetCommitter offsetCommitter;
+    private final ConsumerMetrics consumerMetrics;
+    private final FlowController flowController;
+    private final JsonFieldExtractor jsonFieldExtractor;
+    private final AvroRecordDecoder avroRecordDecoder;
+    private final RetryPipeline retryPipeline;
+    private final RecordDeduplicator recordDeduplicator;
+    private final AggregationService aggregationService;
 
     /**
      * Process the Kafka message from the exchange.
+     * When batching is enabled the exchange body holds the whole poll as a list of exchanges, which is processed
+     * on the consumer thread whatever the execution mode.
      * 
      * @param exchange The Camel exchange containing the Kafka message
      * @throws Exception If processing fails
      */
     @Override
     public void process(Exchange exchange) throws Exception {
+        // Time on the consumer thread drives the flow controller's batch size
+        long start = System.nanoTime();
+        int records = 1;
+        try {
+            if (kafkaProperties.isBatching() && exchange.getIn().getBody() instanceof List<?> batch) {
+                records = batch.size();
+                processBatch(exchange, batch);
+            } else if (kafkaProperties.getExecution().isAsynchronous()) {
+                dispatchToWorker(exchange);
+            } else {
+                processRecord(exchange);
+            }
+        } finally {
+            flowController.recordConsumerThreadTime(System.nanoTime() - start, records);
+        }
+    }
+
+    /**
+     * Process a single record on the consumer thread and commit it.
+     * 
+     * @param exchange The Camel exchange containing the Kafka message
+     * @throws Exception If processing fails
+     */
+    private void processRecord(Exchange exchange) throws Exception {
         try {
             log.debug("Starting to process Kafka message");
             
             // Create callback to extract metadata and build KafkaMessage
-            KafkaMessage kafkaMessage = callbackService.extractMessageMetadata(exchange);
+            KafkaMessage kafkaMessage = extractMessage(exchange);
             
-            // Process the message
-            processMessage(kafkaMessage);
+            // Process the message; a failure handed to the retry pipeline is committed like a success,
+            // and a record skipped by routing or already processed only moves the commit point
+            if (needsProcessing(exchange, kafkaMessage) && !processOrRetry(kafkaMessage)) {
+                holdBack(exchange, kafkaMessage);
+                return;
+            }
             
             // Perform manual commit after successful processing
             performManualCommit(exchange, kafkaMessage);
@@ -56,9 +118,129 @@ public class KafkaMessageProcessor implements Processor {
         }
     }
 
+    /**
+     * Process a whole poll batch and commit once per partition, up to the partition's last record.
+     * A record that fails outside the retry pipeline is reported like a failed single record and, with the
+     * pipeline enabled, dead-lettered; the records after it are still processed, since the consumer has
+     * already moved past the whole poll and would not deliver them again. A record that could be neither
+     * processed nor handed over is held back: its partition commits only up to the record before it.
+     * 
+     * @param batchExchange The exchange carrying the batch
+     * @param batch The list of record exchanges in poll order
+     */
+    private void processBatch(Exchange batchExchange, List<?> batch) {
+        log.debug("Starting to process Kafka batch of {} records", batch.size());
+        
+        // Last record per partition, in first-seen order
+        Map<String, Exchange> commitCandidates = new LinkedHashMap<>();
+        Map<String, KafkaMessage> commitMessages = new LinkedHashMap<>();
+        Map<String, Exchange> heldBack = new LinkedHashMap<>(); // First such record per partition
+        Map<String, KafkaMessage> heldMessages = new LinkedHashMap<>();
+        int failures = 0;
+        
+        for (Object item : batch) {
+            Exchange exchange = (Exchange) item;
+            KafkaMessage kafkaMessage = null;
+            String partitionKey = exchange.getIn().getHeader(KafkaConstants.TOPIC, String.class)
+                    + ":" + exchange.getIn().getHeader(KafkaConstants.PARTITION, Integer.class);
+            boolean handled = true;
+            try {
+                kafkaMessage = extractMessage(exchange);
+                if (needsProcessing(exchange, kafkaMessage)) {
+                    handled = processOrRetry(kafkaMessage);
+                }
+            } catch (Exception e) {
+                log.error("Error processing Kafka message in batch", e);
+                failures++;
+                if (kafkaMessage == null) {
+                    kafkaMessage = coordinatesOf(exchange); // Extraction failed
+                }
+                callbackService.onMessageError(kafkaMessage, e);
+                handled = retryPipeline.deadLetter(exchange, e);
+            }
+            if (kafkaMessage.getOffset() == null || heldBack.containsKey(partitionKey)) {
+                continue;
+            }
+            if (handled) {
+                commitCandidates.put(partitionKey, exchange);
+                commitMessages.put(partitionKey, kafkaMessage);
+            } else {
+                heldBack.put(partitionKey, exchange);
+                heldMessages.put(partitionKey, kafkaMessage);
+            }
+        }
+        
+        for (Map.Entry<String, Exchange> entry : commitCandidates.entrySet()) {
+            performManualCommit(entry.getValue(), commitMessages.get(entry.getKey()));
+        }
+        // Tracked after the partition's last commit, so later batches cannot commit past it either
+        for (Map.Entry<String, Exchange> entry : heldBack.entrySet()) {
+            holdBack(entry.getValue(), heldMessages.get(entry.getKey()));
+        }
+        batchExchange.setProperty(KafkaConstants.MANUAL_COMMIT, true);
+        offsetCommitter.flush();
+        
+        log.debug("Completed Kafka batch of {} records with {} failures and {} partition commits", 
+                batch.size(), failures, commitCandidates.size());
+    }
+
+    /**
+     * Hand the record to the key-ordered worker pool or to a virtual thread.
+     * Metadata extraction and offset tracking stay on the consumer thread; the committer only moves
+     * the partition's commit point past a record once all earlier records completed, so out-of-order
+     * completions never skip a record. A failed record is handed to the retry pipeline, or without it reported
+     * and then released like a handled route error. A record that could be handed over neither is never
+     * completed, so its partition's commits stay behind it, and its route is stopped.
+     * 
+     * @param exchange The Camel exchange containing the Kafka message
+     */
+    private void dispatchToWorker(Exchange exchange) {
+        KafkaMessage kafkaMessage = extractMessage(exchange);
+        KafkaManualCommit manualCommit = exchange.getIn()
+                .getHeader(KafkaConstants.MANUAL_COMMIT, KafkaManualCommit.class);
+        offsetCommitter.track(kafkaMessage, manualCommit);
+        if (!needsProcessing(exchange, kafkaMessage)) {
+            offsetCommitter.complete(kafkaMessage); // Skipped by routing or already processed, nothing to hand to a worker
+            return;
+        }
+        flowController.onDispatched(kafkaMessage);
+        CamelContext camelContext = exchange.getContext();
+        String routeId = exchange.getFromRouteId();
+        
+        Runnable task = () -> {
+            long start = System.nanoTime();
+            boolean handled = true;
+            try {
+                handled = processOrRetry(kafkaMessage);
+            } catch (Exception e) {
+                log.error("Error processing Kafka message on worker", e);
+                callbackService.onMessageError(kafkaMessage, e);
+            } finally {
+                // Also on an Error, so the record neither stays in flight nor holds back its partition's commits
+                flowController.onCompleted(kafkaMessage, System.nanoTime() - start);
+                if (handled) {
+                    offsetCommitter.complete(kafkaMessage);
+                } else {
+                    stopRoute(camelContext, routeId, kafkaMessage);
+                }
+            }
+        };
+        
+        if (kafkaProperties.getExecution() == ExecutionMode.VIRTUAL_THREADS) {
+            virtualThreadDispatcher.submit(task);
+        } else {
+            // Records without a key keep partition order
+            Object orderingKey = kafkaMessage.getMessageKey() != null
+                    ? kafkaMessage.getMessageKey()
+                    : new TopicPartition(kafkaMessage.getTopic(), kafkaMessage.getPartition());
+            workerPool.submit(orderingKey, task);
+        }
+    }
+
     /**
      * Performs manual commit for the Kafka message.
-     * In Camel 4.x, manual commit is handled by setting exchange properties.
+     * The record is handed to the offset committer, which coalesces commits per partition
+     * and issues them asynchronously; {@code onManualCommit} fires once the broker acknowledged the commit.
      * 
      * @param exchange The Camel exchange
      * @param kafkaMessage The processed message
@@ -67,7 +249,10 @@ public class KafkaMessageProcessor implements Processor {
         try {
             // Set manual commit property to trigger commit after processing
             exchange.setProperty(KafkaConstants.MANUAL_COMMIT, true);
-            callbackService.onManualCommit(kafkaMessage);
+            KafkaManualCommit manualCommit = exchange.getIn()
+                    .getHeader(KafkaConstants.MANUAL_COMMIT, KafkaManualCommit.class);
+            offsetCommitter.track(kafkaMessage, manualCommit);
+            offsetCommitter.complete(kafkaMessage);
             log.debug("Manual commit scheduled for message: {}", kafkaMessage.getId());
         } catch (Exception e) {
             log.error("Error during manual commit for message: {}", kafkaMessage.getId(), e);
@@ -77,28 +262,195 @@ public class KafkaMessageProcessor implements Processor {
     }
 
     /**
-     * Process the business logic for the Kafka message.
+     * Route error handler: dead-letter the record of an exchange that failed outside record processing.
+     * A record the dead-letter topic did not take is held back like a record the retry pipeline did not take.
+     * 
+     * @param exchange The failed exchange, with the caught exception as property
+     */
+    public void onRouteError(Exchange exchange) {
+        if (!retryPipeline.deadLetter(exchange, exchange.getProperty(Exchange.EXCEPTION_CAUGHT, Exception.class))) {
+            holdBack(exchange, coordinatesOf(exchange));
+        }
+    }
+
+    /**
+     * Keep the commits of a record's partition behind a record that could be neither processed nor handed over:
+     * the record is tracked but never completed. Its route is stopped, so the record is consumed again from the
+     * last commit once the route is started again, e.g. through the topic admin API.
+     * 
+     * @param exchange The record's exchange
+     * @param kafkaMessage The record's metadata
+     */
+    private void holdBack(Exchange exchange, KafkaMessage kafkaMessage) {
+        if (kafkaMessage.getOffset() != null) {
+            offsetCommitter.track(kafkaMessage, exchange.getIn().getHeader(KafkaConstants.MANUAL_COMMIT, KafkaManualCommit.class));
+        }
+        exchange.setProperty(KafkaConstants.MANUAL_COMMIT, true);
+        stopRoute(exchange.getContext(), exchange.getFromRouteId(), kafkaMessage);
+    }
+
+    private void stopRoute(CamelContext camelContext, String routeId, KafkaMessage kafkaMessage) {
+        log.error("Message {} was neither processed nor handed over and is not committed, stopping route {}",
+                kafkaMessage.getId(), routeId);
+        if (routeId == null) {
+            return;
+        }
+        // Stopping waits for the route's in-flight exchanges, which may include the caller's own
+        CompletableFuture.runAsync(() -> {
+            try {
+                camelContext.getRouteController().stopRoute(routeId);
+            } catch (Exception e) {
+                log.error("Failed to stop route {}", routeId, e);
+            }
+        });
+    }
+
+    /**
+     * Check whether a record still has to be processed: it was not skipped by the routing stage and
+     * is not a redelivery of an already processed record.
+     * 
+     * @param exchange The record's exchange
+     * @param kafkaMessage The record's metadata
+     * @return true if the record should be processed
+     */
+    private boolean needsProcessing(Exchange exchange, KafkaMessage kafkaMessage) {
+        return !isSkipped(exchange) && !recordDeduplicator.isDuplicate(kafkaMessage);
+    }
+
+    private static boolean isSkipped(Exchange exchange) {
+        return exchange.getProperty(RecordRouter.SKIPPED_PROPERTY) != null;
+    }
+
+    /**
+     * Process the message, handing a failure to the retry pipeline when it is enabled.
+     * Either way the record's offset then counts as done for deduplication; its key only once it was processed.
+     * 
+     * @param kafkaMessage The message to process
+     * @return false if the record failed and the retry pipeline could not take it, so it must not be committed
+     * @throws RuntimeException The processing failure, when the retry pipeline is disabled
+     */
+    private boolean processOrRetry(KafkaMessage kafkaMessage) {
+        if (!retryPipeline.isEnabled()) {
+            processMessage(kafkaMessage);
+            recordDeduplicator.markProcessed(kafkaMessage);
+            return true;
+        }
+        try {
+            processMessage(kafkaMessage);
+            if (kafkaMessage.getRetryAttempt() > 0) {
+                retryPipeline.recordRecovered(kafkaMessage); // Redelivered from a retry topic
+            }
+        } catch (RuntimeException e) {
+            log.warn("Processing failed for message {}, handing it to the retry pipeline: {}",
+                    kafkaMessage.getId(), e.getMessage());
+            callbackService.onMessageError(kafkaMessage, e);
+            try {
+                retryPipeline.submit(kafkaMessage, e, this::processMessage);
+            } catch (IllegalStateException handoverError) {
+                log.error("Message {} could not be handed to the retry pipeline", kafkaMessage.getId(), handoverError);
+                return false;
+            }
+            recordDeduplicator.markHandedOver(kafkaMessage);
+            return true;
+        }
+        recordDeduplicator.markProcessed(kafkaMessage);
+        return true;
+    }
+
+    /**
+     * Process the business logic for the Kafka message and record its metrics.
      * 
      * @param kafkaMessage The message to process
      */
     private void processMessage(KafkaMessage kafkaMessage) {
+        long start = System.nanoTime();
+        boolean success = false;
+        try {
+            handleMessage(kafkaMessage);
+            success = true;
+        } finally {
+            consumerMetrics.recordProcessing(kafkaMessage, System.nanoTime() - start, success);
+        }
+    }
+
+    /**
+     * Extract the message metadata, timing the extraction.
+     * For a record the routing stage skipped only the coordinates needed for its commit are read.
+     * 
+     * @param exchange The Camel exchange containing the Kafka message
+     * @return KafkaMessage with extracted metadata
+     */
+    private KafkaMessage extractMessage(Exchange exchange) {
+        if (isSkipped(exchange)) {
+            return coordinatesOf(exchange);
+        }
+        long start = System.nanoTime();
+        KafkaMessage kafkaMessage = callbackService.extractMessageMetadata(exchange);
+        if (retryPipeline.isEnabled() && kafkaProperties.getRetryMode() == RetryMode.KAFKA) {
+            kafkaMessage.setRetryAttempt(retryPipeline.retryAttemptOf(exchange));
+        }
+        consumerMetrics.recordExtraction(kafkaMessage, System.nanoTime() - start);
+        return kafkaMessage;
+    }
+
+    /**
+     * Read only the topic, partition and offset of a record, which is all its commit needs.
+     * 
+     * @param exchange The record's exchange
+     * @return KafkaMessage with the record's coordinates
+     */
+    private static KafkaMessage coordinatesOf(Exchange exchange) {
+        Message in = exchange.getIn();
+        String topic = in.getHeader(KafkaConstants.TOPIC, String.class);
+        Integer partition = in.getHeader(KafkaConstants.PARTITION, Integer.class);
+        Long offset = in.getHeader(KafkaConstants.OFFSET, Long.class);
+        return KafkaMessage.builder()
+                .id(topic + "-" + partition + "-" + offset)
+                .topic(topic)
+                .partition(partition)
+                .offset(offset)
+                .build();
+    }
+
+    /**
+     * The business logic for the Kafka message.
+     * 
+     * @param kafkaMessage The message to process
+     */
+    private void handleMessage(KafkaMessage kafkaMessage) {
         log.info("Processing message with ID: {}", kafkaMessage.getId());
         
+        // Decode Avro values here rather than in the deserializer, so workers share the decoding
+        if (avroRecordDecoder.appliesTo(kafkaMessage)) {
+            kafkaMessage.setRecord(avroRecordDecoder.decode(kafkaMessage));
+        }
+        
+        // Pull the configured JSON fields for downstream handlers
+        if (jsonFieldExtractor.appliesTo(kafkaMessage)) {
+            kafkaMessage.setFields(jsonFieldExtractor.extract(kafkaMessage));
+        }
+        
         // Add message to dashboard
         dashboardService.addMessage(kafkaMessage);
+
+        // Count the record into its aggregation windows
+        aggregationService.record(kafkaMessage);
         
         // Simulate message processing
         try {
             // Example business logic - you can replace this with actual processing
-            if (kafkaMessage.getContent() != null && kafkaMessage.getContent().trim().isEmpty()) {
+            // Checked on the raw bytes; content is only decoded if a handler reads it
+            if (kafkaMessage.isContentBlank()) {
                 throw new IllegalArgumentException("Message content cannot be empty");
             }
             
             // Simulate processing time
-            Thread.sleep(100);
+            if (kafkaProperties.getProcessingDelayMs() > 0) {
+                Thread.sleep(kafkaProperties.getProcessingDelayMs());
+            }
             
             log.info("Successfully processed message: {} with content length: {}", 
-                    kafkaMessage.getId(), kafkaMessage.getContent().length());
+                    kafkaMessage.getId(), kafkaMessage.getContentLength());
             
         } catch (InterruptedException e) {
             Thread.currentThread().interrupt();
@@ -0,0 +1,114 @@
+package com.dhi.camelkafka.processor;
+
+import com.dhi.camelkafka.config.ExecutionMode;
+import com.dhi.camelkafka.config.KafkaProperties;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Worker pool that runs tasks in parallel across keys while keeping the order of tasks with the same key.
+ * Each key is hashed onto a single-threaded lane with a bounded queue; when a lane is full the
+ * submitting consumer thread blocks, which throttles polling instead of buffering without limit.
+ */
+@Slf4j
+@Component
+public class KeyOrderedWorkerPool {
+
+    private final ThreadPoolExecutor[] lanes;
+    private final AtomicInteger pendingTasks = new AtomicInteger(0);
+
+    public KeyOrderedWorkerPool(KafkaProperties kafkaProperties) {
+        if (kafkaProperties.getExecution() != ExecutionMode.WORKER_POOL) {
+            this.lanes = new ThreadPoolExecutor[0];
+            return;
+        }
+        int workerCount = Math.max(1, kafkaProperties.getWorkerCount());
+        this.lanes = new ThreadPoolExecutor[workerCount];
+        for (int i = 0; i < workerCount; i++) {
+            String threadName = "kafka-worker-" + i;
+            lanes[i] = new ThreadPoolExecutor(1, 1, 0L, TimeUnit.MILLISECONDS,
+                    new ArrayBlockingQueue<>(kafkaProperties.getWorkerQueueCapacity()),
+                    runnable -> new Thread(runnable, threadName),
+                    KeyOrderedWorkerPool::blockUntilQueued);
+        }
+        log.info("Started {} key-ordered worker lanes with queue capacity {}",
+                workerCount, kafkaProperties.getWorkerQueueCapacity());
+    }
+
+    /**
+     * Submit a task for the given key. Tasks with equal keys run sequentially in submission order.
+     *
+     * @param key The ordering key
+     * @param task The task to run
+     */
+    public void submit(Object key, Runnable task) {
+        if (lanes.length == 0) {
+            throw new IllegalStateException("Worker pool is not enabled, set kafka.execution=worker-pool");
+        }
+        pendingTasks.incrementAndGet();
+        try {
+            lanes[laneFor(key)].execute(() -> {
+                try {
+                    task.run();
+                } finally {
+                    pendingTasks.decrementAndGet();
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            pendingTasks.decrementAndGet();
+            throw e;
+        }
+    }
+
+    /**
+     * Get the number of submitted tasks that have not finished yet.
+     *
+     * @return Number of queued and running tasks
+     */
+    public int getPendingTasks() {
+        return pendingTasks.get();
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        for (ThreadPoolExecutor lane : lanes) {
+            lane.shutdown();
+        }
+        for (ThreadPoolExecutor lane : lanes) {
+            try {
+                if (!lane.awaitTermination(30, TimeUnit.SECONDS)) {
+                    log.warn("Worker lane did not drain within 30 seconds, {} tasks dropped",
+                            lane.shutdownNow().size());
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                lane.shutdownNow();
+            }
+        }
+    }
+
+    private int laneFor(Object key) {
+        int hash = key != null ? key.hashCode() : 0;
+        hash ^= (hash >>> 16); // Spread poorly distributed hash codes
+        return Math.floorMod(hash, lanes.length);
+    }
+
+    private static void blockUntilQueued(Runnable runnable, ThreadPoolExecutor executor) {
+        if (executor.isShutdown()) {
+            throw new RejectedExecutionException("Worker lane is shut down");
+        }
+        try {
+            executor.getQueue().put(runnable);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RejectedExecutionException("Interrupted while waiting for a worker lane", e);
+        }
+    }
+}
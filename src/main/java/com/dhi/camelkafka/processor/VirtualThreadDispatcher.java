@@ -0,0 +1,109 @@
+package com.dhi.camelkafka.processor;
+
+import com.dhi.camelkafka.config.ExecutionMode;
+import com.dhi.camelkafka.config.KafkaProperties;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Dispatcher that runs every task on its own virtual thread.
+ * Blocking handlers park their virtual thread instead of a platform thread, so thousands of records
+ * can wait on I/O at once. The number of in-flight tasks is capped by a semaphore acquired on the
+ * submitting consumer thread. Tasks are not ordered relative to each other.
+ */
+@Slf4j
+@Component
+public class VirtualThreadDispatcher {
+
+    private final ExecutorService executor;
+    private final Semaphore inFlightPermits;
+    private final int maxInFlight;
+
+    public VirtualThreadDispatcher(KafkaProperties kafkaProperties) {
+        this.maxInFlight = Math.max(1, kafkaProperties.getMaxInFlight());
+        this.inFlightPermits = new Semaphore(maxInFlight);
+        if (kafkaProperties.getExecution() != ExecutionMode.VIRTUAL_THREADS) {
+            this.executor = null;
+            return;
+        }
+        this.executor = newVirtualThreadPerTaskExecutor();
+        log.info("Started virtual-thread execution with at most {} records in flight", maxInFlight);
+    }
+
+    /**
+     * Submit a task, blocking while the in-flight limit is reached.
+     *
+     * @param task The task to run
+     */
+    public void submit(Runnable task) {
+        if (executor == null) {
+            throw new IllegalStateException("Virtual-thread execution is not enabled, set kafka.execution=virtual-threads");
+        }
+        try {
+            inFlightPermits.acquire();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RejectedExecutionException("Interrupted while waiting for an in-flight permit", e);
+        }
+        try {
+            executor.execute(() -> {
+                try {
+                    task.run();
+                } finally {
+                    inFlightPermits.release();
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            inFlightPermits.release();
+            throw e;
+        }
+    }
+
+    /**
+     * Get the number of submitted tasks that have not finished yet.
+     *
+     * @return Number of running tasks
+     */
+    public int getPendingTasks() {
+        return maxInFlight - inFlightPermits.availablePermits();
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        if (executor == null) {
+            return;
+        }
+        executor.shutdown();
+        try {
+            if (!executor.awaitTermination(30, TimeUnit.SECONDS)) {
+                log.warn("Virtual-thread tasks did not finish within 30 seconds, {} tasks dropped",
+                        executor.shutdownNow().size());
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            executor.shutdownNow();
+        }
+    }
+
+    /**
+     * Looks up {@code Executors.newVirtualThreadPerTaskExecutor()} reflectively so the project
+     * still compiles for Java 17; the mode itself needs a Java 21 runtime (see the java21 profile).
+     */
+    private static ExecutorService newVirtualThreadPerTaskExecutor() {
+        try {
+            return (ExecutorService) Executors.class.getMethod("newVirtualThreadPerTaskExecutor").invoke(null);
+        } catch (NoSuchMethodException e) {
+            throw new IllegalStateException("kafka.execution=virtual-threads requires a Java 21 runtime, found "
+                    + Runtime.version(), e);
+        } catch (ReflectiveOperationException e) {
+            throw new IllegalStateException("Unable to create virtual-thread executor", e);
+        }
+    }
+}
@@ -0,0 +1,420 @@
+package com.dhi.camelkafka.retry;
+
+import com.dhi.camelkafka.config.KafkaProperties;
+import com.dhi.camelkafka.config.RetryMode;
+import com.dhi.camelkafka.metrics.ConsumerMetrics;
+import com.dhi.camelkafka.model.KafkaMessage;
+import com.dhi.camelkafka.route.KafkaConsumerRoute;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.camel.Exchange;
+import org.apache.camel.Message;
+import org.apache.camel.ProducerTemplate;
+import org.apache.camel.component.kafka.KafkaConstants;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+
+/**
+ * Tiered handling of records whose processing failed: delayed redelivery, then a dead-letter topic.
+ * <p>
+ * The consumer hands a failed record over and moves on, committing it like a processed one, so a poison message
+ * never stalls its partition. Redeliveries back off exponentially and run on this pipeline's own threads
+ * ({@link RetryMode#LOCAL}) or from a retry topic per source topic ({@link RetryMode#KAFKA}). A record that is out
+ * of attempts is published with its original key and value to the source topic's dead-letter topic, with headers
+ * describing the failure. In {@link RetryMode#KAFKA} both topics are written before the failed record is committed,
+ * so a crash cannot lose it; a record neither topic takes is reported to the caller, which holds back its commit.
+ * Redelivered records may complete after later records with the same key.
+ */
+@Slf4j
+@Component
+public class RetryPipeline {
+
+    // Headers of retry and dead-letter records; values are UTF-8 strings
+    public static final String ATTEMPT_HEADER = "x-retry-attempt";
+    public static final String NOT_BEFORE_HEADER = "x-retry-not-before";
+    public static final String DELIVERIES_HEADER = "x-delivery-attempts";
+    public static final String SOURCE_TOPIC_HEADER = "x-source-topic";
+    public static final String FAILED_TOPIC_HEADER = "x-failed-topic";
+    public static final String FAILED_PARTITION_HEADER = "x-failed-partition";
+    public static final String FAILED_OFFSET_HEADER = "x-failed-offset";
+    public static final String EXCEPTION_CLASS_HEADER = "x-exception-class";
+    public static final String EXCEPTION_MESSAGE_HEADER = "x-exception-message";
+    public static final String FAILED_AT_HEADER = "x-failed-at";
+
+    private final KafkaProperties kafkaProperties;
+    private final MeterRegistry meterRegistry;
+    private final RecordPublisher publisher;
+    private final ScheduledThreadPoolExecutor executor;
+    private final AtomicInteger pendingRetries = new AtomicInteger(0);
+
+    @Autowired
+    public RetryPipeline(KafkaProperties kafkaProperties, ConsumerMetrics consumerMetrics,
+                         ObjectProvider<ProducerTemplate> producerTemplates) {
+        this(kafkaProperties, consumerMetrics.getMeterRegistry(),
+                new CamelRecordPublisher(kafkaProperties, producerTemplates));
+    }
+
+    RetryPipeline(KafkaProperties kafkaProperties, MeterRegistry meterRegistry, RecordPublisher publisher) {
+        this.kafkaProperties = kafkaProperties;
+        this.meterRegistry = meterRegistry;
+        this.publisher = publisher;
+        AtomicInteger threadCount = new AtomicInteger(0);
+        this.executor = new ScheduledThreadPoolExecutor(Math.max(1, kafkaProperties.getRetryThreads()), runnable -> {
+            Thread thread = new Thread(runnable, "kafka-retry-" + threadCount.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+        executor.setExecuteExistingDelayedTasksAfterShutdownPolicy(false);
+        Gauge.builder("kafka.consumer.retry.pending", pendingRetries, AtomicInteger::get)
+                .description("Records waiting for a local redelivery")
+                .register(meterRegistry);
+    }
+
+    public boolean isEnabled() {
+        return kafkaProperties.isRetryEnabled();
+    }
+
+    /**
+     * Hand over a record whose processing failed. In {@link RetryMode#LOCAL} this returns at once; waiting,
+     * redelivery and publishing happen on the pipeline's threads. In {@link RetryMode#KAFKA} the record is
+     * published to its retry or dead-letter topic before this returns.
+     *
+     * @param message The failed record, its {@code retryAttempt} counting the redeliveries it already had
+     * @param error The processing failure
+     * @param handler The processing to run again for a local redelivery
+     * @throws IllegalStateException In {@link RetryMode#KAFKA}, if neither the retry nor the dead-letter topic took
+     *                               the record, which must then not be committed
+     */
+    public void submit(KafkaMessage message, Exception error, Consumer<KafkaMessage> handler) {
+        String sourceTopic = sourceTopic(message.getTopic());
+        int attempt = message.getRetryAttempt() + 1;
+        if (attempt > kafkaProperties.getRetryMaxAttempts()) {
+            if (!deadLetter(message, sourceTopic, error, "exhausted")) {
+                throw new IllegalStateException("Could not hand message " + message.getId() + " to a dead-letter topic", error);
+            }
+            return;
+        }
+
+        long delayMs = backoffMillis(attempt);
+        if (kafkaProperties.getRetryMode() == RetryMode.KAFKA) {
+            Map<String, Object> headers = failureHeaders(message, sourceTopic, error);
+            headers.put(ATTEMPT_HEADER, String.valueOf(attempt));
+            headers.put(NOT_BEFORE_HEADER, String.valueOf(System.currentTimeMillis() + delayMs));
+            counter("kafka.consumer.retry.attempts", sourceTopic).increment();
+            if (!publish(sourceTopic + kafkaProperties.getRetryTopicSuffix(), message, headers)
+                    && !deadLetter(message, sourceTopic, error, "retry-publish-failed")) {
+                throw new IllegalStateException("Could not hand message " + message.getId()
+                        + " to a retry or dead-letter topic", error);
+            }
+            return;
+        }
+
+        if (pendingRetries.incrementAndGet() > kafkaProperties.getRetryQueueCapacity()) {
+            pendingRetries.decrementAndGet();
+            deadLetter(message, sourceTopic, error, "overflow");
+            return;
+        }
+        counter("kafka.consumer.retry.attempts", sourceTopic).increment();
+        try {
+            executor.schedule(() -> redeliver(message, handler, attempt), delayMs, TimeUnit.MILLISECONDS);
+        } catch (RejectedExecutionException e) {
+            pendingRetries.decrementAndGet();
+            log.error("Retry pipeline is shut down, dropping message {}", message.getId());
+        }
+    }
+
+    /**
+     * Record a redelivered record that was processed successfully.
+     *
+     * @param message The record
+     */
+    public void recordRecovered(KafkaMessage message) {
+        counter("kafka.consumer.retry.recovered", sourceTopic(message.getTopic())).increment();
+        log.info("Message {} processed on retry {}", message.getId(), message.getRetryAttempt());
+    }
+
+    /**
+     * Dead-letter the record of an exchange that failed outside record processing.
+     * Batch exchanges are only logged; their records are handled one by one by the processor.
+     *
+     * @param exchange The failed record exchange
+     * @param error The failure
+     * @return false if the record was neither published nor deliberately dropped, so it must not be committed
+     */
+    public boolean deadLetter(Exchange exchange, Exception error) {
+        Message in = exchange.getIn();
+        String topic = in.getHeader(KafkaConstants.TOPIC, String.class);
+        Integer partition = in.getHeader(KafkaConstants.PARTITION, Integer.class);
+        Long offset = in.getHeader(KafkaConstants.OFFSET, Long.class);
+        log.error("Error occurred for message from topic {}, partition {}, offset {}: {}", topic, partition, offset,
+                error != null ? error.getMessage() : null);
+        if (!isEnabled() || in.getBody() instanceof List<?>) {
+            return true;
+        }
+
+        KafkaMessage message = KafkaMessage.builder()
+                .id(topic + "-" + partition + "-" + offset)
+                .topic(topic)
+                .partition(partition)
+                .offset(offset)
+                .messageKey(in.getHeader(KafkaConstants.KEY, String.class))
+                .rawContent(in.getBody(byte[].class))
+                .build();
+        return deadLetter(message, sourceTopic(topic), error, "unhandled");
+    }
+
+    /**
+     * Wait until the redelivery time of a record from a retry topic, as the first step of the retry route.
+     * For a batch exchange this is the latest redelivery time in the batch. The wait is bounded by
+     * {@code retryMaxBackoffMs}, which must stay well below {@code maxPollIntervalMs}.
+     *
+     * @param exchange The exchange of the retry record or batch
+     */
+    public void awaitRedelivery(Exchange exchange) {
+        long notBefore = 0;
+        if (exchange.getIn().getBody() instanceof List<?> batch) {
+            for (Object item : batch) {
+                notBefore = Math.max(notBefore, headerLong(((Exchange) item).getIn().getHeader(NOT_BEFORE_HEADER), 0));
+            }
+        } else {
+            notBefore = headerLong(exchange.getIn().getHeader(NOT_BEFORE_HEADER), 0);
+        }
+        long waitMs = Math.min(notBefore - System.currentTimeMillis(), kafkaProperties.getRetryMaxBackoffMs());
+        if (waitMs > 0) {
+            try {
+                Thread.sleep(waitMs);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+
+    /**
+     * Get the redeliveries a record consumed from a retry topic already had.
+     *
+     * @param exchange The exchange of the record
+     * @return The attempt from the retry header, 0 for a first delivery
+     */
+    public int retryAttemptOf(Exchange exchange) {
+        return (int) headerLong(exchange.getIn().getHeader(ATTEMPT_HEADER), 0);
+    }
+
+    public int getPendingRetries() {
+        return pendingRetries.get();
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        int pending = pendingRetries.get();
+        if (pending > 0) {
+            log.warn("Dropping {} records waiting for a local retry", pending);
+        }
+        executor.shutdown();
+        try {
+            executor.awaitTermination(5, TimeUnit.SECONDS); // Let running publishes finish
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private void redeliver(KafkaMessage message, Consumer<KafkaMessage> handler, int attempt) {
+        pendingRetries.decrementAndGet();
+        message.setRetryAttempt(attempt);
+        try {
+            handler.accept(message);
+            recordRecovered(message);
+        } catch (Exception e) {
+            log.warn("Retry {} of message {} failed: {}", attempt, message.getId(), e.getMessage());
+            submit(message, e, handler);
+        }
+    }
+
+    /**
+     * Publish a record to its dead-letter topic, synchronously in {@link RetryMode#KAFKA} and on the pipeline's
+     * threads otherwise.
+     *
+     * @return false if the record was neither published nor deliberately dropped
+     */
+    private boolean deadLetter(KafkaMessage message, String sourceTopic, Exception error, String reason) {
+        counter("kafka.consumer.dlq.records", sourceTopic, "reason", reason).increment();
+        if (!kafkaProperties.isDlqEnabled()) {
+            log.error("Dropping message {} after {} deliveries ({})", message.getId(), message.getRetryAttempt() + 1, reason);
+            return true;
+        }
+        String dlqTopic = sourceTopic + kafkaProperties.getDlqTopicSuffix();
+        log.warn("Dead-lettering message {} to {} after {} deliveries ({})",
+                message.getId(), dlqTopic, message.getRetryAttempt() + 1, reason);
+        Map<String, Object> headers = failureHeaders(message, sourceTopic, error);
+        headers.put(DELIVERIES_HEADER, String.valueOf(message.getRetryAttempt() + 1));
+        if (kafkaProperties.getRetryMode() == RetryMode.KAFKA) {
+            return publish(dlqTopic, message, headers);
+        }
+        runAsync(message, () -> publish(dlqTopic, message, headers));
+        return true;
+    }
+
+    private boolean publish(String topic, KafkaMessage message, Map<String, Object> headers) {
+        try {
+            publisher.publish(topic, message.getMessageKey(), valueOf(message), headers);
+            return true;
+        } catch (Exception e) {
+            log.error("Failed to publish message {} to {}", message.getId(), topic, e);
+            counter("kafka.consumer.dlq.errors", sourceTopic(message.getTopic())).increment();
+            return false;
+        }
+    }
+
+    private void runAsync(KafkaMessage message, Runnable task) {
+        try {
+            executor.execute(task);
+        } catch (RejectedExecutionException e) {
+            log.error("Retry pipeline is shut down, dropping message {}", message.getId());
+        }
+    }
+
+    private Map<String, Object> failureHeaders(KafkaMessage message, String sourceTopic, Exception error) {
+        Map<String, Object> headers = new HashMap<>();
+        headers.put(SOURCE_TOPIC_HEADER, sourceTopic);
+        putIfPresent(headers, FAILED_TOPIC_HEADER, message.getTopic());
+        putIfPresent(headers, FAILED_PARTITION_HEADER, message.getPartition());
+        putIfPresent(headers, FAILED_OFFSET_HEADER, message.getOffset());
+        if (error != null) {
+            headers.put(EXCEPTION_CLASS_HEADER, error.getClass().getName());
+            putIfPresent(headers, EXCEPTION_MESSAGE_HEADER, error.getMessage());
+        }
+        headers.put(FAILED_AT_HEADER, Instant.now().toString());
+        return headers;
+    }
+
+    private static void putIfPresent(Map<String, Object> headers, String name, Object value) {
+        if (value != null) {
+            headers.put(name, value.toString());
+        }
+    }
+
+    /**
+     * The topic a record was first published to; records of a retry topic belong to its source topic.
+     */
+    private String sourceTopic(String topic) {
+        if (topic == null) {
+            return "unknown";
+        }
+        String suffix = kafkaProperties.getRetryTopicSuffix();
+        if (kafkaProperties.getRetryMode() == RetryMode.KAFKA && topic.endsWith(suffix)) {
+            return topic.substring(0, topic.length() - suffix.length());
+        }
+        return topic;
+    }
+
+    long backoffMillis(int attempt) {
+        double delay = kafkaProperties.getRetryBackoffMs() * Math.pow(kafkaProperties.getRetryBackoffMultiplier(), attempt - 1);
+        return (long) Math.min(delay, kafkaProperties.getRetryMaxBackoffMs());
+    }
+
+    private Counter counter(String name, String topic, String... tags) {
+        return Counter.builder(name)
+                .tag("topic", topic)
+                .tags(tags)
+                .register(meterRegistry);
+    }
+
+    private static byte[] valueOf(KafkaMessage message) {
+        if (message.getRawContent() instanceof byte[] bytes) {
+            return bytes;
+        }
+        ByteBuffer buffer = message.getContentBuffer();
+        if (buffer == null) {
+            return null;
+        }
+        byte[] bytes = new byte[buffer.remaining()];
+        buffer.get(bytes);
+        return bytes;
+    }
+
+    private static long headerLong(Object value, long fallback) {
+        try {
+            if (value instanceof byte[] bytes) {
+                return Long.parseLong(new String(bytes, StandardCharsets.UTF_8));
+            }
+            if (value instanceof Number number) {
+                return number.longValue();
+            }
+            return value != null ? Long.parseLong(value.toString()) : fallback;
+        } catch (NumberFormatException e) {
+            return fallback;
+        }
+    }
+
+    /**
+     * Sends one record to a topic.
+     */
+    interface RecordPublisher {
+        void publish(String topic, String key, byte[] value, Map<String, Object> headers) throws Exception;
+    }
+
+    /**
+     * Publishes through Camel Kafka producer endpoints, one per topic, sharing the consumer's security settings.
+     * The producer template is looked up on first use, once the Camel context is running.
+     */
+    private static final class CamelRecordPublisher implements RecordPublisher {
+
+        private final KafkaProperties kafkaProperties;
+        private final ObjectProvider<ProducerTemplate> producerTemplates;
+        private final Map<String, String> endpointUris = new ConcurrentHashMap<>();
+
+        private CamelRecordPublisher(KafkaProperties kafkaProperties, ObjectProvider<ProducerTemplate> producerTemplates) {
+            this.kafkaProperties = kafkaProperties;
+            this.producerTemplates = producerTemplates;
+        }
+
+        @Override
+        public void publish(String topic, String key, byte[] value, Map<String, Object> headers) {
+            Map<String, Object> allHeaders = new HashMap<>(headers);
+            if (key != null) {
+                allHeaders.put(KafkaConstants.KEY, key);
+            }
+            producerTemplates.getObject()
+                    .sendBodyAndHeaders(endpointUris.computeIfAbsent(topic, this::buildProducerUri), value, allHeaders);
+        }
+
+        private String buildProducerUri(String topic) {
+            StringBuilder uriBuilder = new StringBuilder();
+            uriBuilder.append("kafka:").append(topic);
+            uriBuilder.append("?brokers=").append(kafkaProperties.getBootstrapServers());
+            uriBuilder.append("&keySerializer=org.apache.kafka.common.serialization.StringSerializer");
+            uriBuilder.append("&valueSerializer=org.apache.kafka.common.serialization.ByteArraySerializer");
+            if (kafkaProperties.getAcks() != null) {
+                uriBuilder.append("&requestRequiredAcks=").append(kafkaProperties.getAcks());
+            }
+            if (kafkaProperties.getRetries() != null) {
+                uriBuilder.append("&retries=").append(kafkaProperties.getRetries());
+            }
+            if (kafkaProperties.getMaxInFlightRequestsPerConnection() != null) {
+                uriBuilder.append("&maxInFlightRequest=").append(kafkaProperties.getMaxInFlightRequestsPerConnection());
+            }
+            if (kafkaProperties.getEnableIdempotence() != null) {
+                uriBuilder.append("&enableIdempotence=").append(kafkaProperties.getEnableIdempotence());
+            }
+            KafkaConsumerRoute.appendSecurityOptions(uriBuilder, kafkaProperties);
+            log.info("Configured Kafka producer URI for topic {}", topic);
+            return uriBuilder.toString();
+        }
+    }
+}
@@ -1,14 +1,27 @@
 package com.dhi.camelkafka.route;
 
+import com.dhi.camelkafka.config.ConsumerTopology;
 import com.dhi.camelkafka.config.KafkaProperties;
+import com.dhi.camelkafka.config.RetryMode;
 import com.dhi.camelkafka.processor.KafkaMessageProcessor;
+import com.dhi.camelkafka.retry.RetryPipeline;
+import com.dhi.camelkafka.routing.RecordRouter;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.apache.camel.builder.RouteBuilder;
+import org.apache.camel.component.kafka.KafkaEndpoint;
+import org.apache.camel.model.RouteDefinition;
 import org.springframework.stereotype.Component;
 
+import java.util.List;
+import java.util.regex.Pattern;
+
 /**
  * Apache Camel route configuration for Kafka consumer with manual commits.
+ * Routes for topics subscribed at runtime are built by {@link #consumerRouteBuilder(TopicSubscription)}.
+ * In {@code retryMode=kafka} every consumer route has a retry route over its retry topics, created alongside it.
+ * Records that fail outside record processing are dead-lettered by the {@link RetryPipeline}; one that cannot be
+ * dead-lettered stops its route without being committed.
  */
 @Slf4j
 @Component
@@ -17,78 +30,166 @@ public class KafkaConsumerRoute extends RouteBuilder {
     
     private final KafkaProperties kafkaProperties;
     private final KafkaMessageProcessor messageProcessor;
+    private final RetryPipeline retryPipeline;
+    private final RecordRouter recordRouter;
     
     @Override
     public void configure() throws Exception {
         
         // Error handler for the route
-        onException(Exception.class)
-                .handled(true)
-                .log("Error in Kafka consumer route: ${exception.message}")
-                .to("direct:error-handler");
+        configureErrorHandling(this);
+        
+        if (kafkaProperties.isBatching() && kafkaProperties.getExecution().isAsynchronous()) {
+            log.warn("kafka.batching=true processes each poll on the consumer thread, kafka.execution={} is ignored",
+                    kafkaProperties.getExecution());
+        }
         
-        // Create consumer routes for all configured topics
-        java.util.List<String> topics = kafkaProperties.getAllTopics();
-        log.info("Configuring Kafka consumers for {} topics: {}", topics.size(), topics);
+        // Create consumer routes for all configured topics and the topic pattern
+        List<TopicSubscription> subscriptions = TopicSubscription.plan(kafkaProperties.getAllTopics(),
+                kafkaProperties.getTopicPattern(), kafkaProperties.isSharedConsumer(), kafkaProperties.getConsumers());
+        log.info("Configuring {} Kafka consumers: {}", subscriptions.size(), subscriptions);
         
-        for (String topicName : topics) {
-            String routeId = "kafka-consumer-route-" + topicName.replaceAll("[^a-zA-Z0-9]", "-");
-            
-            // Individual Kafka consumer route for each topic with manual commits
-            from(buildKafkaUri(topicName))
-                    .routeId(routeId)
-                    .log("Starting to process message from topic: " + topicName + " (${header.CamelKafkaPartition}:${header.CamelKafkaOffset})")
-                    .process(messageProcessor)
-                    .log("Successfully processed message from topic: " + topicName + " with manual commit");
+        for (TopicSubscription subscription : subscriptions) {
+            configureConsumer(this, subscription);
+            configureRetryConsumer(this, subscription);
         }
+    }
+    
+    /**
+     * Create a route builder for a consumer route that is added while the application is running,
+     * together with its retry route in {@code retryMode=kafka}.
+     * 
+     * @param subscription The topics or pattern the route consumes
+     * @return A route builder to pass to {@code CamelContext.addRoutes}
+     */
+    public RouteBuilder consumerRouteBuilder(TopicSubscription subscription) {
+        return new RouteBuilder() {
+            @Override
+            public void configure() {
+                configureErrorHandling(this);
+                configureConsumer(this, subscription);
+                configureRetryConsumer(this, subscription);
+            }
+        };
+    }
+    
+    private void configureErrorHandling(RouteBuilder builder) {
+        builder.onException(Exception.class)
+                .handled(true)
+                .log("Error in Kafka consumer route: ${exception.message}")
+                .process(messageProcessor::onRouteError);
+    }
+    
+    private void configureConsumer(RouteBuilder builder, TopicSubscription subscription) {
+        // The retry and dead-letter topics of matched topics usually match the pattern as well
+        KafkaEndpoint endpoint = endpoint(builder, subscription,
+                subscription.isPattern() ? excludingRetryTopics(subscription.pattern()) : null);
         
-        // Error handling route
-        from("direct:error-handler")
-                .routeId("error-handler-route")
-                .log("Processing error: ${body}")
-                .choice()
-                    .when(header("CamelKafkaPartition").isNotNull())
-                        .log("Error occurred for message from topic ${header.CamelKafkaTopic}, partition ${header.CamelKafkaPartition}, offset ${header.CamelKafkaOffset}")
-                    .otherwise()
-                        .log("Error occurred processing message");
+        // One consumer for the subscription; the record's own topic header identifies the source
+        RouteDefinition route = builder.from(endpoint)
+                .routeId(subscription.routeId());
+        if (recordRouter.isEnabled()) {
+            // Drop or branch records before they pay for extraction and processing; skipped records are only committed
+            route.process(recordRouter);
+        }
+        route.log("Starting to process message from topic: ${header.CamelKafkaTopic} (${header.CamelKafkaPartition}:${header.CamelKafkaOffset})")
+                .process(messageProcessor)
+                .log("Successfully processed message from topic: ${header.CamelKafkaTopic} with manual commit");
+        log.info("Configured Kafka consumer route {} for {}", subscription.routeId(), subscription.describe());
+    }
+    
+    /**
+     * Consume the retry topics of a subscription in {@code retryMode=kafka}, waiting for each record's due time
+     * off the main consumers. The route id is {@link TopicSubscription#retryRouteId()}.
+     * 
+     * @param builder The route builder to add the route to
+     * @param subscription The consumer route's subscription
+     */
+    private void configureRetryConsumer(RouteBuilder builder, TopicSubscription subscription) {
+        if (!kafkaProperties.isRetryEnabled() || kafkaProperties.getRetryMode() != RetryMode.KAFKA) {
+            return;
+        }
+        TopicSubscription retries = subscription.forRetries(kafkaProperties.getRetryTopicSuffix());
+        builder.from(endpoint(builder, retries, retries.pattern()))
+                .routeId(retries.routeId())
+                .process(retryPipeline::awaitRedelivery)
+                .log("Redelivering message from topic: ${header.CamelKafkaTopic} (${header.CamelKafkaPartition}:${header.CamelKafkaOffset})")
+                .process(messageProcessor);
+        log.info("Configured Kafka retry route {} for {}", retries.routeId(), retries.describe());
+    }
+    
+    private KafkaEndpoint endpoint(RouteBuilder builder, TopicSubscription subscription, String topicPattern) {
+        KafkaEndpoint endpoint = builder.getContext().getEndpoint(buildKafkaUri(subscription), KafkaEndpoint.class);
+        if (topicPattern != null) {
+            endpoint.getConfiguration().setTopic(topicPattern);
+            endpoint.getConfiguration().setTopicIsPattern(true);
+        }
+        return endpoint;
+    }
+    
+    /**
+     * Restrict a topic pattern to topics that are neither retry nor dead-letter topics.
+     * 
+     * @param pattern The subscribed topic regex
+     * @return The regex passed to the consumer
+     */
+    private String excludingRetryTopics(String pattern) {
+        return "(?!.*(?:" + Pattern.quote(kafkaProperties.getRetryTopicSuffix()) + "|"
+                + Pattern.quote(kafkaProperties.getDlqTopicSuffix()) + ")$)(?:" + pattern + ")";
     }
     
     /**
      * Builds the Kafka URI with manual commit configuration.
      * Supports both local and Confluent Cloud configurations.
      * 
-     * @param topicName The Kafka topic name
+     * @param subscription The topics or pattern of the route, with optional consumer overrides
      * @return The configured Kafka URI
      */
-    private String buildKafkaUri(String topicName) {
+    private String buildKafkaUri(TopicSubscription subscription) {
+        String topicName = subscription.endpointTopic();
+        ConsumerTopology consumer = subscription.consumer() != null ? subscription.consumer() : new ConsumerTopology();
         StringBuilder uriBuilder = new StringBuilder();
         uriBuilder.append("kafka:").append(topicName);
         uriBuilder.append("?brokers=").append(kafkaProperties.getBootstrapServers());
         uriBuilder.append("&groupId=").append(kafkaProperties.getGroupId());
         uriBuilder.append("&autoOffsetReset=").append(kafkaProperties.getAutoOffsetReset());
         uriBuilder.append("&allowManualCommit=true"); // Enable manual commits
-        uriBuilder.append("&maxPollRecords=").append(kafkaProperties.getMaxPollRecords());
+        uriBuilder.append("&maxPollRecords=").append(
+                consumer.getMaxPollRecords() != null ? consumer.getMaxPollRecords() : kafkaProperties.getMaxPollRecords());
+        uriBuilder.append("&consumersCount=").append(
+                consumer.getConsumersCount() != null ? consumer.getConsumersCount() : kafkaProperties.getConsumersCount());
+        
+        // Fetch tuning; unset options keep the Kafka client defaults
+        appendOption(uriBuilder, "fetchMinBytes", firstNonNull(consumer.getFetchMinBytes(), kafkaProperties.getFetchMinBytes()));
+        appendOption(uriBuilder, "fetchMaxBytes", firstNonNull(consumer.getFetchMaxBytes(), kafkaProperties.getFetchMaxBytes()));
+        appendOption(uriBuilder, "fetchWaitMaxMs", kafkaProperties.getFetchMaxWaitMs());
+        appendOption(uriBuilder, "maxPartitionFetchBytes",
+                firstNonNull(consumer.getMaxPartitionFetchBytes(), kafkaProperties.getMaxPartitionFetchBytes()));
+        appendOption(uriBuilder, "receiveBufferBytes", kafkaProperties.getReceiveBufferBytes());
+        appendOption(uriBuilder, "partitionAssignor", kafkaProperties.getPartitionAssignmentStrategy());
         uriBuilder.append("&sessionTimeoutMs=").append(kafkaProperties.getSessionTimeoutMs());
         uriBuilder.append("&maxPollIntervalMs=").append(kafkaProperties.getMaxPollIntervalMs());
         uriBuilder.append("&keyDeserializer=").append(kafkaProperties.getKeyDeserializer());
-        uriBuilder.append("&valueDeserializer=").append(kafkaProperties.getValueDeserializer());
-        
-        // Add Confluent Cloud / Security configuration if provided
-        // Only include parameters that are directly supported by Camel Kafka component
-        if (kafkaProperties.getSecurityProtocol() != null) {
-            uriBuilder.append("&securityProtocol=").append(kafkaProperties.getSecurityProtocol());
+        uriBuilder.append("&valueDeserializer=").append(kafkaProperties.getEffectiveValueDeserializer());
+        if (kafkaProperties.isBatching()) {
+            uriBuilder.append("&batching=true"); // Whole poll delivered as a List<Exchange>
         }
-        if (kafkaProperties.getSaslMechanism() != null) {
-            uriBuilder.append("&saslMechanism=").append(kafkaProperties.getSaslMechanism());
+        uriBuilder.append("&autoCommitEnable=").append(kafkaProperties.isEnableAutoCommit());
+        if (kafkaProperties.getMetadataMaxAgeMs() != null) {
+            uriBuilder.append("&metadataMaxAgeMs=").append(kafkaProperties.getMetadataMaxAgeMs()); // How soon pattern subscriptions see new topics
         }
-        if (kafkaProperties.getSaslJaasConfig() != null) {
-            uriBuilder.append("&saslJaasConfig=").append(kafkaProperties.getSaslJaasConfig());
+        uriBuilder.append("&kafkaClientFactory=#kafkaClientFactory"); // Binds Kafka client metrics to Micrometer
+        if (!kafkaProperties.isEnableAutoCommit()) {
+            // The offset committer issues commits from its own thread; they are executed by the consumer thread,
+            // which reports each result back to the committer
+            uriBuilder.append("&kafkaManualCommitFactory=#kafkaManualCommitFactory");
         }
         
-        // Note: Additional properties like ssl.endpoint.identification.algorithm, 
-        // client.dns.lookup, acks, max.in.flight.requests.per.connection, etc.
-        // will be handled by the underlying Kafka client with default values
-        // or can be configured via Spring Boot Kafka auto-configuration
+        // Add Confluent Cloud / Security configuration if provided
+        appendSecurityOptions(uriBuilder, kafkaProperties);
+        
+        // Client options without an endpoint option (client.dns.lookup and kafka.consumer-properties.*)
+        // are applied to the component configuration by KafkaComponentConfig
         
         // Add Schema Registry configuration if provided
         if (kafkaProperties.getSchemaRegistryUrl() != null) {
@@ -106,4 +207,34 @@ public class KafkaConsumerRoute extends RouteBuilder {
         
         return kafkaUri;
     }
+    
+    /**
+     * Append the Confluent Cloud / security options, shared by the consumer routes and the retry pipeline's producers.
+     * Only parameters that are directly supported by the Camel Kafka component are included.
+     * 
+     * @param uriBuilder The endpoint URI being built, already containing its query string
+     * @param kafkaProperties The Kafka configuration
+     */
+    public static void appendSecurityOptions(StringBuilder uriBuilder, KafkaProperties kafkaProperties) {
+        if (kafkaProperties.getSecurityProtocol() != null) {
+            uriBuilder.append("&securityProtocol=").append(kafkaProperties.getSecurityProtocol());
+        }
+        if (kafkaProperties.getSaslMechanism() != null) {
+            uriBuilder.append("&saslMechanism=").append(kafkaProperties.getSaslMechanism());
+        }
+        if (kafkaProperties.getSaslJaasConfig() != null) {
+            uriBuilder.append("&saslJaasConfig=").append(kafkaProperties.getSaslJaasConfig());
+        }
+        appendOption(uriBuilder, "sslEndpointAlgorithm", kafkaProperties.getSslEndpointIdentificationAlgorithm());
+    }
+    
+    private static void appendOption(StringBuilder uriBuilder, String option, Object value) {
+        if (value != null) {
+            uriBuilder.append('&').append(option).append('=').append(value);
+        }
+    }
+    
+    private static <T> T firstNonNull(T override, T fallback) {
+        return override != null ? override : fallback;
+    }
 }
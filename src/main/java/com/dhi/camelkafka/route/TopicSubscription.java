@@ -0,0 +1,122 @@
+package com.dhi.camelkafka.route;
+
+import com.dhi.camelkafka.config.ConsumerTopology;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.regex.Pattern;
+
+/**
+ * One consumer route and what it subscribes to: an explicit list of topics or a topic pattern.
+ *
+ * @param routeId The Camel route id
+ * @param topics The subscribed topics, empty for a pattern subscription
+ * @param pattern The topic regex, or null
+ * @param consumer The consumer topology entry with the route's consumer settings, or null for the global settings
+ */
+public record TopicSubscription(String routeId, List<String> topics, String pattern, ConsumerTopology consumer) {
+
+    private static final String ROUTE_PREFIX = "kafka-consumer-route-";
+    private static final String RETRY_ROUTE_PREFIX = "kafka-retry-route-";
+
+    public static TopicSubscription forTopic(String topic) {
+        return new TopicSubscription(ROUTE_PREFIX + sanitize(topic), List.of(topic), null, null);
+    }
+
+    public static TopicSubscription forTopics(Collection<String> topics) {
+        return new TopicSubscription(ROUTE_PREFIX + "shared", List.copyOf(topics), null, null);
+    }
+
+    public static TopicSubscription forPattern(String pattern) {
+        return new TopicSubscription(ROUTE_PREFIX + "pattern", List.of(), pattern, null);
+    }
+
+    /**
+     * Work out the consumer routes for a set of topics and an optional pattern.
+     * The pattern is always served by one route. Subscribed topics listed in a consumer topology entry are
+     * served by that entry's route; the remaining topics get one route each, or share one when
+     * {@code sharedConsumer} is set.
+     *
+     * @param topics Explicitly subscribed topics
+     * @param pattern Topic regex, may be null
+     * @param sharedConsumer Whether the remaining topics share one route
+     * @param consumers Consumer topology entries
+     * @return The consumer routes
+     */
+    public static List<TopicSubscription> plan(Collection<String> topics, String pattern, boolean sharedConsumer,
+                                               List<ConsumerTopology> consumers) {
+        List<TopicSubscription> subscriptions = new ArrayList<>();
+        if (pattern != null && !pattern.isBlank()) {
+            subscriptions.add(forPattern(pattern));
+        }
+
+        Set<String> claimed = new HashSet<>();
+        for (int i = 0; i < consumers.size(); i++) {
+            ConsumerTopology consumer = consumers.get(i);
+            List<String> served = consumer.getTopics().stream()
+                    .filter(topic -> topics.contains(topic) && claimed.add(topic))
+                    .toList();
+            if (!served.isEmpty()) {
+                String name = consumer.getName() != null ? consumer.getName() : "consumer-" + i;
+                subscriptions.add(new TopicSubscription(ROUTE_PREFIX + sanitize(name), served, null, consumer));
+            }
+        }
+
+        List<String> remaining = topics.stream().filter(topic -> !claimed.contains(topic)).toList();
+        if (sharedConsumer) {
+            if (!remaining.isEmpty()) {
+                subscriptions.add(forTopics(remaining));
+            }
+        } else {
+            remaining.forEach(topic -> subscriptions.add(forTopic(topic)));
+        }
+        return subscriptions;
+    }
+
+    /**
+     * The subscription of the retry route that redelivers this subscription's records in {@code retryMode=kafka}:
+     * the retry topic of each topic, or the pattern followed by the retry suffix. Uses the global consumer settings.
+     *
+     * @param retryTopicSuffix The suffix of the retry topics
+     * @return The retry route's subscription
+     */
+    public TopicSubscription forRetries(String retryTopicSuffix) {
+        if (isPattern()) {
+            return new TopicSubscription(retryRouteId(), List.of(), "(?:" + pattern + ")" + Pattern.quote(retryTopicSuffix), null);
+        }
+        return new TopicSubscription(retryRouteId(), topics.stream().map(topic -> topic + retryTopicSuffix).toList(), null, null);
+    }
+
+    /**
+     * The id of the retry route that belongs to this subscription, whether or not it exists.
+     */
+    public String retryRouteId() {
+        return RETRY_ROUTE_PREFIX + routeId.substring(routeId.startsWith(ROUTE_PREFIX) ? ROUTE_PREFIX.length() : 0);
+    }
+
+    public boolean isPattern() {
+        return pattern != null;
+    }
+
+    /**
+     * The topic part of the endpoint URI. A regex cannot be put into a URI path safely, so pattern
+     * endpoints get a stable placeholder and the pattern is set on the endpoint configuration.
+     */
+    public String endpointTopic() {
+        return isPattern() ? "pattern-" + Integer.toHexString(pattern.hashCode()) : String.join(",", topics);
+    }
+
+    /**
+     * Human readable description for logs.
+     */
+    public String describe() {
+        return isPattern() ? "pattern " + pattern : "topics " + topics;
+    }
+
+    private static String sanitize(String name) {
+        return name.replaceAll("[^a-zA-Z0-9]", "-");
+    }
+}
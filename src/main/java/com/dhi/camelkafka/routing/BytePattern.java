@@ -0,0 +1,126 @@
+package com.dhi.camelkafka.routing;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+/**
+ * A UTF-8 byte sequence matched against raw record values without decoding them.
+ * <p>
+ * Substring search uses Boyer-Moore-Horspool with a shift table built once, so most positions of the value are
+ * skipped rather than compared. {@code byte[]} and {@code ByteBuffer} values are searched in place;
+ * values already deserialized to a String are searched as text.
+ */
+public final class BytePattern {
+
+    private final String text;
+    private final byte[] bytes;
+    private final int[] shift = new int[256];
+
+    public BytePattern(String text) {
+        if (text == null || text.isEmpty()) {
+            throw new IllegalArgumentException("Byte pattern must not be empty");
+        }
+        this.text = text;
+        this.bytes = text.getBytes(StandardCharsets.UTF_8);
+        int last = bytes.length - 1;
+        Arrays.fill(shift, bytes.length);
+        for (int i = 0; i < last; i++) {
+            shift[bytes[i] & 0xff] = last - i;
+        }
+    }
+
+    /**
+     * Check whether the pattern occurs anywhere in a record value.
+     *
+     * @param value The raw record value
+     * @return true if the value contains the pattern, false otherwise or for unsupported value types
+     */
+    public boolean occursIn(Object value) {
+        if (value instanceof byte[] array) {
+            return indexIn(array, 0, array.length) >= 0;
+        }
+        if (value instanceof ByteBuffer buffer) {
+            if (buffer.hasArray()) {
+                return indexIn(buffer.array(), buffer.arrayOffset() + buffer.position(), buffer.remaining()) >= 0;
+            }
+            return indexIn(buffer) >= 0;
+        }
+        if (value instanceof String string) {
+            return string.contains(text);
+        }
+        return false;
+    }
+
+    /**
+     * Check whether a record value starts with the pattern.
+     *
+     * @param value The raw record value
+     * @return true if the value starts with the pattern, false otherwise or for unsupported value types
+     */
+    public boolean isPrefixOf(Object value) {
+        if (value instanceof byte[] array) {
+            return Arrays.equals(array, 0, Math.min(bytes.length, array.length), bytes, 0, bytes.length);
+        }
+        if (value instanceof ByteBuffer buffer) {
+            if (buffer.remaining() < bytes.length) {
+                return false;
+            }
+            for (int i = 0; i < bytes.length; i++) {
+                if (buffer.get(buffer.position() + i) != bytes[i]) {
+                    return false;
+                }
+            }
+            return true;
+        }
+        if (value instanceof String string) {
+            return string.startsWith(text);
+        }
+        return false;
+    }
+
+    /**
+     * Find the pattern in a slice of an array.
+     *
+     * @return The index of the first occurrence relative to the array, or -1
+     */
+    int indexIn(byte[] haystack, int from, int length) {
+        int last = bytes.length - 1;
+        int end = from + length - bytes.length;
+        int position = from;
+        while (position <= end) {
+            int i = last;
+            while (haystack[position + i] == bytes[i]) {
+                if (i == 0) {
+                    return position;
+                }
+                i--;
+            }
+            position += shift[haystack[position + last] & 0xff];
+        }
+        return -1;
+    }
+
+    private int indexIn(ByteBuffer haystack) {
+        int last = bytes.length - 1;
+        int from = haystack.position();
+        int end = haystack.limit() - bytes.length;
+        int position = from;
+        while (position <= end) {
+            int i = last;
+            while (haystack.get(position + i) == bytes[i]) {
+                if (i == 0) {
+                    return position - from;
+                }
+                i--;
+            }
+            position += shift[haystack.get(position + last) & 0xff];
+        }
+        return -1;
+    }
+
+    @Override
+    public String toString() {
+        return text;
+    }
+}
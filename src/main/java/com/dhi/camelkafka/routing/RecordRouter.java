@@ -0,0 +1,222 @@
+package com.dhi.camelkafka.routing;
+
+import com.dhi.camelkafka.config.RoutingAction;
+import com.dhi.camelkafka.config.RoutingProperties;
+import com.dhi.camelkafka.config.RoutingRule;
+import com.dhi.camelkafka.metrics.ConsumerMetrics;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.camel.Exchange;
+import org.apache.camel.Message;
+import org.apache.camel.Processor;
+import org.apache.camel.ProducerTemplate;
+import org.apache.camel.component.kafka.KafkaConstants;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.stereotype.Component;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.regex.Pattern;
+
+/**
+ * Content-based routing stage in front of the message processor.
+ * <p>
+ * Rules are compiled once at startup and evaluated in order on every record, cheapest predicate first: topic,
+ * key, headers, then byte patterns on the raw value, which is never decoded. The first matching rule decides
+ * whether the record is processed, dropped or sent to another endpoint; records no rule matches get the default
+ * action. Dropped and routed records are marked with {@link #SKIPPED_PROPERTY} and the processor only commits them.
+ * Hits are counted per rule.
+ */
+@Slf4j
+@Component
+public class RecordRouter implements Processor {
+
+    public static final String SKIPPED_PROPERTY = "kafkaRecordSkipped";
+
+    private final boolean enabled;
+    private final CompiledRule[] rules;
+    private final RoutingAction defaultAction;
+    private final Counter defaultHits;
+    private final ObjectProvider<ProducerTemplate> producerTemplates;
+
+    public RecordRouter(RoutingProperties routingProperties, ConsumerMetrics consumerMetrics,
+                        ObjectProvider<ProducerTemplate> producerTemplates) {
+        this.producerTemplates = producerTemplates;
+        this.defaultAction = routingProperties.getDefaultAction();
+        if (defaultAction == RoutingAction.ROUTE) {
+            throw new IllegalArgumentException("The default routing action must be process or drop");
+        }
+        MeterRegistry registry = consumerMetrics.getMeterRegistry();
+        List<RoutingRule> configured = routingProperties.getRules();
+        this.rules = new CompiledRule[configured.size()];
+        for (int i = 0; i < rules.length; i++) {
+            RoutingRule rule = configured.get(i);
+            String name = rule.getName() != null ? rule.getName() : "rule-" + i;
+            rules[i] = new CompiledRule(name, rule, hits(registry, name, rule.getAction()));
+        }
+        this.defaultHits = hits(registry, "default", defaultAction);
+        this.enabled = routingProperties.isEnabled();
+        if (enabled) {
+            log.info("Routing records with {} rules, default action {}", rules.length, defaultAction);
+        }
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Route the record of the exchange, or each record of a batch exchange.
+     *
+     * @param exchange The exchange of a record or a batch
+     * @throws Exception If sending a record to a rule's endpoint fails
+     */
+    @Override
+    public void process(Exchange exchange) throws Exception {
+        if (exchange.getIn().getBody() instanceof List<?> batch) {
+            for (Object item : batch) {
+                route((Exchange) item);
+            }
+        } else {
+            route(exchange);
+        }
+    }
+
+    /**
+     * Apply the first matching rule to one record.
+     *
+     * @param exchange The record's exchange
+     * @return The action taken
+     * @throws Exception If sending the record to the rule's endpoint fails
+     */
+    RoutingAction route(Exchange exchange) throws Exception {
+        Message in = exchange.getIn();
+        String topic = in.getHeader(KafkaConstants.TOPIC, String.class);
+        CompiledRule match = null;
+        for (CompiledRule rule : rules) {
+            if (rule.matches(topic, in)) {
+                match = rule;
+                break;
+            }
+        }
+
+        RoutingAction action = match != null ? match.action : defaultAction;
+        (match != null ? match.hits : defaultHits).increment();
+        if (action == RoutingAction.ROUTE) {
+            Exchange sent = producerTemplates.getObject().send(match.endpoint, exchange.copy());
+            if (sent.getException() != null) {
+                throw sent.getException();
+            }
+        }
+        if (action != RoutingAction.PROCESS) {
+            exchange.setProperty(SKIPPED_PROPERTY, Boolean.TRUE);
+        }
+        return action;
+    }
+
+    private static Counter hits(MeterRegistry registry, String rule, RoutingAction action) {
+        return Counter.builder("kafka.consumer.routing.hits")
+                .description("Records matched by a routing rule")
+                .tags("rule", rule, "action", action.name().toLowerCase())
+                .register(registry);
+    }
+
+    /**
+     * A rule with its predicates prepared for evaluation.
+     */
+    private static final class CompiledRule {
+        private final Set<String> topics; // Null matches all topics
+        private final String keyEquals;
+        private final String keyPrefix;
+        private final Pattern keyPattern;
+        private final boolean needsKey;
+        private final String[] headerNames;
+        private final byte[][] headerValues;
+        private final BytePattern valueStartsWith;
+        private final BytePattern[] valueContains;
+        private final BytePattern[] valueNotContains;
+        private final boolean needsValue;
+        private final RoutingAction action;
+        private final String endpoint;
+        private final Counter hits;
+
+        CompiledRule(String name, RoutingRule rule, Counter hits) {
+            this.topics = rule.getTopics().isEmpty() ? null : new HashSet<>(rule.getTopics());
+            this.keyEquals = rule.getKeyEquals();
+            this.keyPrefix = rule.getKeyPrefix();
+            this.keyPattern = rule.getKeyPattern() != null ? Pattern.compile(rule.getKeyPattern()) : null;
+            this.needsKey = keyEquals != null || keyPrefix != null || keyPattern != null;
+            this.headerNames = rule.getHeaders().keySet().toArray(new String[0]);
+            this.headerValues = new byte[headerNames.length][];
+            for (int i = 0; i < headerNames.length; i++) {
+                headerValues[i] = rule.getHeaders().get(headerNames[i]).getBytes(StandardCharsets.UTF_8);
+            }
+            this.valueStartsWith = rule.getValueStartsWith() != null ? new BytePattern(rule.getValueStartsWith()) : null;
+            this.valueContains = rule.getValueContains().stream().map(BytePattern::new).toArray(BytePattern[]::new);
+            this.valueNotContains = rule.getValueNotContains().stream().map(BytePattern::new).toArray(BytePattern[]::new);
+            this.needsValue = valueStartsWith != null || valueContains.length > 0 || valueNotContains.length > 0;
+            this.action = rule.getAction();
+            this.endpoint = rule.getEndpoint();
+            this.hits = hits;
+            if (action == RoutingAction.ROUTE && (endpoint == null || endpoint.isBlank())) {
+                throw new IllegalArgumentException("Routing rule " + name + " routes records but has no endpoint");
+            }
+        }
+
+        boolean matches(String topic, Message in) {
+            if (topics != null && (topic == null || !topics.contains(topic))) {
+                return false;
+            }
+            if (needsKey && !keyMatches(in.getHeader(KafkaConstants.KEY))) {
+                return false;
+            }
+            if (headerNames.length > 0) {
+                Map<String, Object> headers = in.getHeaders();
+                for (int i = 0; i < headerNames.length; i++) {
+                    if (!headerMatches(headers.get(headerNames[i]), headerValues[i])) {
+                        return false;
+                    }
+                }
+            }
+            if (needsValue) {
+                Object value = in.getBody();
+                if (valueStartsWith != null && !valueStartsWith.isPrefixOf(value)) {
+                    return false;
+                }
+                for (BytePattern pattern : valueContains) {
+                    if (!pattern.occursIn(value)) {
+                        return false;
+                    }
+                }
+                for (BytePattern pattern : valueNotContains) {
+                    if (pattern.occursIn(value)) {
+                        return false;
+                    }
+                }
+            }
+            return true;
+        }
+
+        private boolean keyMatches(Object keyHeader) {
+            if (keyHeader == null) {
+                return false;
+            }
+            String key = keyHeader.toString();
+            return (keyEquals == null || keyEquals.equals(key))
+                    && (keyPrefix == null || key.startsWith(keyPrefix))
+                    && (keyPattern == null || keyPattern.matcher(key).matches());
+        }
+
+        private static boolean headerMatches(Object value, byte[] expected) {
+            if (value instanceof byte[] bytes) {
+                return Arrays.equals(bytes, expected); // Kafka header values arrive as raw bytes
+            }
+            return value != null && Arrays.equals(value.toString().getBytes(StandardCharsets.UTF_8), expected);
+        }
+    }
+}
@@ -1,13 +1,22 @@
 package com.dhi.camelkafka.service;
 
+import com.dhi.camelkafka.config.DashboardProperties;
 import com.dhi.camelkafka.model.KafkaMessage;
+import com.dhi.camelkafka.store.BoundedRingBuffer;
+import com.dhi.camelkafka.store.MessageIndex;
+import com.dhi.camelkafka.store.MessageJournal;
+import com.dhi.camelkafka.store.MessageQuery;
+import com.dhi.camelkafka.store.SlidingWindowCounter;
+import com.dhi.camelkafka.store.TopicPartitionCounters;
+import jakarta.annotation.PreDestroy;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.stereotype.Service;
 
+import java.io.IOException;
+import java.nio.file.Path;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.List;
-import java.util.concurrent.CopyOnWriteArrayList;
 
 /**
  * Service to manage and provide access to recent Kafka messages for the dashboard.
@@ -16,25 +25,41 @@ import java.util.concurrent.CopyOnWriteArrayList;
 @Service
 public class DashboardService {
     
-    private static final int MAX_MESSAGES = 100; // Keep last 100 messages
+    private static final int RATE_WINDOW_SECONDS = 300;
     
-    // Thread-safe list to store recent messages
-    private final CopyOnWriteArrayList<KafkaMessage> recentMessages = new CopyOnWriteArrayList<>();
+    // Lock-free ring buffer holding the most recent messages
+    private final BoundedRingBuffer<KafkaMessage> recentMessages;
+    
+    // Topic, partition, key and time indexes over the ring buffer, evicted with it
+    private final MessageIndex messageIndex;
+    
+    // Lifetime statistics, maintained incrementally so getStats never scans messages
+    private final TopicPartitionCounters counters = new TopicPartitionCounters();
+    private final SlidingWindowCounter messageRate = new SlidingWindowCounter(RATE_WINDOW_SECONDS);
+    
+    // Optional off-heap journal of older messages, null when disabled
+    private final MessageJournal journal;
+    
+    public DashboardService(DashboardProperties dashboardProperties) {
+        this.recentMessages = new BoundedRingBuffer<>(dashboardProperties.getMaxMessages());
+        this.messageIndex = new MessageIndex(recentMessages);
+        log.info("Dashboard keeps the last {} messages", dashboardProperties.getMaxMessages());
+        this.journal = dashboardProperties.isJournalEnabled() ? openJournal(dashboardProperties) : null;
+    }
     
     /**
      * Add a new message to the dashboard.
-     * Maintains only the most recent MAX_MESSAGES.
+     * Once the configured capacity is reached the oldest message is overwritten.
      * 
      * @param message The Kafka message to add
      */
     public void addMessage(KafkaMessage message) {
-        recentMessages.add(0, message); // Add to beginning of list
-        
-        // Remove old messages if we exceed the limit
-        while (recentMessages.size() > MAX_MESSAGES) {
-            recentMessages.remove(recentMessages.size() - 1);
+        messageIndex.add(message);
+        if (journal != null) {
+            appendToJournal(message);
         }
-        
+        counters.record(message.getTopic(), message.getPartition(), message.getOffset());
+        messageRate.increment(System.currentTimeMillis());
         log.debug("Added message to dashboard: {}", message.getId());
     }
     
@@ -44,7 +69,7 @@ public class DashboardService {
      * @return List of recent Kafka messages (most recent first)
      */
     public List<KafkaMessage> getRecentMessages() {
-        return new ArrayList<>(recentMessages);
+        return recentMessages.snapshot();
     }
     
     /**
@@ -54,9 +79,84 @@ public class DashboardService {
      * @return List of messages for the specified topic
      */
     public List<KafkaMessage> getMessagesByTopic(String topic) {
-        return recentMessages.stream()
-                .filter(message -> topic.equals(message.getTopic()))
-                .toList();
+        return messageIndex.search(MessageQuery.forTopic(topic), Long.MAX_VALUE, Integer.MAX_VALUE).messages();
+    }
+    
+    /**
+     * Find retained messages through the topic, partition, key and time indexes, newest first.
+     * Pass the returned {@code nextBefore} as {@code before} to get the next page.
+     * 
+     * @param query The filters
+     * @param before Exclusive upper bound sequence, null for the newest messages
+     * @param limit Maximum number of messages
+     * @return The page of matching messages
+     */
+    public MessagePage findMessages(MessageQuery query, Long before, int limit) {
+        MessageIndex.Result result = messageIndex.search(query, before != null ? before : Long.MAX_VALUE, limit);
+        return MessagePage.builder()
+                .messages(result.messages())
+                .nextBefore(result.nextBefore() >= 0 ? result.nextBefore() : null)
+                .scanned(result.scanned())
+                .build();
+    }
+    
+    /**
+     * Get retained messages with a sequence in {@code (afterSequence, upToSequence]}, oldest first.
+     * Used by the dashboard stream to push only what a viewer has not seen yet.
+     * 
+     * @param afterSequence Exclusive lower bound, -1 for all retained messages
+     * @param upToSequence Inclusive upper bound
+     * @return Messages with their sequence numbers, oldest first
+     */
+    public List<SequencedMessage> getMessagesBetween(long afterSequence, long upToSequence) {
+        List<SequencedMessage> messages = new ArrayList<>();
+        recentMessages.forEachSince(afterSequence, (sequence, message) -> {
+            if (sequence <= upToSequence) {
+                messages.add(new SequencedMessage(sequence, message));
+            }
+            return true;
+        });
+        Collections.reverse(messages);
+        return messages;
+    }
+    
+    /**
+     * Visit retained messages with a sequence in {@code [fromSequence, toSequence)}, most recent first,
+     * straight from the ring buffer without copying them into a list.
+     * 
+     * @param fromSequence Inclusive lower bound
+     * @param toSequence Exclusive upper bound
+     * @param visitor Callback receiving the sequence and message; returning false stops the iteration
+     */
+    public void forEachMessage(long fromSequence, long toSequence, BoundedRingBuffer.SequencedVisitor<KafkaMessage> visitor) {
+        recentMessages.forEachBetween(fromSequence, toSequence, visitor);
+    }
+    
+    /**
+     * Get the sequence of the oldest retained message.
+     * 
+     * @return The oldest sequence, greater than the latest sequence when nothing is retained
+     */
+    public long getOldestSequence() {
+        return recentMessages.oldestSequence();
+    }
+    
+    /**
+     * Get the sequence of the most recently added message.
+     * 
+     * @return The latest sequence, or -1 if no message was added yet
+     */
+    public long getLatestSequence() {
+        return recentMessages.nextSequence() - 1;
+    }
+    
+    /**
+     * Get the number of messages the dashboard retains.
+     * 
+     * @return The configured capacity
+     */
+    public int getCapacity() {
+        return recentMessages.getCapacity();
     }
     
     /**
@@ -68,8 +168,51 @@ public class DashboardService {
         return recentMessages.size();
     }
     
+    /**
+     * Check whether messages are also kept in the journal.
+     * 
+     * @return true if the journal is enabled
+     */
+    public boolean isJournalEnabled() {
+        return journal != null;
+    }
+    
+    /**
+     * Page through journaled messages, newest first.
+     * Pass the returned {@code nextBefore} as {@code before} to get the next older page.
+     * 
+     * @param before Exclusive upper bound sequence, null for the newest messages
+     * @param until Only messages journaled at or before this epoch millis, null for no bound
+     * @param limit Maximum number of messages
+     * @return The page of messages
+     */
+    public JournalPage getJournalPage(Long before, Long until, int limit) {
+        if (journal == null) {
+            throw new IllegalStateException("The message journal is disabled (dashboard.journalEnabled=false)");
+        }
+        long upperBound = before != null ? before : Long.MAX_VALUE;
+        if (until != null) {
+            upperBound = Math.min(upperBound, journal.sequenceAfter(until));
+        }
+        List<MessageJournal.Entry> entries = journal.readBefore(upperBound, limit);
+        Long nextBefore = null;
+        if (!entries.isEmpty()) {
+            long oldest = entries.get(entries.size() - 1).sequence();
+            nextBefore = oldest > journal.getFirstSequence() ? oldest : null;
+        }
+        return JournalPage.builder()
+                .messages(entries)
+                .nextBefore(nextBefore)
+                .firstSequence(journal.getFirstSequence())
+                .nextSequence(journal.getNextSequence())
+                .segments(journal.getSegmentCount())
+                .sizeBytes(journal.getSizeBytes())
+                .build();
+    }
+    
     /**
      * Clear all messages from the dashboard.
+     * Lifetime statistics and the journal are kept.
      */
     public void clearMessages() {
         recentMessages.clear();
@@ -78,31 +221,94 @@ public class DashboardService {
     
     /**
      * Get dashboard statistics.
+     * Cost is proportional to the number of topics and partitions seen, not the number of messages.
      * 
      * @return Dashboard statistics
      */
     public DashboardStats getStats() {
+        long now = System.currentTimeMillis();
         return DashboardStats.builder()
                 .totalMessages(recentMessages.size())
-                .topicsCount(recentMessages.stream()
-                        .map(KafkaMessage::getTopic)
-                        .distinct()
-                        .count())
-                .partitionsCount(recentMessages.stream()
-                        .map(msg -> msg.getTopic() + "-" + msg.getPartition())
-                        .distinct()
-                        .count())
+                .lifetimeMessages(counters.getTotal())
+                .topicsCount(counters.getTopicCount())
+                .partitionsCount(counters.getPartitionCount())
+                .messagesPerSecond10s(messageRate.ratePerSecond(now, 10))
+                .messagesPerSecond1m(messageRate.ratePerSecond(now, 60))
+                .messagesPerSecond5m(messageRate.ratePerSecond(now, 300))
+                .topics(counters.snapshot())
                 .build();
     }
     
+    @PreDestroy
+    public void closeJournal() {
+        if (journal != null) {
+            journal.close();
+        }
+    }
+    
+    private void appendToJournal(KafkaMessage message) {
+        try {
+            journal.append(message);
+        } catch (RuntimeException e) {
+            // The journal is a diagnostic aid; failing to write it must not fail processing
+            log.warn("Could not journal message {}: {}", message.getId(), e.getMessage());
+        }
+    }
+    
+    private static MessageJournal openJournal(DashboardProperties dashboardProperties) {
+        Path directory = Path.of(dashboardProperties.getJournalDirectory());
+        try {
+            return new MessageJournal(directory, dashboardProperties.getJournalSegmentBytes(),
+                    dashboardProperties.getJournalRetentionBytes(), dashboardProperties.getJournalRetentionMs());
+        } catch (IOException e) {
+            throw new IllegalStateException("Could not open the message journal in " + directory.toAbsolutePath(), e);
+        }
+    }
+    
+    /**
+     * A retained message together with its insertion sequence.
+     */
+    public record SequencedMessage(long sequence, KafkaMessage message) {
+    }
+    
     /**
      * Statistics for the dashboard.
      */
     @lombok.Data
     @lombok.Builder
     public static class DashboardStats {
-        private int totalMessages;
+        private int totalMessages; // Messages currently retained by the dashboard
+        private long lifetimeMessages;
         private long topicsCount;
         private long partitionsCount;
+        private double messagesPerSecond10s;
+        private double messagesPerSecond1m;
+        private double messagesPerSecond5m;
+        private List<TopicPartitionCounters.TopicCount> topics; // Per-topic/partition totals and last offsets
+    }
+    
+    /**
+     * One page of indexed query results.
+     */
+    @lombok.Data
+    @lombok.Builder
+    public static class MessagePage {
+        private List<KafkaMessage> messages; // Newest first
+        private Long nextBefore; // Cursor for the next page, null on the last page
+        private int scanned; // Index entries examined for this page
+    }
+    
+    /**
+     * One page of journaled messages.
+     */
+    @lombok.Data
+    @lombok.Builder
+    public static class JournalPage {
+        private List<MessageJournal.Entry> messages; // Newest first
+        private Long nextBefore; // Cursor for the next older page, null on the last page
+        private long firstSequence; // Oldest retained sequence
+        private long nextSequence;
+        private int segments;
+        private long sizeBytes;
     }
 }
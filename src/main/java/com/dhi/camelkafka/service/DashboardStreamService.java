@@ -0,0 +1,184 @@
+package com.dhi.camelkafka.service;
+
+import com.dhi.camelkafka.config.DashboardProperties;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Service;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Pushes new dashboard messages and statistics changes to Server-Sent Events viewers.
+ * <p>
+ * A single scheduler thread checks the dashboard sequence once per interval. New messages are
+ * serialized once per distinct viewer cursor (normally one) and the same payload is written to every
+ * viewer, so the cost of an extra viewer is one socket write of the delta, not a full list serialization.
+ * Each event id is the last delivered sequence, so a reconnecting browser resumes via {@code Last-Event-ID}.
+ */
+@Slf4j
+@Service
+public class DashboardStreamService {
+
+    private final DashboardService dashboardService;
+    private final DashboardProperties dashboardProperties;
+    private final ObjectMapper objectMapper;
+    private final List<Subscriber> subscribers = new CopyOnWriteArrayList<>();
+    private final ScheduledExecutorService scheduler;
+
+    // Only accessed by the scheduler thread
+    private String lastStatsPayload;
+
+    public DashboardStreamService(DashboardService dashboardService, DashboardProperties dashboardProperties,
+                                  ObjectMapper objectMapper) {
+        this.dashboardService = dashboardService;
+        this.dashboardProperties = dashboardProperties;
+        this.objectMapper = objectMapper;
+        this.scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "dashboard-stream");
+            thread.setDaemon(true);
+            return thread;
+        });
+        long interval = Math.max(50, dashboardProperties.getStreamIntervalMs());
+        scheduler.scheduleWithFixedDelay(this::broadcastQuietly, interval, interval, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Open a stream for a viewer.
+     *
+     * @param since Last sequence the viewer has seen; null streams only new messages, -1 replays all retained.
+     *              A sequence ahead of the dashboard, e.g. from before a restart, replays all retained as well
+     * @return The emitter to return from the controller
+     */
+    public SseEmitter subscribe(Long since) {
+        SseEmitter emitter = new SseEmitter(dashboardProperties.getStreamTimeoutMs());
+        long latest = dashboardService.getLatestSequence();
+        long cursor = since == null ? latest : since > latest ? -1 : since;
+        Subscriber subscriber = new Subscriber(emitter, cursor);
+
+        emitter.onCompletion(() -> subscribers.remove(subscriber));
+        emitter.onTimeout(() -> subscribers.remove(subscriber));
+        emitter.onError(error -> subscribers.remove(subscriber));
+        subscribers.add(subscriber);
+        log.debug("Dashboard stream opened at sequence {}, {} viewers", cursor, subscribers.size());
+
+        // Deliver the catch-up batch and current statistics without waiting for the next tick
+        scheduler.execute(this::broadcastQuietly);
+        return emitter;
+    }
+
+    public int getSubscriberCount() {
+        return subscribers.size();
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        scheduler.shutdownNow();
+        for (Subscriber subscriber : subscribers) {
+            subscriber.emitter.complete();
+        }
+        subscribers.clear();
+    }
+
+    private void broadcastQuietly() {
+        try {
+            broadcast();
+        } catch (Exception e) {
+            log.error("Error broadcasting dashboard stream", e);
+        }
+    }
+
+    private void broadcast() throws JsonProcessingException {
+        if (subscribers.isEmpty()) {
+            return;
+        }
+        long head = dashboardService.getLatestSequence();
+        long now = System.currentTimeMillis();
+        String statsDelta = statsPayloadIfChanged();
+        Map<Long, String> messagesByCursor = new HashMap<>();
+
+        for (Subscriber subscriber : subscribers) {
+            try {
+                boolean sent = false;
+                if (subscriber.cursor < head) {
+                    String payload = messagesByCursor.get(subscriber.cursor);
+                    if (payload == null) {
+                        payload = objectMapper.writeValueAsString(
+                                dashboardService.getMessagesBetween(subscriber.cursor, head));
+                        messagesByCursor.put(subscriber.cursor, payload);
+                    }
+                    subscriber.emitter.send(SseEmitter.event()
+                            .name("messages")
+                            .id(Long.toString(head))
+                            .data(payload, MediaType.APPLICATION_JSON));
+                    subscriber.cursor = head;
+                    sent = true;
+                }
+                if (statsDelta != null || !subscriber.statsSent) {
+                    subscriber.emitter.send(SseEmitter.event()
+                            .name("stats")
+                            .data(lastStatsPayload, MediaType.APPLICATION_JSON));
+                    subscriber.statsSent = true;
+                    sent = true;
+                }
+                if (sent) {
+                    subscriber.lastSendMillis = now;
+                } else if (now - subscriber.lastSendMillis >= dashboardProperties.getStreamHeartbeatMs()) {
+                    subscriber.emitter.send(SseEmitter.event().comment("keep-alive"));
+                    subscriber.lastSendMillis = now;
+                }
+            } catch (IOException | IllegalStateException e) {
+                // Viewer went away; the emitter callbacks may not fire for a broken connection
+                subscribers.remove(subscriber);
+                log.debug("Dropped dashboard stream viewer: {}", e.getMessage());
+            }
+        }
+    }
+
+    /**
+     * The streamed statistics if any of them changed since the last tick. Compared as a whole rather than by
+     * message count, so that the rates are pushed as they decay after traffic stops.
+     */
+    private String statsPayloadIfChanged() throws JsonProcessingException {
+        DashboardService.DashboardStats stats = dashboardService.getStats();
+        // Only the headline numbers are streamed; the per-partition breakdown stays on /api/stats
+        Map<String, Object> delta = new HashMap<>();
+        delta.put("totalMessages", stats.getTotalMessages());
+        delta.put("lifetimeMessages", stats.getLifetimeMessages());
+        delta.put("topicsCount", stats.getTopicsCount());
+        delta.put("partitionsCount", stats.getPartitionsCount());
+        delta.put("messagesPerSecond10s", stats.getMessagesPerSecond10s());
+        delta.put("messagesPerSecond1m", stats.getMessagesPerSecond1m());
+        String payload = objectMapper.writeValueAsString(delta);
+        if (payload.equals(lastStatsPayload)) {
+            return null;
+        }
+        lastStatsPayload = payload;
+        return payload;
+    }
+
+    /**
+     * One connected viewer and the last sequence delivered to it.
+     */
+    private static final class Subscriber {
+        private final SseEmitter emitter;
+        private long cursor;
+        private boolean statsSent;
+        private long lastSendMillis = System.currentTimeMillis();
+
+        Subscriber(SseEmitter emitter, long cursor) {
+            this.emitter = emitter;
+            this.cursor = cursor;
+        }
+    }
+}
@@ -1,12 +1,16 @@
 package com.dhi.camelkafka.service;
 
 import com.dhi.camelkafka.model.KafkaMessage;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.MeterRegistry;
 import lombok.extern.slf4j.Slf4j;
 import org.apache.camel.Exchange;
+import org.apache.camel.Message;
 import org.apache.camel.component.kafka.KafkaConstants;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 
-import java.time.LocalDateTime;
+import java.util.Map;
 import java.util.concurrent.atomic.AtomicLong;
 
 /**
@@ -19,33 +23,53 @@ public class KafkaCallbackService {
     private final AtomicLong processedCount = new AtomicLong(0);
     private final AtomicLong errorCount = new AtomicLong(0);
     
+    /**
+     * Expose the processed and error counts as Micrometer counters.
+     * 
+     * @param meterRegistry The registry to bind to
+     */
+    @Autowired(required = false)
+    public void bindMetrics(MeterRegistry meterRegistry) {
+        FunctionCounter.builder("kafka.consumer.messages.processed", processedCount, AtomicLong::get)
+                .description("Records whose metadata was extracted")
+                .register(meterRegistry);
+        FunctionCounter.builder("kafka.consumer.messages.errors", errorCount, AtomicLong::get)
+                .description("Extraction, processing and commit errors")
+                .register(meterRegistry);
+    }
+    
     /**
      * Callback method to extract and log Kafka message metadata.
+     * Headers are read from the header map once, without type conversion when they already have
+     * the expected type, and the body is kept undecoded until the content is first accessed.
      * 
      * @param exchange The Camel exchange containing the message
      * @return KafkaMessage with extracted metadata
      */
     public KafkaMessage extractMessageMetadata(Exchange exchange) {
         try {
-            String topic = exchange.getIn().getHeader(KafkaConstants.TOPIC, String.class);
-            Integer partition = exchange.getIn().getHeader(KafkaConstants.PARTITION, Integer.class);
-            Long offset = exchange.getIn().getHeader(KafkaConstants.OFFSET, Long.class);
-            Long timestamp = exchange.getIn().getHeader(KafkaConstants.TIMESTAMP, Long.class);
-            String messageKey = exchange.getIn().getHeader(KafkaConstants.KEY, String.class);
-            String content = exchange.getIn().getBody(String.class);
+            Message in = exchange.getIn();
+            Map<String, Object> headers = in.getHeaders();
+            String topic = header(in, headers, KafkaConstants.TOPIC, String.class);
+            Integer partition = header(in, headers, KafkaConstants.PARTITION, Integer.class);
+            Long offset = header(in, headers, KafkaConstants.OFFSET, Long.class);
+            Long timestamp = header(in, headers, KafkaConstants.TIMESTAMP, Long.class);
+            String messageKey = header(in, headers, KafkaConstants.KEY, String.class);
             
             KafkaMessage kafkaMessage = KafkaMessage.builder()
-                    .id(String.format("%s-%d-%d", topic, partition, offset))
-                    .content(content)
+                    .id(topic + "-" + partition + "-" + offset)
+                    .rawContent(in.getBody())
                     .topic(topic)
                     .partition(partition)
                     .offset(offset)
                     .timestamp(timestamp)
                     .messageKey(messageKey)
-                    .processedAt(LocalDateTime.now())
+                    .processedAtMillis(System.currentTimeMillis())
                     .build();
             
-            logMessageInfo(kafkaMessage);
+            if (log.isInfoEnabled()) {
+                logMessageInfo(kafkaMessage);
+            }
             processedCount.incrementAndGet();
             
             return kafkaMessage;
@@ -85,7 +109,9 @@ public class KafkaCallbackService {
      * @param kafkaMessage The message that was committed
      */
     public void onManualCommit(KafkaMessage kafkaMessage) {
-        log.debug("Manual commit confirmed for message: {}", kafkaMessage.getFormattedInfo());
+        if (log.isDebugEnabled()) {
+            log.debug("Manual commit confirmed for message: {}", kafkaMessage.getFormattedInfo());
+        }
     }
     
     /**
@@ -102,10 +128,24 @@ public class KafkaCallbackService {
     }
     
     private void logMessageInfo(KafkaMessage kafkaMessage) {
-        log.info("Received message - ID: {}, {}, Content length: {}", 
+        log.info("Received message - ID: {}, Topic: {}, Partition: {}, Offset: {}, Timestamp: {}, Content length: {}", 
                 kafkaMessage.getId(),
-                kafkaMessage.getFormattedInfo(),
-                kafkaMessage.getContent() != null ? kafkaMessage.getContent().length() : 0);
+                kafkaMessage.getTopic(),
+                kafkaMessage.getPartition(),
+                kafkaMessage.getOffset(),
+                kafkaMessage.getTimestamp(),
+                kafkaMessage.getContentLength());
+    }
+    
+    /**
+     * Read a header from the header map, falling back to Camel type conversion only when needed.
+     */
+    private static <T> T header(Message in, Map<String, Object> headers, String name, Class<T> type) {
+        Object value = headers.get(name);
+        if (value == null || type.isInstance(value)) {
+            return type.cast(value);
+        }
+        return in.getHeader(name, type);
     }
     
     private void logStatistics() {
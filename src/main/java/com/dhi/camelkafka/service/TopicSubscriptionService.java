@@ -0,0 +1,304 @@
+package com.dhi.camelkafka.service;
+
+import com.dhi.camelkafka.commit.OffsetCommitter;
+import com.dhi.camelkafka.config.KafkaProperties;
+import com.dhi.camelkafka.route.KafkaConsumerRoute;
+import com.dhi.camelkafka.route.TopicSubscription;
+import lombok.Builder;
+import lombok.Data;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.camel.CamelContext;
+import org.apache.camel.ServiceStatus;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Set;
+import java.util.regex.Pattern;
+import java.util.regex.PatternSyntaxException;
+
+/**
+ * Runtime management of the consumed topics.
+ * <p>
+ * Starts from the configured topics and pattern. Adding or removing a topic adds or removes its route,
+ * or rebuilds the route that shares it with other topics (a consumer topology entry or the shared consumer).
+ * A changed shared subscription needs a new consumer, which rejoins the group. Topics created later that
+ * match the pattern are picked up by the pattern consumer on its next metadata refresh, without any call here.
+ * In {@code retryMode=kafka} each consumer route's retry route is added, started, stopped and removed with it.
+ * A change is applied to the routes first and only then recorded; if a route cannot be added or removed, the routes
+ * changed so far are restored and the subscription stays as it was.
+ */
+@Slf4j
+@Service
+public class TopicSubscriptionService {
+
+    private static final Pattern TOPIC_NAME = Pattern.compile("[a-zA-Z0-9._-]{1,249}");
+
+    private final CamelContext camelContext;
+    private final KafkaConsumerRoute kafkaConsumerRoute;
+    private final KafkaProperties kafkaProperties;
+    private final OffsetCommitter offsetCommitter;
+
+    // Guarded by this
+    private Set<String> topics;
+    private String pattern;
+    private Map<String, TopicSubscription> activeRoutes = new LinkedHashMap<>();
+
+    public TopicSubscriptionService(CamelContext camelContext, KafkaConsumerRoute kafkaConsumerRoute,
+                                    KafkaProperties kafkaProperties, OffsetCommitter offsetCommitter) {
+        this.camelContext = camelContext;
+        this.kafkaConsumerRoute = kafkaConsumerRoute;
+        this.kafkaProperties = kafkaProperties;
+        this.offsetCommitter = offsetCommitter;
+        this.topics = new LinkedHashSet<>(kafkaProperties.getAllTopics());
+        this.pattern = kafkaProperties.getTopicPattern();
+        // The initial routes are created by KafkaConsumerRoute from the same plan
+        for (TopicSubscription subscription : plan(topics, pattern)) {
+            activeRoutes.put(subscription.routeId(), subscription);
+        }
+    }
+
+    /**
+     * Subscribe to a topic.
+     *
+     * @param topic The topic name
+     * @return false if the topic was already subscribed
+     * @throws Exception If the route could not be added
+     */
+    public synchronized boolean addTopic(String topic) throws Exception {
+        if (topic == null || !TOPIC_NAME.matcher(topic).matches()) {
+            throw new IllegalArgumentException("Invalid topic name: " + topic);
+        }
+        Set<String> newTopics = new LinkedHashSet<>(topics);
+        if (!newTopics.add(topic)) {
+            return false;
+        }
+        log.info("Subscribing to topic {}", topic);
+        applyPlan(newTopics, pattern);
+        return true;
+    }
+
+    /**
+     * Unsubscribe from a topic.
+     *
+     * @param topic The topic name
+     * @return false if the topic was not subscribed
+     * @throws Exception If the route could not be removed
+     */
+    public synchronized boolean removeTopic(String topic) throws Exception {
+        Set<String> newTopics = new LinkedHashSet<>(topics);
+        if (!newTopics.remove(topic)) {
+            return false;
+        }
+        log.info("Unsubscribing from topic {}", topic);
+        applyPlan(newTopics, pattern);
+        return true;
+    }
+
+    /**
+     * Replace the topic pattern served by the pattern consumer.
+     *
+     * @param newPattern The topic regex, or null to remove the pattern subscription
+     * @throws Exception If the route could not be replaced
+     */
+    public synchronized void setPattern(String newPattern) throws Exception {
+        if (newPattern != null && newPattern.isBlank()) {
+            newPattern = null;
+        }
+        if (newPattern != null) {
+            try {
+                Pattern.compile(newPattern);
+            } catch (PatternSyntaxException e) {
+                throw new IllegalArgumentException("Invalid topic pattern: " + e.getDescription(), e);
+            }
+        }
+        log.info("Changing topic pattern from {} to {}", pattern, newPattern);
+        applyPlan(topics, newPattern);
+    }
+
+    /**
+     * Start a stopped consumer route.
+     *
+     * @param routeId The route id
+     * @throws Exception If the route could not be started
+     */
+    public synchronized void startRoute(String routeId) throws Exception {
+        TopicSubscription subscription = requireRoute(routeId);
+        camelContext.getRouteController().startRoute(routeId);
+        if (hasRetryRoute(subscription)) {
+            camelContext.getRouteController().startRoute(subscription.retryRouteId());
+        }
+    }
+
+    /**
+     * Stop a consumer route without removing its subscription. Pending commits are flushed first.
+     *
+     * @param routeId The route id
+     * @throws Exception If the route could not be stopped
+     */
+    public synchronized void stopRoute(String routeId) throws Exception {
+        TopicSubscription subscription = requireRoute(routeId);
+        offsetCommitter.flush();
+        camelContext.getRouteController().stopRoute(routeId);
+        if (hasRetryRoute(subscription)) {
+            camelContext.getRouteController().stopRoute(subscription.retryRouteId());
+        }
+    }
+
+    /**
+     * Get the current subscriptions and the state of their routes.
+     *
+     * @return The subscription overview
+     */
+    public synchronized SubscriptionInfo getSubscriptions() {
+        List<RouteInfo> routes = new ArrayList<>();
+        for (TopicSubscription subscription : activeRoutes.values()) {
+            ServiceStatus status = camelContext.getRouteController().getRouteStatus(subscription.routeId());
+            routes.add(RouteInfo.builder()
+                    .routeId(subscription.routeId())
+                    .topics(subscription.topics())
+                    .pattern(subscription.pattern())
+                    .consumersCount(subscription.consumer() != null && subscription.consumer().getConsumersCount() != null
+                            ? subscription.consumer().getConsumersCount() : kafkaProperties.getConsumersCount())
+                    .status(status != null ? status.name() : "Unknown")
+                    .build());
+        }
+        return SubscriptionInfo.builder()
+                .topics(List.copyOf(topics))
+                .pattern(pattern)
+                .sharedConsumer(kafkaProperties.isSharedConsumer())
+                .routes(routes)
+                .build();
+    }
+
+    private List<TopicSubscription> plan(Set<String> newTopics, String newPattern) {
+        return TopicSubscription.plan(newTopics, newPattern, kafkaProperties.isSharedConsumer(), kafkaProperties.getConsumers());
+    }
+
+    /**
+     * Bring the routes in line with new topics and pattern, and record them once every route is in place.
+     * On a failure the routes removed or added so far are restored before the failure is thrown.
+     */
+    private void applyPlan(Set<String> newTopics, String newPattern) throws Exception {
+        Map<String, TopicSubscription> desired = new LinkedHashMap<>();
+        for (TopicSubscription subscription : plan(newTopics, newPattern)) {
+            desired.put(subscription.routeId(), subscription);
+        }
+
+        // What is actually running, kept up to date while routes change so that it stays right on a failure
+        Map<String, TopicSubscription> applied = new LinkedHashMap<>(activeRoutes);
+        List<TopicSubscription> removed = new ArrayList<>();
+        List<TopicSubscription> added = new ArrayList<>();
+        try {
+            // Routes whose subscription changed are replaced, untouched routes keep running (or stay stopped)
+            for (TopicSubscription current : activeRoutes.values()) {
+                if (!current.equals(desired.get(current.routeId()))) {
+                    removeRoute(current);
+                    applied.remove(current.routeId());
+                    removed.add(current);
+                }
+            }
+            for (TopicSubscription subscription : desired.values()) {
+                if (!subscription.equals(applied.get(subscription.routeId()))) {
+                    addRoute(subscription);
+                    applied.put(subscription.routeId(), subscription);
+                    added.add(subscription);
+                }
+            }
+        } catch (Exception e) {
+            log.error("Could not apply subscription change, restoring the previous routes", e);
+            restore(applied, removed, added);
+            activeRoutes = applied;
+            throw e;
+        }
+        topics = newTopics;
+        pattern = newPattern;
+        activeRoutes = desired;
+    }
+
+    private void restore(Map<String, TopicSubscription> applied, List<TopicSubscription> removed,
+                         List<TopicSubscription> added) {
+        for (int i = added.size() - 1; i >= 0; i--) {
+            TopicSubscription subscription = added.get(i);
+            try {
+                removeRoute(subscription);
+                applied.remove(subscription.routeId());
+            } catch (Exception e) {
+                log.error("Could not remove consumer route {} while restoring", subscription.routeId(), e);
+            }
+        }
+        for (TopicSubscription subscription : removed) {
+            if (applied.containsKey(subscription.routeId())) {
+                continue; // Its replacement could not be removed
+            }
+            try {
+                // Also removes what a failed add left behind under the same id
+                removeRoute(subscription);
+                addRoute(subscription);
+                applied.put(subscription.routeId(), subscription);
+            } catch (Exception e) {
+                log.error("Could not restore consumer route {} for {}", subscription.routeId(), subscription.describe(), e);
+            }
+        }
+    }
+
+    private void addRoute(TopicSubscription subscription) throws Exception {
+        camelContext.addRoutes(kafkaConsumerRoute.consumerRouteBuilder(subscription));
+        log.info("Started consumer route {} for {}", subscription.routeId(), subscription.describe());
+    }
+
+    /**
+     * Stop and remove a consumer route and its retry route, as far as they exist.
+     */
+    private void removeRoute(TopicSubscription subscription) throws Exception {
+        offsetCommitter.flush();
+        for (String routeId : List.of(subscription.routeId(), subscription.retryRouteId())) {
+            if (camelContext.getRoute(routeId) != null) {
+                camelContext.getRouteController().stopRoute(routeId);
+                camelContext.removeRoute(routeId);
+            }
+        }
+        log.info("Removed consumer route {} for {}", subscription.routeId(), subscription.describe());
+    }
+
+    private boolean hasRetryRoute(TopicSubscription subscription) {
+        return camelContext.getRoute(subscription.retryRouteId()) != null;
+    }
+
+    private TopicSubscription requireRoute(String routeId) {
+        TopicSubscription subscription = activeRoutes.get(routeId);
+        if (subscription == null) {
+            throw new NoSuchElementException("Unknown consumer route: " + routeId);
+        }
+        return subscription;
+    }
+
+    /**
+     * Current subscriptions.
+     */
+    @Data
+    @Builder
+    public static class SubscriptionInfo {
+        private List<String> topics;
+        private String pattern;
+        private boolean sharedConsumer;
+        private List<RouteInfo> routes;
+    }
+
+    /**
+     * One consumer route and its status.
+     */
+    @Data
+    @Builder
+    public static class RouteInfo {
+        private String routeId;
+        private List<String> topics;
+        private String pattern;
+        private Integer consumersCount;
+        private String status;
+    }
+}
@@ -0,0 +1,204 @@
+package com.dhi.camelkafka.store;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.function.Predicate;
+
+/**
+ * Bounded multi-producer ring buffer that keeps the most recent entries.
+ * <p>
+ * Writers claim a sequence with a single atomic increment and publish into a fixed slot,
+ * so {@link #add(Object)} is O(1) and does not allocate. Every slot carries the sequence
+ * it was published with; readers check it before and after reading the value and skip
+ * slots that are being rewritten, which gives them a consistent snapshot without locking.
+ *
+ * @param <E> The element type
+ */
+public class BoundedRingBuffer<E> {
+
+    private static final long EMPTY = -1L;
+    private static final long BUSY = -2L;
+
+    private final int capacity;
+    private final AtomicReferenceArray<E> values;
+    private final AtomicLongArray published;
+    private final AtomicLong cursor = new AtomicLong(0);
+    private volatile long floor = 0;
+
+    public BoundedRingBuffer(int capacity) {
+        if (capacity <= 0) {
+            throw new IllegalArgumentException("Capacity must be positive: " + capacity);
+        }
+        this.capacity = capacity;
+        this.values = new AtomicReferenceArray<>(capacity);
+        this.published = new AtomicLongArray(capacity);
+        for (int i = 0; i < capacity; i++) {
+            published.set(i, EMPTY);
+        }
+    }
+
+    /**
+     * Add an element, overwriting the oldest one once the buffer is full.
+     *
+     * @param element The element to add
+     * @return The sequence assigned to the element
+     */
+    public long add(E element) {
+        long sequence = cursor.getAndIncrement();
+        int index = indexOf(sequence);
+        while (true) {
+            long current = published.get(index);
+            if (current > sequence) {
+                // A writer a full lap ahead already owns this slot; our entry is already stale
+                return sequence;
+            }
+            if (current == BUSY) {
+                Thread.onSpinWait();
+                continue;
+            }
+            if (published.compareAndSet(index, current, BUSY)) {
+                values.set(index, element);
+                published.set(index, sequence);
+                return sequence;
+            }
+        }
+    }
+
+    /**
+     * Get a snapshot of the retained elements, most recent first.
+     *
+     * @return List of retained elements
+     */
+    public List<E> snapshot() {
+        return snapshot(element -> true, Integer.MAX_VALUE);
+    }
+
+    /**
+     * Get a snapshot of the retained elements matching a filter, most recent first.
+     *
+     * @param filter The filter to apply
+     * @param limit The maximum number of elements to return
+     * @return List of matching elements
+     */
+    public List<E> snapshot(Predicate<? super E> filter, int limit) {
+        List<E> result = new ArrayList<>(Math.max(0, Math.min(limit, capacity)));
+        if (limit <= 0) {
+            return result;
+        }
+        forEachSince(-1, (sequence, element) -> {
+            if (filter.test(element)) {
+                result.add(element);
+            }
+            return result.size() < limit;
+        });
+        return result;
+    }
+
+    /**
+     * Visit retained elements with a sequence greater than {@code afterSequence}, most recent first.
+     * Slots that are being rewritten while they are read are skipped.
+     *
+     * @param afterSequence Exclusive lower bound on the sequence, or -1 for all retained elements
+     * @param visitor Callback receiving the sequence and element; returning false stops the iteration
+     */
+    public void forEachSince(long afterSequence, SequencedVisitor<? super E> visitor) {
+        forEachBetween(afterSequence + 1, Long.MAX_VALUE, visitor);
+    }
+
+    /**
+     * Visit retained elements with a sequence in {@code [fromSequence, toSequence)}, most recent first.
+     * Slots that are being rewritten while they are read are skipped.
+     *
+     * @param fromSequence Inclusive lower bound on the sequence
+     * @param toSequence Exclusive upper bound on the sequence
+     * @param visitor Callback receiving the sequence and element; returning false stops the iteration
+     */
+    public void forEachBetween(long fromSequence, long toSequence, SequencedVisitor<? super E> visitor) {
+        long head = cursor.get();
+        long lowest = Math.max(Math.max(floor, head - capacity), fromSequence);
+        for (long sequence = Math.min(head, toSequence) - 1; sequence >= lowest; sequence--) {
+            int index = indexOf(sequence);
+            if (published.get(index) != sequence) {
+                continue;
+            }
+            E element = values.get(index);
+            if (published.get(index) != sequence) {
+                continue;
+            }
+            if (!visitor.visit(sequence, element)) {
+                return;
+            }
+        }
+    }
+
+    /**
+     * Get a retained element by its sequence.
+     *
+     * @param sequence The sequence returned by {@link #add(Object)}
+     * @return The element, or null if it was overwritten, cleared or is being rewritten
+     */
+    public E get(long sequence) {
+        if (sequence < oldestSequence() || sequence >= cursor.get()) {
+            return null;
+        }
+        int index = indexOf(sequence);
+        E element = values.get(index);
+        return published.get(index) == sequence ? element : null;
+    }
+
+    /**
+     * Get the lowest sequence that may still be retained.
+     *
+     * @return The oldest retained sequence, equal to {@link #nextSequence()} when empty
+     */
+    public long oldestSequence() {
+        return Math.max(floor, cursor.get() - capacity);
+    }
+
+    /**
+     * Get the number of retained elements.
+     *
+     * @return Number of retained elements, at most the capacity
+     */
+    public int size() {
+        long head = cursor.get();
+        return (int) Math.min(head - floor, capacity);
+    }
+
+    /**
+     * Get the sequence that will be assigned to the next element.
+     *
+     * @return The next sequence
+     */
+    public long nextSequence() {
+        return cursor.get();
+    }
+
+    public int getCapacity() {
+        return capacity;
+    }
+
+    /**
+     * Logically remove all retained elements. Slots are reused by later writes.
+     */
+    public void clear() {
+        floor = cursor.get();
+    }
+
+    private int indexOf(long sequence) {
+        return (int) (sequence % capacity);
+    }
+
+    /**
+     * Callback used by {@link #forEachSince(long, SequencedVisitor)}.
+     *
+     * @param <E> The element type
+     */
+    @FunctionalInterface
+    public interface SequencedVisitor<E> {
+        boolean visit(long sequence, E element);
+    }
+}
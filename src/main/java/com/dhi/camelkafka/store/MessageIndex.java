@@ -0,0 +1,266 @@
+package com.dhi.camelkafka.store;
+
+import com.dhi.camelkafka.model.KafkaMessage;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Secondary indexes over the messages of a {@link BoundedRingBuffer}, by topic, topic-partition, key and insert time.
+ * <p>
+ * Every ring slot links back to the previous message of the same topic, the same partition and the same key hash,
+ * and the latest sequence of each topic, partition and key bucket is kept as a chain head. A lookup walks only its
+ * chain, so its cost is proportional to the matching messages, not the retained window. The links are parallel
+ * arrays of ring slots: memory is fixed by the ring capacity, and an overwritten slot ends every chain through it,
+ * which evicts the index entries together with the message. Insert times never decrease, so time filters find
+ * their oldest candidate by binary search.
+ * <p>
+ * Writers only publish into the ring, which does not lock. One writer at a time then links every published message
+ * into the chains, in sequence order; a writer that finds another one linking leaves its message to it and returns
+ * at once, so writers never wait for each other. Lookups do not lock and validate every slot against the ring while
+ * walking; they see a message once it is linked.
+ */
+public class MessageIndex {
+
+    private static final long NONE = -1L;
+
+    private final BoundedRingBuffer<KafkaMessage> messages;
+    private final int capacity;
+    private final AtomicLongArray previousInTopic;
+    private final AtomicLongArray previousInPartition;
+    private final AtomicLongArray previousWithKey;
+    private final AtomicLongArray insertedAt;
+    private final AtomicLongArray keyHeads;
+    private final int keyMask;
+    private final ConcurrentMap<String, TopicHeads> topics = new ConcurrentHashMap<>();
+    private final AtomicBoolean linking = new AtomicBoolean();
+    private volatile long indexedSequence = 0; // Sequences below this are fully linked
+    private long lastInsertedAt; // Only written by the linking writer
+
+    public MessageIndex(BoundedRingBuffer<KafkaMessage> messages) {
+        this.messages = messages;
+        this.capacity = messages.getCapacity();
+        this.previousInTopic = new AtomicLongArray(capacity);
+        this.previousInPartition = new AtomicLongArray(capacity);
+        this.previousWithKey = new AtomicLongArray(capacity);
+        this.insertedAt = new AtomicLongArray(capacity);
+        int buckets = Integer.highestOneBit(Math.max(2, capacity) * 2 - 1); // Next power of two
+        this.keyHeads = new AtomicLongArray(buckets);
+        this.keyMask = buckets - 1;
+        for (int i = 0; i < buckets; i++) {
+            keyHeads.set(i, NONE);
+        }
+    }
+
+    /**
+     * Add a message to the ring buffer and index it, unless another writer is linking, which then indexes it.
+     *
+     * @param message The message to add
+     * @return The sequence assigned to the message
+     */
+    public long add(KafkaMessage message) {
+        long sequence = messages.add(message);
+        // A writer that publishes while the linking one releases the flag is picked up by its re-check
+        while (hasUnlinked() && linking.compareAndSet(false, true)) {
+            try {
+                linkPublished();
+            } finally {
+                linking.set(false);
+            }
+        }
+        return sequence;
+    }
+
+    private boolean hasUnlinked() {
+        long next = indexedSequence;
+        return next < messages.oldestSequence() || messages.get(next) != null;
+    }
+
+    /**
+     * Link the published messages after the last linked one, stopping at the first sequence that was claimed
+     * but not published yet; its writer links it and everything after it. Overwritten sequences are skipped.
+     */
+    private void linkPublished() {
+        long next = indexedSequence;
+        long end = messages.nextSequence();
+        while (next < end) {
+            KafkaMessage message = messages.get(next);
+            if (message == null) {
+                long oldest = messages.oldestSequence();
+                if (next >= oldest) {
+                    break;
+                }
+                next = oldest; // Overwritten or cleared before it was linked
+                continue;
+            }
+            link(next, message);
+            next++;
+        }
+        indexedSequence = next;
+    }
+
+    private void link(long sequence, KafkaMessage message) {
+        int slot = slot(sequence);
+        long now = Math.max(System.currentTimeMillis(), lastInsertedAt);
+        lastInsertedAt = now;
+        insertedAt.set(slot, now);
+
+        TopicHeads topicHeads = message.getTopic() != null
+                ? topics.computeIfAbsent(message.getTopic(), topic -> new TopicHeads()) : null;
+        previousInTopic.set(slot, topicHeads != null ? topicHeads.head.get() : NONE);
+        AtomicLong partitionHead = topicHeads != null && message.getPartition() != null
+                ? topicHeads.partitions.computeIfAbsent(message.getPartition(), partition -> new AtomicLong(NONE)) : null;
+        previousInPartition.set(slot, partitionHead != null ? partitionHead.get() : NONE);
+        int bucket = message.getMessageKey() != null ? bucket(message.getMessageKey()) : -1;
+        previousWithKey.set(slot, bucket >= 0 ? keyHeads.get(bucket) : NONE);
+
+        // Heads move only after the links are in place, so a lookup that finds the new sequence can follow it
+        if (topicHeads != null) {
+            topicHeads.head.set(sequence);
+        }
+        if (partitionHead != null) {
+            partitionHead.set(sequence);
+        }
+        if (bucket >= 0) {
+            keyHeads.set(bucket, sequence);
+        }
+    }
+
+    /**
+     * Find messages matching a query, newest first.
+     * The narrowest index the query allows is walked: key, then topic-partition, then topic, else the whole ring.
+     *
+     * @param query The filters
+     * @param beforeSequence Exclusive upper bound on the sequence, {@code Long.MAX_VALUE} for the newest messages
+     * @param limit Maximum number of messages
+     * @return The matching messages and the cursor for the next page
+     */
+    public Result search(MessageQuery query, long beforeSequence, int limit) {
+        List<KafkaMessage> found = new ArrayList<>(Math.max(0, Math.min(limit, 1024)));
+        if (limit <= 0) {
+            return new Result(found, NONE, 0);
+        }
+        long indexed = indexedSequence;
+        long lowest = Math.max(messages.oldestSequence(), query.fromTime() != null ? firstInsertedAtOrAfter(query.fromTime(), indexed) : 0);
+        AtomicLongArray links = links(query);
+        long sequence = links != null ? resume(query, links, beforeSequence, indexed) : Math.min(beforeSequence, indexed) - 1;
+        long last = NONE;
+        int scanned = 0;
+
+        while (sequence >= lowest && found.size() < limit) {
+            KafkaMessage message = messages.get(sequence);
+            if (message == null) {
+                if (links != null) {
+                    break; // The slot was overwritten, everything older on this chain is gone as well
+                }
+                sequence--;
+                continue;
+            }
+            long previous = links != null ? links.get(slot(sequence)) : sequence - 1;
+            if (links != null && messages.get(sequence) != message) {
+                break; // Rewritten while reading its link
+            }
+            scanned++;
+            if (sequence < beforeSequence && query.matches(message)) {
+                found.add(message);
+                last = sequence;
+            }
+            sequence = previous;
+        }
+        return new Result(found, found.size() == limit ? last : NONE, scanned);
+    }
+
+    private AtomicLongArray links(MessageQuery query) {
+        if (query.key() != null) {
+            return previousWithKey;
+        }
+        if (query.topic() != null) {
+            return query.partition() != null ? previousInPartition : previousInTopic;
+        }
+        return null;
+    }
+
+    /**
+     * Pick the chain entry to start from: the link behind the cursor when the cursor is on the same chain,
+     * otherwise the chain head.
+     */
+    private long resume(MessageQuery query, AtomicLongArray links, long beforeSequence, long indexed) {
+        if (beforeSequence < indexed) {
+            KafkaMessage cursor = messages.get(beforeSequence);
+            if (cursor != null && onSameChain(query, links, cursor)) {
+                long previous = links.get(slot(beforeSequence));
+                if (messages.get(beforeSequence) == cursor) {
+                    return previous;
+                }
+            }
+        }
+        if (links == previousWithKey) {
+            return keyHeads.get(bucket(query.key()));
+        }
+        TopicHeads topicHeads = topics.get(query.topic());
+        if (topicHeads == null) {
+            return NONE;
+        }
+        if (links == previousInTopic) {
+            return topicHeads.head.get();
+        }
+        AtomicLong partitionHead = topicHeads.partitions.get(query.partition());
+        return partitionHead != null ? partitionHead.get() : NONE;
+    }
+
+    private boolean onSameChain(MessageQuery query, AtomicLongArray links, KafkaMessage cursor) {
+        if (links == previousWithKey) {
+            return cursor.getMessageKey() != null && bucket(cursor.getMessageKey()) == bucket(query.key());
+        }
+        if (!query.topic().equals(cursor.getTopic())) {
+            return false;
+        }
+        return links == previousInTopic || query.partition().equals(cursor.getPartition());
+    }
+
+    private long firstInsertedAtOrAfter(long timestampMillis, long indexed) {
+        long low = messages.oldestSequence();
+        long high = indexed;
+        while (low < high) {
+            long mid = (low + high) >>> 1;
+            if (insertedAt.get(slot(mid)) >= timestampMillis) {
+                high = mid;
+            } else {
+                low = mid + 1;
+            }
+        }
+        return low;
+    }
+
+    private int bucket(String key) {
+        int hash = key.hashCode();
+        return (hash ^ (hash >>> 16)) & keyMask;
+    }
+
+    private int slot(long sequence) {
+        return (int) (sequence % capacity);
+    }
+
+    /**
+     * Latest sequence of a topic and of each of its partitions.
+     */
+    private static final class TopicHeads {
+        private final AtomicLong head = new AtomicLong(NONE);
+        private final ConcurrentMap<Integer, AtomicLong> partitions = new ConcurrentHashMap<>();
+    }
+
+    /**
+     * One page of matching messages.
+     *
+     * @param messages The matching messages, newest first
+     * @param nextBefore Sequence to pass as {@code beforeSequence} for the next page, -1 if there is none
+     * @param scanned Number of messages examined
+     */
+    public record Result(List<KafkaMessage> messages, long nextBefore, int scanned) {
+    }
+}
@@ -0,0 +1,436 @@
+package com.dhi.camelkafka.store;
+
+import com.dhi.camelkafka.model.KafkaMessage;
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Stream;
+
+/**
+ * Append-only message journal kept in memory-mapped segment files.
+ * <p>
+ * A segment is a pair of files named after the sequence of its first message: {@code <base>.log} holds
+ * length-prefixed records and {@code <base>.idx} a dense index of 12-byte entries (record position and append
+ * time) in sequence order. Both files are mapped once at their full size, so messages live in the page cache
+ * instead of the heap. A message is found by sequence with one index read, and by time with a binary search
+ * over the index, as append times never decrease. The index entry is written after its record, so a crash
+ * never exposes a partial record, and reopening a directory recovers every indexed message.
+ * <p>
+ * Retention deletes whole segments, oldest first, once the journal outgrows {@code retentionBytes} or a
+ * segment's newest message is older than {@code retentionMs}. Appends are serialized; reads never lock.
+ */
+@Slf4j
+public class MessageJournal implements Closeable {
+
+    private static final String LOG_SUFFIX = ".log";
+    private static final String INDEX_SUFFIX = ".idx";
+    private static final int INDEX_ENTRY_BYTES = 12;
+    private static final int MIN_RECORD_BYTES = 48; // Length prefix, fixed fields and four empty strings
+    private static final long RETENTION_CHECK_INTERVAL_MS = 1000;
+
+    private final Path directory;
+    private final int segmentBytes;
+    private final long retentionBytes;
+    private final long retentionMs;
+
+    // Oldest first, replaced on roll and retention; the last segment is the one appended to
+    private volatile List<Segment> segments;
+    private long lastAppendMillis; // Guarded by this
+    private long lastRetentionCheck; // Guarded by this
+
+    /**
+     * Open the journal in a directory, recovering the segments already there.
+     *
+     * @param directory The journal directory, created if missing
+     * @param segmentBytes Size of a segment's record file
+     * @param retentionBytes Total size to keep, 0 for no size limit
+     * @param retentionMs Age of messages to keep, 0 for no time limit
+     * @throws IOException If the directory or a segment cannot be opened
+     */
+    public MessageJournal(Path directory, int segmentBytes, long retentionBytes, long retentionMs) throws IOException {
+        if (segmentBytes < MIN_RECORD_BYTES * 2) {
+            throw new IllegalArgumentException("Segment size too small: " + segmentBytes);
+        }
+        this.directory = directory;
+        this.segmentBytes = segmentBytes;
+        this.retentionBytes = retentionBytes;
+        this.retentionMs = retentionMs;
+        Files.createDirectories(directory);
+
+        List<Segment> recovered = new ArrayList<>();
+        try (Stream<Path> files = Files.list(directory)) {
+            for (Path logFile : files.filter(path -> path.getFileName().toString().endsWith(LOG_SUFFIX)).sorted().toList()) {
+                String name = logFile.getFileName().toString();
+                recovered.add(Segment.open(directory, Long.parseLong(name.substring(0, name.length() - LOG_SUFFIX.length())),
+                        segmentBytes));
+            }
+        }
+        if (recovered.isEmpty()) {
+            recovered.add(Segment.open(directory, 0, segmentBytes));
+        }
+        this.segments = List.copyOf(recovered);
+        this.lastAppendMillis = recovered.get(recovered.size() - 1).lastAppendMillis();
+        log.info("Opened message journal in {} with {} messages in {} segments",
+                directory, getNextSequence() - getFirstSequence(), recovered.size());
+    }
+
+    /**
+     * Append a message. The content is copied from {@link KafkaMessage#getContentBuffer()}, so raw values
+     * are stored without being decoded. Extracted fields and decoded records are not stored.
+     *
+     * @param message The message to append
+     * @return The sequence of the message, or -1 if it is larger than a segment
+     */
+    public synchronized long append(KafkaMessage message) {
+        byte[] id = utf8(message.getId());
+        byte[] topic = utf8(message.getTopic());
+        byte[] key = utf8(message.getMessageKey());
+        ByteBuffer content = message.getContentBuffer();
+        int recordBytes = MIN_RECORD_BYTES + length(id) + length(topic) + length(key)
+                + (content != null ? content.remaining() : 0);
+        if (recordBytes > segmentBytes) {
+            log.warn("Message {} of {} bytes does not fit a journal segment, not journaled", message.getId(), recordBytes);
+            return -1;
+        }
+
+        long now = Math.max(System.currentTimeMillis(), lastAppendMillis);
+        lastAppendMillis = now;
+        Segment active = segments.get(segments.size() - 1);
+        if (!active.hasRoom(recordBytes)) {
+            active = roll(active);
+        }
+        ByteBuffer out = active.writer;
+        int position = active.writePosition;
+        out.position(position);
+        out.putInt(recordBytes - Integer.BYTES);
+        out.putLong(orDefault(message.getOffset()));
+        out.putLong(orDefault(message.getTimestamp()));
+        out.putInt(message.getPartition() != null ? message.getPartition() : -1);
+        out.putLong(message.getProcessedAtMillis());
+        putBytes(out, id);
+        putBytes(out, topic);
+        putBytes(out, key);
+        if (content != null) {
+            out.putInt(content.remaining());
+            out.put(content);
+        } else {
+            out.putInt(-1);
+        }
+        long sequence = active.commit(position, recordBytes, now);
+
+        if (now - lastRetentionCheck >= RETENTION_CHECK_INTERVAL_MS) {
+            enforceRetention(now);
+        }
+        return sequence;
+    }
+
+    /**
+     * Read messages before a sequence, newest first.
+     *
+     * @param beforeSequence Exclusive upper bound, {@code Long.MAX_VALUE} for the newest messages
+     * @param limit Maximum number of messages
+     * @return Up to {@code limit} messages with their sequences
+     */
+    public List<Entry> readBefore(long beforeSequence, int limit) {
+        List<Entry> entries = new ArrayList<>(Math.min(limit, 1024));
+        List<Segment> snapshot = segments;
+        long sequence = beforeSequence - 1;
+        for (int s = snapshot.size() - 1; s >= 0 && entries.size() < limit; s--) {
+            Segment segment = snapshot.get(s);
+            int count = segment.entries;
+            if (sequence < segment.baseSequence || count == 0) {
+                continue;
+            }
+            for (int i = (int) Math.min(sequence - segment.baseSequence, count - 1L); i >= 0 && entries.size() < limit; i--) {
+                entries.add(segment.read(i));
+            }
+            sequence = segment.baseSequence - 1;
+        }
+        return entries;
+    }
+
+    /**
+     * Find the first message appended after a point in time.
+     *
+     * @param timestampMillis Epoch millis
+     * @return The sequence of the first message appended after it, or the next sequence if there is none
+     */
+    public long sequenceAfter(long timestampMillis) {
+        for (Segment segment : segments) {
+            int count = segment.entries;
+            if (count == 0 || segment.appendMillis(count - 1) <= timestampMillis) {
+                continue;
+            }
+            int low = 0;
+            int high = count - 1;
+            while (low < high) {
+                int mid = (low + high) >>> 1;
+                if (segment.appendMillis(mid) > timestampMillis) {
+                    high = mid;
+                } else {
+                    low = mid + 1;
+                }
+            }
+            return segment.baseSequence + low;
+        }
+        return getNextSequence();
+    }
+
+    /**
+     * Get the sequence of the oldest retained message.
+     */
+    public long getFirstSequence() {
+        return segments.get(0).baseSequence;
+    }
+
+    /**
+     * Get the sequence the next message will get.
+     */
+    public long getNextSequence() {
+        Segment active = segments.get(segments.size() - 1);
+        return active.baseSequence + active.entries;
+    }
+
+    /**
+     * Get the bytes used by retained records and their index entries.
+     */
+    public long getSizeBytes() {
+        long size = 0;
+        for (Segment segment : segments) {
+            size += segment.usedBytes();
+        }
+        return size;
+    }
+
+    /**
+     * Get the number of segments.
+     */
+    public int getSegmentCount() {
+        return segments.size();
+    }
+
+    /**
+     * Flush the mapped segments to disk.
+     */
+    @Override
+    public synchronized void close() {
+        for (Segment segment : segments) {
+            segment.force();
+        }
+    }
+
+    private Segment roll(Segment active) {
+        active.force();
+        Segment next;
+        try {
+            next = Segment.open(directory, active.baseSequence + active.entries, segmentBytes);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not create journal segment in " + directory, e);
+        }
+        List<Segment> rolled = new ArrayList<>(segments);
+        rolled.add(next);
+        segments = List.copyOf(rolled);
+        log.debug("Rolled message journal to segment {}", next.baseSequence);
+        return next;
+    }
+
+    private void enforceRetention(long now) {
+        lastRetentionCheck = now;
+        List<Segment> current = segments;
+        long size = getSizeBytes();
+        int expired = 0;
+        // The segment being appended to is always kept
+        while (expired < current.size() - 1) {
+            Segment oldest = current.get(expired);
+            boolean tooLarge = retentionBytes > 0 && size > retentionBytes;
+            boolean tooOld = retentionMs > 0 && oldest.lastAppendMillis() < now - retentionMs;
+            if (!tooLarge && !tooOld) {
+                break;
+            }
+            size -= oldest.usedBytes();
+            expired++;
+        }
+        if (expired == 0) {
+            return;
+        }
+        segments = List.copyOf(current.subList(expired, current.size()));
+        for (Segment segment : current.subList(0, expired)) {
+            // The mapping stays readable for concurrent readers until it is garbage collected
+            segment.delete();
+        }
+        log.info("Deleted {} expired message journal segments, first retained sequence is {}",
+                expired, getFirstSequence());
+    }
+
+    private static byte[] utf8(String value) {
+        return value != null ? value.getBytes(StandardCharsets.UTF_8) : null;
+    }
+
+    private static int length(byte[] bytes) {
+        return bytes != null ? bytes.length : 0;
+    }
+
+    private static long orDefault(Long value) {
+        return value != null ? value : -1L;
+    }
+
+    private static void putBytes(ByteBuffer out, byte[] bytes) {
+        if (bytes == null) {
+            out.putInt(-1);
+        } else {
+            out.putInt(bytes.length);
+            out.put(bytes);
+        }
+    }
+
+    private static byte[] getBytes(ByteBuffer in) {
+        int length = in.getInt();
+        if (length < 0) {
+            return null;
+        }
+        byte[] bytes = new byte[length];
+        in.get(bytes);
+        return bytes;
+    }
+
+    private static String getString(ByteBuffer in) {
+        byte[] bytes = getBytes(in);
+        return bytes != null ? new String(bytes, StandardCharsets.UTF_8) : null;
+    }
+
+    /**
+     * A journaled message with its sequence and append time.
+     */
+    public record Entry(long sequence, long appendedAt, KafkaMessage message) {
+    }
+
+    /**
+     * One record file and its index, both memory-mapped.
+     */
+    private static final class Segment {
+
+        private final long baseSequence;
+        private final Path recordsPath;
+        private final Path indexPath;
+        private final MappedByteBuffer records;
+        private final MappedByteBuffer index;
+        private final ByteBuffer writer; // Only used by the appending thread
+        private final int maxEntries;
+        private volatile int entries; // Published after the record and its index entry are written
+        private int writePosition;
+
+        private Segment(long baseSequence, Path recordsPath, Path indexPath, MappedByteBuffer records, MappedByteBuffer index) {
+            this.baseSequence = baseSequence;
+            this.recordsPath = recordsPath;
+            this.indexPath = indexPath;
+            this.records = records;
+            this.index = index;
+            this.writer = records.duplicate();
+            this.maxEntries = index.capacity() / INDEX_ENTRY_BYTES;
+        }
+
+        static Segment open(Path directory, long baseSequence, int segmentBytes) throws IOException {
+            String name = String.format("%020d", baseSequence);
+            Path recordsPath = directory.resolve(name + LOG_SUFFIX);
+            Path indexPath = directory.resolve(name + INDEX_SUFFIX);
+            // Existing segments keep their size if the configured size changed
+            long recordsBytes = Files.exists(recordsPath) ? Files.size(recordsPath) : segmentBytes;
+            long indexBytes = recordsBytes / MIN_RECORD_BYTES * INDEX_ENTRY_BYTES;
+            Segment segment = new Segment(baseSequence, recordsPath, indexPath, map(recordsPath, recordsBytes), map(indexPath, indexBytes));
+            segment.recover();
+            return segment;
+        }
+
+        private static MappedByteBuffer map(Path path, long size) throws IOException {
+            // The mapping outlives the channel; unwritten parts of the file stay sparse
+            try (FileChannel channel = FileChannel.open(path,
+                    StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+                return channel.map(FileChannel.MapMode.READ_WRITE, 0, size);
+            }
+        }
+
+        private void recover() {
+            // Append times are never 0, so the first zero entry ends the index
+            int count = 0;
+            while (count < maxEntries && appendMillis(count) != 0) {
+                count++;
+            }
+            if (count > 0) {
+                int last = index.getInt((count - 1) * INDEX_ENTRY_BYTES);
+                writePosition = last + Integer.BYTES + records.getInt(last);
+            }
+            entries = count;
+        }
+
+        boolean hasRoom(int recordBytes) {
+            return entries < maxEntries && writePosition + recordBytes <= records.capacity();
+        }
+
+        long commit(int position, int recordBytes, long appendMillis) {
+            int entry = entries;
+            index.putInt(entry * INDEX_ENTRY_BYTES, position);
+            index.putLong(entry * INDEX_ENTRY_BYTES + Integer.BYTES, appendMillis);
+            writePosition = position + recordBytes;
+            entries = entry + 1;
+            return baseSequence + entry;
+        }
+
+        long appendMillis(int entry) {
+            return index.getLong(entry * INDEX_ENTRY_BYTES + Integer.BYTES);
+        }
+
+        long lastAppendMillis() {
+            int count = entries;
+            return count > 0 ? appendMillis(count - 1) : 0;
+        }
+
+        long usedBytes() {
+            return writePosition + (long) entries * INDEX_ENTRY_BYTES;
+        }
+
+        Entry read(int entry) {
+            ByteBuffer in = records.duplicate();
+            in.position(index.getInt(entry * INDEX_ENTRY_BYTES) + Integer.BYTES);
+            long offset = in.getLong();
+            long timestamp = in.getLong();
+            int partition = in.getInt();
+            long processedAtMillis = in.getLong();
+            KafkaMessage message = KafkaMessage.builder()
+                    .offset(offset >= 0 ? offset : null)
+                    .timestamp(timestamp >= 0 ? timestamp : null)
+                    .partition(partition >= 0 ? partition : null)
+                    .processedAtMillis(processedAtMillis)
+                    .id(getString(in))
+                    .topic(getString(in))
+                    .messageKey(getString(in))
+                    .rawContent(getBytes(in)) // Decoded when the content is first read
+                    .build();
+            return new Entry(baseSequence + entry, appendMillis(entry), message);
+        }
+
+        void force() {
+            records.force();
+            index.force();
+        }
+
+        void delete() {
+            try {
+                Files.deleteIfExists(recordsPath);
+                Files.deleteIfExists(indexPath);
+            } catch (IOException e) {
+                log.warn("Could not delete journal segment {}: {}", recordsPath, e.getMessage());
+            }
+        }
+    }
+}
@@ -0,0 +1,51 @@
+package com.dhi.camelkafka.store;
+
+import com.dhi.camelkafka.model.KafkaMessage;
+
+/**
+ * Filter for recent messages; null fields do not filter.
+ *
+ * @param topic Exact topic
+ * @param partition Exact partition
+ * @param key Exact message key
+ * @param fromOffset Lowest offset, inclusive
+ * @param toOffset Highest offset, inclusive
+ * @param fromTime Earliest processing time in epoch millis, inclusive
+ * @param toTime Latest processing time in epoch millis, inclusive
+ */
+public record MessageQuery(String topic, Integer partition, String key, Long fromOffset, Long toOffset,
+                           Long fromTime, Long toTime) {
+
+    /**
+     * A query for all messages of a topic.
+     */
+    public static MessageQuery forTopic(String topic) {
+        return new MessageQuery(topic, null, null, null, null, null, null);
+    }
+
+    /**
+     * Check whether a message passes every filter of this query.
+     */
+    public boolean matches(KafkaMessage message) {
+        if (topic != null && !topic.equals(message.getTopic())) {
+            return false;
+        }
+        if (partition != null && !partition.equals(message.getPartition())) {
+            return false;
+        }
+        if (key != null && !key.equals(message.getMessageKey())) {
+            return false;
+        }
+        if (fromOffset != null || toOffset != null) {
+            Long offset = message.getOffset();
+            if (offset == null || (fromOffset != null && offset < fromOffset) || (toOffset != null && offset > toOffset)) {
+                return false;
+            }
+        }
+        if (fromTime != null || toTime != null) {
+            long processedAt = message.getProcessedAtMillis();
+            return (fromTime == null || processedAt >= fromTime) && (toTime == null || processedAt <= toTime);
+        }
+        return true;
+    }
+}
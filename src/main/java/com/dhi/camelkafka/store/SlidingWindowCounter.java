@@ -0,0 +1,77 @@
+package com.dhi.camelkafka.store;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Event counter over a sliding window of one-second buckets.
+ * Each bucket is stamped with the epoch second it counts; a bucket whose stamp is older than the
+ * current lap is reset by the first writer that reaches it, so recording never allocates.
+ * An increment racing with a bucket reset may be lost, which is acceptable for rate reporting.
+ */
+public class SlidingWindowCounter {
+
+    private final int windowSeconds;
+    private final AtomicLongArray counts;
+    private final AtomicLongArray stamps;
+
+    public SlidingWindowCounter(int windowSeconds) {
+        if (windowSeconds <= 0) {
+            throw new IllegalArgumentException("Window must be positive: " + windowSeconds);
+        }
+        this.windowSeconds = windowSeconds;
+        this.counts = new AtomicLongArray(windowSeconds);
+        this.stamps = new AtomicLongArray(windowSeconds);
+    }
+
+    /**
+     * Record one event at the given time.
+     *
+     * @param epochMillis The event time
+     */
+    public void increment(long epochMillis) {
+        long second = epochMillis / 1000;
+        int index = (int) (second % windowSeconds);
+        long stamp = stamps.get(index);
+        if (stamp != second) {
+            if (stamp > second) {
+                return; // Event older than the window
+            }
+            if (stamps.compareAndSet(index, stamp, second)) {
+                counts.set(index, 0);
+            }
+        }
+        counts.incrementAndGet(index);
+    }
+
+    /**
+     * Count events in the last {@code seconds} complete and current seconds.
+     *
+     * @param epochMillis The current time
+     * @param seconds Window length, at most the configured window
+     * @return Number of events in the window
+     */
+    public long sum(long epochMillis, int seconds) {
+        long now = epochMillis / 1000;
+        long oldest = now - Math.min(seconds, windowSeconds) + 1;
+        long total = 0;
+        for (int i = 0; i < windowSeconds; i++) {
+            long stamp = stamps.get(i);
+            if (stamp >= oldest && stamp <= now) {
+                total += counts.get(i);
+            }
+        }
+        return total;
+    }
+
+    /**
+     * Average events per second over the last {@code seconds}.
+     *
+     * @param epochMillis The current time
+     * @param seconds Window length, at most the configured window
+     * @return Events per second
+     */
+    public double ratePerSecond(long epochMillis, int seconds) {
+        int window = Math.min(seconds, windowSeconds);
+        return (double) sum(epochMillis, window) / window;
+    }
+}
@@ -0,0 +1,115 @@
+package com.dhi.camelkafka.store;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Lifetime message counters per topic and partition, maintained incrementally on insert.
+ * Counts are striped {@link LongAdder}s so concurrent consumer threads do not contend on one cache line,
+ * and reading the totals is proportional to the number of topics and partitions, not messages.
+ */
+public class TopicPartitionCounters {
+
+    private final ConcurrentMap<String, TopicCounter> topics = new ConcurrentHashMap<>();
+    private final LongAdder total = new LongAdder();
+
+    /**
+     * Count a message.
+     *
+     * @param topic The message topic
+     * @param partition The message partition, may be null
+     * @param offset The message offset, may be null
+     */
+    public void record(String topic, Integer partition, Long offset) {
+        total.increment();
+        if (topic == null) {
+            return;
+        }
+        TopicCounter topicCounter = topics.get(topic);
+        if (topicCounter == null) {
+            topicCounter = topics.computeIfAbsent(topic, TopicCounter::new);
+        }
+        topicCounter.record(partition, offset);
+    }
+
+    public long getTotal() {
+        return total.sum();
+    }
+
+    public int getTopicCount() {
+        return topics.size();
+    }
+
+    public int getPartitionCount() {
+        int count = 0;
+        for (TopicCounter topicCounter : topics.values()) {
+            count += topicCounter.partitions.size();
+        }
+        return count;
+    }
+
+    /**
+     * Get a point-in-time view of all counters, sorted by topic and partition.
+     *
+     * @return Topic counts with their partition counts and last offsets
+     */
+    public List<TopicCount> snapshot() {
+        List<TopicCount> result = new ArrayList<>(topics.size());
+        for (TopicCounter topicCounter : topics.values()) {
+            List<PartitionCount> partitions = new ArrayList<>(topicCounter.partitions.size());
+            topicCounter.partitions.forEach((partition, counter) ->
+                    partitions.add(new PartitionCount(partition, counter.count.sum(), counter.lastOffset.get())));
+            partitions.sort(Comparator.comparingInt(PartitionCount::partition));
+            result.add(new TopicCount(topicCounter.topic, topicCounter.count.sum(), partitions));
+        }
+        result.sort(Comparator.comparing(TopicCount::topic));
+        return result;
+    }
+
+    private static final class TopicCounter {
+        private final String topic;
+        private final LongAdder count = new LongAdder();
+        private final ConcurrentMap<Integer, PartitionCounter> partitions = new ConcurrentHashMap<>();
+
+        TopicCounter(String topic) {
+            this.topic = topic;
+        }
+
+        void record(Integer partition, Long offset) {
+            count.increment();
+            if (partition == null) {
+                return;
+            }
+            PartitionCounter partitionCounter = partitions.get(partition);
+            if (partitionCounter == null) {
+                partitionCounter = partitions.computeIfAbsent(partition, p -> new PartitionCounter());
+            }
+            partitionCounter.count.increment();
+            if (offset != null) {
+                partitionCounter.lastOffset.accumulateAndGet(offset, Math::max);
+            }
+        }
+    }
+
+    private static final class PartitionCounter {
+        private final LongAdder count = new LongAdder();
+        private final AtomicLong lastOffset = new AtomicLong(-1);
+    }
+
+    /**
+     * Lifetime count of one topic.
+     */
+    public record TopicCount(String topic, long messages, List<PartitionCount> partitions) {
+    }
+
+    /**
+     * Lifetime count and highest seen offset of one partition.
+     */
+    public record PartitionCount(int partition, long messages, long lastOffset) {
+    }
+}
@@ -0,0 +1,197 @@
+package com.dhi.camelkafka.aggregate;
+
+import com.dhi.camelkafka.config.AggregationDefinition;
+import com.dhi.camelkafka.config.AggregationGroupBy;
+import com.dhi.camelkafka.config.AggregationProperties;
+import com.dhi.camelkafka.config.ExtractionProperties;
+import com.dhi.camelkafka.extract.JsonFieldExtractor;
+import com.dhi.camelkafka.metrics.ConsumerMetrics;
+import com.dhi.camelkafka.model.KafkaMessage;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Tests for the windowed aggregations and the percentile histogram.
+ */
+class WindowedAggregationTest {
+
+    private final JsonFieldExtractor extractor = extractor();
+
+    @Test
+    void countsTumblingWindowsPerKey() {
+        AggregationDefinition definition = definition("by-key", 1000, null, 0);
+        definition.setGroupBy(AggregationGroupBy.KEY);
+        WindowedAggregation aggregation = new WindowedAggregation(definition);
+        aggregation.add(message("a", 100, "{}"));
+        aggregation.add(message("a", 200, "{}"));
+        aggregation.add(message("b", 300, "{}"));
+        aggregation.add(message("a", 1100, "{}"));
+        aggregation.add(message("b", 2500, "{}"));
+
+        List<WindowedAggregation.Window> windows = aggregation.windows(10, null);
+        assertEquals(3, windows.size());
+        assertWindow(windows.get(0), 2000, false, Map.of("b", 1L));
+        assertWindow(windows.get(1), 1000, true, Map.of("a", 1L));
+        assertWindow(windows.get(2), 0, true, Map.of("a", 2L, "b", 1L));
+        assertEquals("a", windows.get(2).groups().get(0).key()); // Largest count first
+        assertNull(windows.get(2).groups().get(0).sum()); // No value field
+
+        List<WindowedAggregation.Window> onlyB = aggregation.windows(10, "b");
+        assertWindow(onlyB.get(2), 0, true, Map.of("b", 1L));
+        assertEquals(1, aggregation.windows(1, null).size());
+    }
+
+    @Test
+    void mergesPanesOfSlidingWindows() {
+        AggregationDefinition definition = definition("latency", 3000, 1000L, 10000);
+        definition.setValueField("latency");
+        WindowedAggregation aggregation = new WindowedAggregation(definition);
+        aggregation.add(message("a", 500, "{\"latency\":10}"));
+        aggregation.add(message("a", 1500, "{\"latency\":20}"));
+        aggregation.add(message("a", 2500, "{\"latency\":30}"));
+        aggregation.add(message("a", 2600, "{\"other\":1}")); // Counted without a value
+
+        List<WindowedAggregation.Window> windows = aggregation.windows(2, null);
+        assertEquals(2, windows.size());
+        WindowedAggregation.Group newest = windows.get(0).groups().get(0);
+        assertEquals(0, windows.get(0).start());
+        assertEquals("ecs.AccessLogJsonV1", newest.key());
+        assertEquals(4, newest.count());
+        assertEquals(60.0, newest.sum());
+        assertEquals(10.0, newest.min());
+        assertEquals(30.0, newest.max());
+        assertEquals(20.0, newest.mean());
+        assertEquals(20.0, newest.p50(), 20.0 * 0.01);
+
+        WindowedAggregation.Group older = windows.get(1).groups().get(0);
+        assertEquals(-1000, windows.get(1).start());
+        assertEquals(2, older.count());
+        assertEquals(30.0, older.sum());
+        assertFalse(windows.get(1).complete());
+    }
+
+    @Test
+    void dropsAndCountsLateRecords() {
+        AggregationProperties properties = new AggregationProperties();
+        properties.setEnabled(true);
+        properties.setDefinitions(List.of(definition("late", 1000, null, 500)));
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+        AggregationService service = new AggregationService(properties, new ConsumerMetrics(registry));
+
+        service.record(message("a", 5000, "{}"));
+        service.record(message("a", 3200, "{}")); // Its window closed when the watermark reached 4500
+        service.record(message("a", 4100, "{}"));
+        KafkaMessage redelivered = message("a", 5100, "{}");
+        redelivered.setRetryAttempt(1);
+        service.record(redelivered);
+
+        WindowedAggregation.Summary summary = service.getAggregations().get(0);
+        assertEquals(2, summary.records());
+        assertEquals(1, summary.lateRecords());
+        assertEquals(4500L, summary.watermark());
+        assertEquals(1.0, registry.get("kafka.consumer.aggregation.late.records")
+                .tag("aggregation", "late").functionCounter().count());
+        assertTrue(service.hasAggregation("late"));
+        assertTrue(service.getWindows("unknown", 10, null).isEmpty());
+    }
+
+    @Test
+    void dropsRecordsTimestampedTooFarInTheFuture() {
+        AggregationProperties properties = new AggregationProperties();
+        properties.setEnabled(true);
+        properties.setDefinitions(List.of(definition("future", 1000, null, 500)));
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+        AggregationService service = new AggregationService(properties, new ConsumerMetrics(registry));
+
+        long now = System.currentTimeMillis();
+        service.record(message("a", now, "{}"));
+        service.record(message("a", now + 3_600_000, "{}")); // Producer clock an hour ahead
+        service.record(message("a", now - 200, "{}")); // Not late, the watermark did not move to the bad record
+        service.record(message("a", now + 30_000, "{}")); // Within the default minute
+
+        WindowedAggregation.Summary summary = service.getAggregations().get(0);
+        assertEquals(3, summary.records());
+        assertEquals(0, summary.lateRecords());
+        assertEquals(1, summary.futureRecords());
+        assertEquals(now + 30_000 - 500, summary.watermark());
+        assertEquals(1.0, registry.get("kafka.consumer.aggregation.future.records")
+                .tag("aggregation", "future").functionCounter().count());
+    }
+
+    @Test
+    void estimatesPercentilesWithinTheRelativeAccuracy() {
+        LogHistogram lower = new LogHistogram(0.01);
+        LogHistogram upper = new LogHistogram(0.01);
+        assertTrue(Double.isNaN(lower.quantile(0.5)));
+        for (int value = 1; value <= 10000; value++) {
+            (value <= 5000 ? lower : upper).add(value);
+        }
+        upper.merge(lower);
+
+        assertEquals(10000, upper.getCount());
+        assertEquals(5000, upper.quantile(0.5), 5000 * 0.01);
+        assertEquals(9900, upper.quantile(0.99), 9900 * 0.01);
+
+        LogHistogram zeros = new LogHistogram(0.01);
+        zeros.add(0);
+        zeros.add(-3);
+        zeros.add(7);
+        assertEquals(0, zeros.quantile(0.5));
+        assertThrows(IllegalArgumentException.class, () -> zeros.merge(new LogHistogram(0.05)));
+    }
+
+    @Test
+    void rejectsSlidesThatDoNotDivideTheWindow() {
+        assertThrows(IllegalArgumentException.class, () -> new WindowedAggregation(definition("bad", 1000, 300L, 0)));
+        assertThrows(IllegalArgumentException.class, () -> new WindowedAggregation(definition("bad", 1000, 2000L, 0)));
+        AggregationDefinition byField = definition("field", 1000, null, 0);
+        byField.setGroupBy(AggregationGroupBy.FIELD);
+        assertThrows(IllegalArgumentException.class, () -> new WindowedAggregation(byField));
+    }
+
+    private static void assertWindow(WindowedAggregation.Window window, long start, boolean complete, Map<String, Long> counts) {
+        assertEquals(start, window.start());
+        assertEquals(complete, window.complete());
+        assertEquals(counts.size(), window.groups().size());
+        for (WindowedAggregation.Group group : window.groups()) {
+            assertEquals(counts.get(group.key()), group.count());
+        }
+    }
+
+    private static AggregationDefinition definition(String name, long windowMs, Long slideMs, long allowedLatenessMs) {
+        AggregationDefinition definition = new AggregationDefinition();
+        definition.setName(name);
+        definition.setWindowMs(windowMs);
+        definition.setSlideMs(slideMs);
+        definition.setAllowedLatenessMs(allowedLatenessMs);
+        return definition;
+    }
+
+    private KafkaMessage message(String key, long timestamp, String json) {
+        KafkaMessage message = KafkaMessage.builder()
+                .topic("ecs.AccessLogJsonV1")
+                .messageKey(key)
+                .timestamp(timestamp)
+                .rawContent(json.getBytes(StandardCharsets.UTF_8))
+                .build();
+        message.setFields(extractor.extract(message));
+        return message;
+    }
+
+    private static JsonFieldExtractor extractor() {
+        ExtractionProperties properties = new ExtractionProperties();
+        properties.setEnabled(true);
+        properties.setFields(Map.of("latency", "$.latency"));
+        return new JsonFieldExtractor(properties);
+    }
+}
@@ -0,0 +1,146 @@
+package com.dhi.camelkafka.avro;
+
+import com.dhi.camelkafka.model.KafkaMessage;
+import io.confluent.kafka.schemaregistry.ParsedSchema;
+import io.confluent.kafka.schemaregistry.avro.AvroSchema;
+import io.confluent.kafka.schemaregistry.client.MockSchemaRegistryClient;
+import io.confluent.kafka.schemaregistry.client.rest.exceptions.RestClientException;
+import org.apache.avro.Schema;
+import org.apache.avro.generic.GenericData;
+import org.apache.avro.generic.GenericDatumWriter;
+import org.apache.avro.generic.GenericRecord;
+import org.apache.avro.io.BinaryEncoder;
+import org.apache.avro.io.EncoderFactory;
+import org.apache.kafka.common.errors.SerializationException;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Tests for Avro decoding against an in-process mock schema registry.
+ */
+class AvroRecordDecoderTest {
+
+    static final String PURCHASE_SCHEMA = """
+            {"type":"record","name":"Purchase","namespace":"com.dhi.camelkafka.avro","fields":[
+             {"name":"id","type":"string"},{"name":"item","type":"string"},
+             {"name":"quantity","type":"int"},{"name":"total","type":"double"}]}""";
+
+    private static final String REFUND_SCHEMA = """
+            {"type":"record","name":"Refund","namespace":"com.dhi.camelkafka.avro.other","fields":[
+             {"name":"id","type":"string"},{"name":"amount","type":"double"}]}""";
+
+    private CountingRegistryClient registry;
+    private int purchaseSchemaId;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        registry = new CountingRegistryClient();
+        purchaseSchemaId = registry.register("avro-purchase-value", new AvroSchema(PURCHASE_SCHEMA));
+    }
+
+    @Test
+    void decodesGenericRecordsWithOneSchemaLookup() throws IOException {
+        AvroRecordDecoder decoder = new AvroRecordDecoder(registry, 10, false);
+        KafkaMessage first = KafkaMessage.builder().rawContent(encode(purchaseSchemaId, purchase("p-1", 2))).build();
+        KafkaMessage second = KafkaMessage.builder().rawContent(encode(purchaseSchemaId, purchase("p-2", 5))).build();
+
+        assertTrue(decoder.appliesTo(first));
+        GenericRecord record = assertInstanceOf(GenericRecord.class, decoder.decode(first));
+        assertEquals("p-1", record.get("id").toString());
+        assertEquals(2, record.get("quantity"));
+        assertEquals(5, ((GenericRecord) decoder.decode(second)).get("quantity"));
+
+        assertEquals(1, registry.lookups);
+        assertEquals(1, decoder.getSchemaLookups());
+
+        first.setRecord(record);
+        assertFalse(first.isContentBlank());
+        assertTrue(first.getContent().contains("\"item\": \"book\""));
+        assertEquals(((byte[]) first.getRawContent()).length, first.getContentLength());
+    }
+
+    @Test
+    void decodesIntoGeneratedClassWhenSpecificReaderIsEnabled() throws IOException {
+        AvroRecordDecoder decoder = new AvroRecordDecoder(registry, 10, true);
+        byte[] value = encode(purchaseSchemaId, purchase("p-3", 7));
+
+        Purchase purchase = assertInstanceOf(Purchase.class, decoder.decode(value, 0, value.length));
+        assertEquals("p-3", purchase.getId());
+        assertEquals("book", purchase.getItem());
+        assertEquals(7, purchase.getQuantity());
+        assertEquals(17.5, purchase.getTotal(), 0.0);
+    }
+
+    @Test
+    void evictsReadersBeyondCapacity() throws Exception {
+        AvroRecordDecoder decoder = new AvroRecordDecoder(registry, 1, false);
+        int refundSchemaId = registry.register("refunds-value", new AvroSchema(REFUND_SCHEMA));
+        GenericRecord refund = new GenericData.Record(new Schema.Parser().parse(REFUND_SCHEMA));
+        refund.put("id", "r-1");
+        refund.put("amount", 3.0);
+        byte[] purchaseValue = encode(purchaseSchemaId, purchase("p-4", 1));
+        byte[] refundValue = encode(refundSchemaId, refund);
+
+        decoder.decode(purchaseValue, 0, purchaseValue.length);
+        decoder.decode(refundValue, 0, refundValue.length);
+        decoder.decode(purchaseValue, 0, purchaseValue.length);
+
+        assertEquals(1, decoder.getCachedSchemaCount());
+        assertEquals(3, decoder.getSchemaLookups());
+    }
+
+    @Test
+    void leavesValuesWithoutAvroFramingAlone() {
+        AvroRecordDecoder decoder = new AvroRecordDecoder(registry, 10, false);
+        byte[] json = "{\"id\":\"p-5\"}".getBytes(StandardCharsets.UTF_8);
+
+        assertFalse(decoder.appliesTo(KafkaMessage.builder().rawContent(json).build()));
+        assertFalse(decoder.appliesTo(KafkaMessage.builder().rawContent("text").build()));
+        assertThrows(SerializationException.class, () -> decoder.decode(json, 0, json.length));
+        assertFalse(new AvroRecordDecoder(null, 10, false)
+                .appliesTo(KafkaMessage.builder().rawContent(new byte[]{0, 0, 0, 0, 1, 2}).build()));
+    }
+
+    private static GenericRecord purchase(String id, int quantity) {
+        GenericRecord record = new GenericData.Record(new Schema.Parser().parse(PURCHASE_SCHEMA));
+        record.put("id", id);
+        record.put("item", "book");
+        record.put("quantity", quantity);
+        record.put("total", quantity * 2.5);
+        return record;
+    }
+
+    private static byte[] encode(int schemaId, GenericRecord record) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        out.write(0);
+        out.write(ByteBuffer.allocate(4).putInt(schemaId).array());
+        BinaryEncoder encoder = EncoderFactory.get().binaryEncoder(out, null);
+        new GenericDatumWriter<GenericRecord>(record.getSchema()).write(record, encoder);
+        encoder.flush();
+        return out.toByteArray();
+    }
+
+    /**
+     * Mock registry that counts schema lookups by id.
+     */
+    private static class CountingRegistryClient extends MockSchemaRegistryClient {
+        private int lookups;
+
+        @Override
+        public ParsedSchema getSchemaById(int id) throws IOException, RestClientException {
+            lookups++;
+            return super.getSchemaById(id);
+        }
+    }
+}
@@ -0,0 +1,60 @@
+package com.dhi.camelkafka.avro;
+
+import org.apache.avro.Schema;
+import org.apache.avro.specific.SpecificRecordBase;
+
+/**
+ * Hand-written equivalent of an avro-maven-plugin generated class for {@link AvroRecordDecoderTest#PURCHASE_SCHEMA}.
+ */
+public class Purchase extends SpecificRecordBase {
+
+    public static final Schema SCHEMA$ = new Schema.Parser().parse(AvroRecordDecoderTest.PURCHASE_SCHEMA);
+
+    private String id;
+    private String item;
+    private int quantity;
+    private double total;
+
+    @Override
+    public Schema getSchema() {
+        return SCHEMA$;
+    }
+
+    @Override
+    public Object get(int field) {
+        return switch (field) {
+            case 0 -> id;
+            case 1 -> item;
+            case 2 -> quantity;
+            case 3 -> total;
+            default -> throw new IndexOutOfBoundsException("Invalid field index " + field);
+        };
+    }
+
+    @Override
+    public void put(int field, Object value) {
+        switch (field) {
+            case 0 -> id = value.toString();
+            case 1 -> item = value.toString();
+            case 2 -> quantity = (Integer) value;
+            case 3 -> total = (Double) value;
+            default -> throw new IndexOutOfBoundsException("Invalid field index " + field);
+        }
+    }
+
+    public String getId() {
+        return id;
+    }
+
+    public String getItem() {
+        return item;
+    }
+
+    public int getQuantity() {
+        return quantity;
+    }
+
+    public double getTotal() {
+        return total;
+    }
+}
@@ -0,0 +1,200 @@
+package com.dhi.camelkafka.commit;
+
+import com.dhi.camelkafka.config.KafkaProperties;
+import com.dhi.camelkafka.metrics.ConsumerMetrics;
+import com.dhi.camelkafka.model.KafkaMessage;
+import com.dhi.camelkafka.service.KafkaCallbackService;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.apache.kafka.clients.consumer.CommitFailedException;
+import org.apache.kafka.clients.consumer.Consumer;
+import org.apache.kafka.clients.consumer.ConsumerRebalanceListener;
+import org.apache.kafka.clients.consumer.MockConsumer;
+import org.apache.kafka.clients.consumer.OffsetAndMetadata;
+import org.apache.kafka.clients.consumer.OffsetCommitCallback;
+import org.apache.kafka.clients.consumer.OffsetResetStrategy;
+import org.apache.kafka.clients.consumer.RetriableCommitFailedException;
+import org.apache.kafka.common.TopicPartition;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+/**
+ * Tests for coalesced commits, their callbacks, retries and failures, and partition revocation.
+ */
+class OffsetCommitterTest {
+
+    private final TopicPartition partition = new TopicPartition("test-topic", 0);
+    private final KafkaCallbackService callbackService = new KafkaCallbackService();
+    private final KafkaProperties kafkaProperties = new KafkaProperties();
+    private OffsetCommitter committer;
+    private CallbackManualCommitFactory commitFactory;
+
+    @BeforeEach
+    void createCommitter() {
+        kafkaProperties.setCommitIntervalMs(60_000); // Flushed by the tests only
+        committer = new OffsetCommitter(callbackService, kafkaProperties, new ConsumerMetrics(new SimpleMeterRegistry()));
+        commitFactory = new CallbackManualCommitFactory(committer);
+    }
+
+    @AfterEach
+    void shutdown() {
+        committer.shutdown();
+    }
+
+    @Test
+    void commitsOnThePollAfterTheFlushAndCountsTheAcknowledgement() {
+        MockConsumer<String, String> mock = consumer(new AtomicInteger(), null);
+        Consumer<String, String> consumer = commitFactory.wrap(mock);
+
+        for (long offset = 0; offset < 3; offset++) {
+            committer.track(message(offset), commitFactory.newCommit(consumer, partition, offset));
+        }
+        committer.complete(message(2));
+        committer.complete(message(0));
+        committer.complete(message(1));
+        committer.flush();
+        assertNull(mock.committed(Set.of(partition)).get(partition)); // Only queued until the consumer polls
+        assertEquals(0, committer.getCommitStats().getCommits());
+
+        consumer.poll(Duration.ZERO);
+        assertEquals(3, mock.committed(Set.of(partition)).get(partition).offset());
+        OffsetCommitter.CommitStats stats = committer.getCommitStats();
+        assertEquals(1, stats.getCommits());
+        assertEquals(0, stats.getCommitErrors());
+        assertEquals(0, stats.getInFlightRecords());
+    }
+
+    @Test
+    void retriesRetriableFailuresAfterTheBackoff() throws InterruptedException {
+        kafkaProperties.setCommitMaxRetries(2);
+        kafkaProperties.setCommitRetryBackoffMs(1);
+        AtomicInteger attempts = new AtomicInteger();
+        MockConsumer<String, String> mock = consumer(attempts, new RetriableCommitFailedException("coordinator moved"));
+        Consumer<String, String> consumer = commitFactory.wrap(mock);
+
+        committer.track(message(5), commitFactory.newCommit(consumer, partition, 5));
+        committer.complete(message(5));
+        committer.flush();
+        long deadline = System.currentTimeMillis() + 5000;
+        while (mock.committed(Set.of(partition)).get(partition) == null && System.currentTimeMillis() < deadline) {
+            consumer.poll(Duration.ZERO);
+            Thread.sleep(1);
+        }
+
+        assertEquals(6, mock.committed(Set.of(partition)).get(partition).offset());
+        assertEquals(2, attempts.get()); // Failed once, then committed
+        assertEquals(1, committer.getCommitStats().getCommits());
+        assertEquals(0, committer.getCommitStats().getCommitErrors());
+    }
+
+    @Test
+    void reportsFailuresThatCannotBeRetried() {
+        MockConsumer<String, String> mock = consumer(new AtomicInteger(), new CommitFailedException());
+        Consumer<String, String> consumer = commitFactory.wrap(mock);
+
+        committer.track(message(7), commitFactory.newCommit(consumer, partition, 7));
+        committer.complete(message(7));
+        committer.flush();
+        consumer.poll(Duration.ZERO);
+
+        assertEquals(1, committer.getCommitStats().getCommitErrors());
+        assertEquals(0, committer.getCommitStats().getCommits());
+        assertEquals(1, callbackService.getErrorCount());
+    }
+
+    @Test
+    void commitsAndReleasesRevokedPartitions() {
+        AtomicReference<ConsumerRebalanceListener> rebalanceListener = new AtomicReference<>();
+        MockConsumer<String, String> mock = new MockConsumer<>(OffsetResetStrategy.EARLIEST) {
+            @Override
+            public synchronized void subscribe(Collection<String> topics, ConsumerRebalanceListener listener) {
+                rebalanceListener.set(listener);
+                super.subscribe(topics, listener);
+            }
+        };
+        Consumer<String, String> consumer = commitFactory.wrap(mock);
+        AtomicReference<Collection<TopicPartition>> revoked = new AtomicReference<>();
+        consumer.subscribe(List.of(partition.topic()), new ConsumerRebalanceListener() {
+            @Override
+            public void onPartitionsRevoked(Collection<TopicPartition> partitions) {
+                revoked.set(partitions);
+            }
+
+            @Override
+            public void onPartitionsAssigned(Collection<TopicPartition> partitions) {
+            }
+        });
+        mock.rebalance(List.of(partition));
+        mock.updateBeginningOffsets(Map.of(partition, 0L));
+
+        committer.track(message(0), commitFactory.newCommit(consumer, partition, 0));
+        committer.track(message(1), commitFactory.newCommit(consumer, partition, 1));
+        committer.complete(message(0));
+        rebalanceListener.get().onPartitionsRevoked(List.of(partition));
+
+        assertEquals(1, mock.committed(Set.of(partition)).get(partition).offset()); // Committed before the handover
+        assertEquals(List.of(partition), revoked.get());
+        assertEquals(0, committer.getInFlightCount(partition));
+        committer.complete(message(1)); // Finished on a worker after the revocation
+        committer.flush();
+        consumer.poll(Duration.ZERO);
+        assertEquals(1, mock.committed(Set.of(partition)).get(partition).offset());
+        assertEquals(1, committer.getCommitStats().getCommits());
+    }
+
+    @Test
+    void commitsQueuedOffsetsWhenTheConsumerCloses() {
+        Consumer<String, String> consumer = commitFactory.wrap(consumer(new AtomicInteger(), null));
+        AtomicReference<Map<TopicPartition, OffsetAndMetadata>> committed = new AtomicReference<>();
+        AtomicReference<Exception> lateError = new AtomicReference<>();
+        commitFactory.newCommit(consumer, partition, 9).commit((offsets, error) -> committed.set(offsets));
+        consumer.close();
+        commitFactory.newCommit(consumer, partition, 10).commit((offsets, error) -> lateError.set(error));
+
+        assertEquals(10, committed.get().get(partition).offset());
+        assertInstanceOf(IllegalStateException.class, lateError.get());
+        assertThrows(IllegalStateException.class,
+                () -> commitFactory.newCommit(new MockConsumer<String, String>(OffsetResetStrategy.EARLIEST), partition, 0));
+    }
+
+    /**
+     * A consumer of the test partition whose first asynchronous commit fails with the given error, if any.
+     */
+    private MockConsumer<String, String> consumer(AtomicInteger attempts, RuntimeException firstError) {
+        MockConsumer<String, String> consumer = new MockConsumer<>(OffsetResetStrategy.EARLIEST) {
+            @Override
+            public synchronized void commitAsync(Map<TopicPartition, OffsetAndMetadata> offsets, OffsetCommitCallback callback) {
+                if (attempts.incrementAndGet() == 1 && firstError != null) {
+                    callback.onComplete(offsets, firstError);
+                    return;
+                }
+                super.commitAsync(offsets, callback);
+            }
+        };
+        consumer.assign(List.of(partition));
+        consumer.updateBeginningOffsets(Map.of(partition, 0L));
+        return consumer;
+    }
+
+    private KafkaMessage message(long offset) {
+        return KafkaMessage.builder()
+                .id(partition.topic() + "-" + partition.partition() + "-" + offset)
+                .topic(partition.topic())
+                .partition(partition.partition())
+                .offset(offset)
+                .build();
+    }
+}
@@ -0,0 +1,56 @@
+package com.dhi.camelkafka.commit;
+
+import org.apache.kafka.common.TopicPartition;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+/**
+ * Tests for low-watermark offset tracking.
+ */
+class OffsetTrackerTest {
+
+    private final TopicPartition partition = new TopicPartition("test-topic", 0);
+
+    @Test
+    void watermarkWaitsForEarlierRecords() {
+        OffsetTracker<String> tracker = new OffsetTracker<>();
+        tracker.register(partition, 10, "r10");
+        tracker.register(partition, 11, "r11");
+        tracker.register(partition, 13, "r13"); // Gap, e.g. a compacted offset
+
+        assertNull(tracker.complete(partition, 13));
+        assertNull(tracker.complete(partition, 11));
+        assertEquals(-1, tracker.getCommittableOffset(partition));
+
+        assertEquals("r13", tracker.complete(partition, 10));
+        assertEquals(14, tracker.getCommittableOffset(partition));
+        assertEquals(0, tracker.getInFlightCount());
+    }
+
+    @Test
+    void growsBeyondInitialCapacity() {
+        OffsetTracker<Long> tracker = new OffsetTracker<>();
+        for (long offset = 0; offset < 1000; offset++) {
+            tracker.register(partition, offset, offset);
+        }
+        for (long offset = 999; offset > 0; offset--) {
+            assertNull(tracker.complete(partition, offset));
+        }
+
+        assertEquals(999L, tracker.complete(partition, 0));
+        assertEquals(1000, tracker.getCommittableOffset(partition));
+    }
+
+    @Test
+    void rewindDiscardsPreviousState() {
+        OffsetTracker<String> tracker = new OffsetTracker<>();
+        tracker.register(partition, 5, "r5");
+        tracker.register(partition, 6, "r6");
+        tracker.register(partition, 5, "r5-again");
+
+        assertEquals(1, tracker.getInFlightCount(partition));
+        assertEquals("r5-again", tracker.complete(partition, 5));
+    }
+}
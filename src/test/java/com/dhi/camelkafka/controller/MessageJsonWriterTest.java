@@ -0,0 +1,54 @@
+package com.dhi.camelkafka.controller;
+
+import com.dhi.camelkafka.model.KafkaMessage;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.io.StringWriter;
+import java.nio.charset.StandardCharsets;
+import java.util.EnumSet;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+/**
+ * Tests for the projecting message JSON writer.
+ */
+class MessageJsonWriterTest {
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    @Test
+    void writesOnlyTheProjectedFieldsInDeclarationOrder() throws IOException {
+        KafkaMessage message = KafkaMessage.builder()
+                .id("orders-0-42")
+                .topic("orders")
+                .partition(0)
+                .offset(42L)
+                .rawContent("{\"a\":\"\\u00e9\"}".getBytes(StandardCharsets.UTF_8))
+                .build();
+
+        assertEquals("{\"id\":\"orders-0-42\",\"topic\":\"orders\",\"offset\":42}",
+                write(message, MessageJsonWriter.parseFields("offset, id,topic")));
+        assertEquals("{\"messageKey\":null,\"content\":\"{\\\"a\\\":\\\"\\\\u00e9\\\"}\"}",
+                write(message, MessageJsonWriter.parseFields("messageKey,content")));
+    }
+
+    @Test
+    void defaultsToAllFieldsAndRejectsUnknownOnes() {
+        assertEquals(EnumSet.allOf(MessageJsonWriter.Field.class), MessageJsonWriter.parseFields(null));
+        assertEquals(EnumSet.allOf(MessageJsonWriter.Field.class), MessageJsonWriter.parseFields(" "));
+        assertThrows(IllegalArgumentException.class, () -> MessageJsonWriter.parseFields("id,formattedInfo"));
+    }
+
+    private String write(KafkaMessage message, Set<MessageJsonWriter.Field> fields) throws IOException {
+        StringWriter out = new StringWriter();
+        try (JsonGenerator generator = objectMapper.createGenerator(out)) {
+            MessageJsonWriter.write(generator, message, fields);
+        }
+        return out.toString();
+    }
+}
@@ -0,0 +1,132 @@
+package com.dhi.camelkafka.dedup;
+
+import com.dhi.camelkafka.config.KafkaProperties;
+import com.dhi.camelkafka.metrics.ConsumerMetrics;
+import com.dhi.camelkafka.model.KafkaMessage;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Tests for the offset window and key cache deduplication layers.
+ */
+class RecordDeduplicatorTest {
+
+    @Test
+    void remembersOutOfOrderCompletionsAboveTheWatermark() {
+        ProcessedOffsetWindow window = new ProcessedOffsetWindow(128);
+        for (long offset = 100; offset < 110; offset++) {
+            assertFalse(window.checkAndRegister(offset));
+        }
+        window.markProcessed(100);
+        window.markProcessed(101);
+        window.markProcessed(105);
+        window.markProcessed(107);
+        assertEquals(102, window.getWatermark());
+
+        // Redelivery from the last commit point after a rebalance
+        assertTrue(window.checkAndRegister(100));
+        assertTrue(window.checkAndRegister(101));
+        assertFalse(window.checkAndRegister(102));
+        assertTrue(window.checkAndRegister(105));
+        assertFalse(window.checkAndRegister(106));
+        assertTrue(window.checkAndRegister(107));
+        assertTrue(window.checkAndRegister(99)); // Below the first record seen
+
+        window.markProcessed(102);
+        window.markProcessed(103);
+        window.markProcessed(104);
+        window.markProcessed(106);
+        assertEquals(108, window.getWatermark());
+    }
+
+    @Test
+    void treatsSkippedOffsetsAsDoneAndSlidesPastTheWindow() {
+        ProcessedOffsetWindow window = new ProcessedOffsetWindow(64);
+        assertFalse(window.checkAndRegister(10));
+        window.markProcessed(10);
+        assertFalse(window.checkAndRegister(15)); // 11-14 are gaps, e.g. transaction markers
+        assertEquals(15, window.getWatermark());
+        assertTrue(window.checkAndRegister(12));
+
+        assertFalse(window.checkAndRegister(1000));
+        assertEquals(1, window.getSlides());
+        assertEquals(1000, window.getWatermark());
+        assertTrue(window.checkAndRegister(15));
+        window.markProcessed(1000);
+        assertTrue(window.checkAndRegister(1000));
+    }
+
+    @Test
+    void skipsRecordsWithARecentlyProcessedKey() {
+        KafkaProperties kafkaProperties = new KafkaProperties();
+        kafkaProperties.setDedupEnabled(true);
+        kafkaProperties.setDedupKeyTtlMs(60000);
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+        RecordDeduplicator deduplicator = new RecordDeduplicator(kafkaProperties, new ConsumerMetrics(registry));
+
+        KafkaMessage first = message(0, "order-1");
+        assertFalse(deduplicator.isDuplicate(first));
+        deduplicator.markProcessed(first);
+        assertTrue(deduplicator.isDuplicate(message(0, "order-1")));
+        assertTrue(deduplicator.isDuplicate(message(1, "order-1"))); // Produced twice
+        assertFalse(deduplicator.isDuplicate(message(2, "order-2")));
+
+        assertEquals(1.0, registry.get("kafka.consumer.dedup.duplicates").tag("layer", "offset").counter().count());
+        assertEquals(1.0, registry.get("kafka.consumer.dedup.duplicates").tag("layer", "key").counter().count());
+    }
+
+    @Test
+    void doesNotMatchRetriesByTheKeyOfTheFailedRecord() {
+        KafkaProperties kafkaProperties = new KafkaProperties();
+        kafkaProperties.setDedupEnabled(true);
+        kafkaProperties.setDedupKeyTtlMs(60000);
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+        RecordDeduplicator deduplicator = new RecordDeduplicator(kafkaProperties, new ConsumerMetrics(registry));
+
+        KafkaMessage failed = message(0, "order-1");
+        assertFalse(deduplicator.isDuplicate(failed));
+        deduplicator.markHandedOver(failed);
+        assertTrue(deduplicator.isDuplicate(message(0, "order-1"))); // The offset is done
+        assertFalse(deduplicator.isDuplicate(message(1, "order-1"))); // The key is not
+
+        KafkaMessage redelivery = message(0, "order-1");
+        redelivery.setTopic("orders.retry");
+        redelivery.setRetryAttempt(1);
+        deduplicator.markProcessed(message(1, "order-1"));
+        assertFalse(deduplicator.isDuplicate(redelivery)); // Even once the key was processed
+        deduplicator.markProcessed(redelivery);
+        assertTrue(deduplicator.isDuplicate(message(2, "order-1")));
+
+        assertEquals(1.0, registry.get("kafka.consumer.dedup.duplicates").tag("layer", "key").counter().count());
+    }
+
+    @Test
+    void expiresAndBoundsTheKeyCache() {
+        RecordDeduplicator.KeyCache cache = new RecordDeduplicator.KeyCache(2);
+        cache.put("a", 1000, 0);
+        cache.put("b", 1500, 500);
+        assertTrue(cache.contains("a", 900));
+        assertFalse(cache.contains("a", 1000));
+
+        cache.put("c", 2100, 1100); // Expires "a"
+        assertEquals(2, cache.size());
+        cache.put("d", 2200, 1200); // Evicts "b" to stay within the bound
+        assertFalse(cache.contains("b", 1200));
+        assertTrue(cache.contains("c", 1200));
+        assertTrue(cache.contains("d", 1200));
+    }
+
+    private static KafkaMessage message(long offset, String key) {
+        return KafkaMessage.builder()
+                .id("orders-0-" + offset)
+                .topic("orders")
+                .partition(0)
+                .offset(offset)
+                .messageKey(key)
+                .build();
+    }
+}
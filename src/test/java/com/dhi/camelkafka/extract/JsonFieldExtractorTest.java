@@ -0,0 +1,94 @@
+package com.dhi.camelkafka.extract;
+
+import com.dhi.camelkafka.config.ExtractionProperties;
+import com.dhi.camelkafka.model.KafkaMessage;
+import org.junit.jupiter.api.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Tests for streaming JSON field extraction.
+ */
+class JsonFieldExtractorTest {
+
+    private static final String JSON = """
+            {"event":{"duration":1834000,"ok":true},"skipped":{"deep":[1,{"x":2}]},
+             "http":{"response":{"status_code":503}},"url.path":"/dotted",
+             "tags":["edge","canary"],"ratio":0.25,"missing":null}""";
+
+    @Test
+    void extractsSelectedScalarsFromBytes() {
+        JsonFieldExtractor extractor = extractor();
+        ExtractedFields fields = extractor.newFields();
+        byte[] bytes = JSON.getBytes(StandardCharsets.UTF_8);
+
+        assertTrue(extractor.extract(bytes, 0, bytes.length, fields));
+        assertEquals(503, fields.getLong("status", -1));
+        assertEquals(1834000, fields.getLong("duration", -1));
+        assertTrue(fields.getBoolean("ok", false));
+        assertEquals("/dotted", fields.getString("path"));
+        assertEquals("canary", fields.getString("tag"));
+        assertEquals(0.25, fields.getDouble("ratio", 0), 0.0);
+        assertTrue(fields.has("missing"));
+        assertNull(fields.getString("missing"));
+        assertFalse(fields.has("absent"));
+        assertEquals(7, fields.getFoundCount());
+    }
+
+    @Test
+    void readsRawValueOfMessageAndResetsReusedResult() {
+        JsonFieldExtractor extractor = extractor();
+        ExtractedFields fields = extractor.newFields();
+
+        extractor.extract(KafkaMessage.builder().rawContent(JSON.getBytes(StandardCharsets.UTF_8)).build(), fields);
+        assertEquals(503, fields.getLong("status", -1));
+
+        extractor.extract("{\"http\":{\"response\":{\"status_code\":\"n/a\"}}}", fields);
+        assertEquals("n/a", fields.getString("status"));
+        assertEquals(-1, fields.getLong("status", -1));
+        assertFalse(fields.has("duration"));
+        assertEquals(1, fields.getFoundCount());
+    }
+
+    @Test
+    void keepsFieldsFoundBeforeInvalidJson() {
+        JsonFieldExtractor extractor = extractor();
+        ExtractedFields fields = extractor.newFields();
+
+        assertFalse(extractor.extract("{\"ratio\":1.5,\"http\":{", fields));
+        assertEquals(1.5, fields.getDouble("ratio", 0), 0.0);
+        assertFalse(extractor.extract("not json", fields));
+        assertEquals(0, fields.getFoundCount());
+        assertTrue(extractor.extract("42", fields)); // Valid JSON without fields
+        assertEquals(0, fields.getFoundCount());
+    }
+
+    @Test
+    void parsesSelectors() {
+        assertEquals(List.of("a", "b", 2, "c.d"), JsonFieldExtractor.parseSelector("$.a.b[2]['c.d']"));
+        assertEquals(List.of("a", "b"), JsonFieldExtractor.parseSelector("a.b"));
+        assertThrows(IllegalArgumentException.class, () -> JsonFieldExtractor.parseSelector("$.a..b"));
+        assertThrows(IllegalArgumentException.class, () -> JsonFieldExtractor.parseSelector("$.a[x]"));
+    }
+
+    private static JsonFieldExtractor extractor() {
+        ExtractionProperties properties = new ExtractionProperties();
+        properties.setEnabled(true);
+        properties.getFields().put("status", "$.http.response.status_code");
+        properties.getFields().put("duration", "$.event.duration");
+        properties.getFields().put("ok", "event.ok");
+        properties.getFields().put("path", "$['url.path']");
+        properties.getFields().put("tag", "$.tags[1]");
+        properties.getFields().put("ratio", "$.ratio");
+        properties.getFields().put("missing", "$.missing");
+        properties.getFields().put("absent", "$.nope.nothing");
+        return new JsonFieldExtractor(properties);
+    }
+}
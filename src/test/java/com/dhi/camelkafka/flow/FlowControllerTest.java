@@ -0,0 +1,178 @@
+package com.dhi.camelkafka.flow;
+
+import com.dhi.camelkafka.config.KafkaProperties;
+import com.dhi.camelkafka.metrics.ConsumerMetrics;
+import com.dhi.camelkafka.model.KafkaMessage;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.apache.kafka.clients.consumer.Consumer;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.apache.kafka.clients.consumer.ConsumerRecords;
+import org.apache.kafka.clients.consumer.MockConsumer;
+import org.apache.kafka.clients.consumer.OffsetResetStrategy;
+import org.apache.kafka.common.TopicPartition;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Tests for pausing, batch trimming and partition rotation of the flow controller.
+ */
+class FlowControllerTest {
+
+    private final TopicPartition p0 = new TopicPartition("test-topic", 0);
+    private final TopicPartition p1 = new TopicPartition("test-topic", 1);
+    private final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+    private final KafkaProperties kafkaProperties = new KafkaProperties();
+
+    @BeforeEach
+    void enableFlowControl() {
+        kafkaProperties.setFlowControlEnabled(true);
+    }
+
+    @Test
+    void pausesAndResumesOnInFlightThresholds() {
+        kafkaProperties.setFlowControlPauseInFlight(2);
+        kafkaProperties.setFlowControlResumeInFlight(1);
+        FlowController flowController = new FlowController(kafkaProperties, new ConsumerMetrics(registry));
+        RebalancingConsumer mock = consumer();
+        Consumer<Object, Object> consumer = flowController.wrap(mock);
+
+        flowController.onDispatched(message(p0));
+        consumer.poll(Duration.ZERO);
+        assertTrue(mock.paused().isEmpty()); // Below the pause threshold
+
+        flowController.onDispatched(message(p0));
+        consumer.poll(Duration.ZERO);
+        assertEquals(Set.of(p0), mock.paused());
+        assertEquals(Set.of(p0), flowController.getPausedPartitions());
+        assertEquals(1.0, registry.get("kafka.consumer.flow.pauses").tag("reason", "depth").counter().count());
+
+        flowController.onCompleted(message(p0), 1_000);
+        consumer.poll(Duration.ZERO);
+        assertTrue(mock.paused().isEmpty());
+        assertTrue(flowController.getPausedPartitions().isEmpty());
+    }
+
+    @Test
+    void trimsPollsToTheBatchSizeAndRotatesTheFirstPartition() {
+        kafkaProperties.setMaxPollIntervalMs(1000);
+        kafkaProperties.setFlowControlPollBudget(0.5);
+        FlowController flowController = new FlowController(kafkaProperties, new ConsumerMetrics(registry));
+        flowController.recordConsumerThreadTime(TimeUnit.MILLISECONDS.toNanos(100), 1);
+        assertEquals(5, flowController.getEffectiveBatchSize()); // 500 ms budget at 100 ms per record
+        RebalancingConsumer mock = consumer();
+        Consumer<Object, Object> consumer = flowController.wrap(mock);
+
+        addRecords(mock, p0, 0, 4);
+        addRecords(mock, p1, 0, 4);
+        ConsumerRecords<Object, Object> first = consumer.poll(Duration.ZERO);
+        assertEquals(5, first.count());
+        TopicPartition whole = first.records(p0).size() == 4 ? p0 : p1;
+        TopicPartition cut = whole.equals(p0) ? p1 : p0;
+        assertEquals(1, first.records(cut).size());
+        assertEquals(4, mock.position(whole));
+        assertEquals(1, mock.position(cut)); // Deferred records are fetched again from here
+
+        addRecords(mock, cut, 1, 4);
+        addRecords(mock, whole, 4, 8);
+        ConsumerRecords<Object, Object> second = consumer.poll(Duration.ZERO);
+        assertEquals(5, second.count());
+        assertEquals(List.of(1L, 2L, 3L), offsets(second.records(cut))); // Now first in line, taken whole
+        assertEquals(List.of(4L, 5L), offsets(second.records(whole)));
+        assertEquals(6, mock.position(whole));
+
+        assertEquals(5.0, registry.get("kafka.consumer.flow.deferred.records").counter().count());
+        assertEquals(2.0, registry.get("kafka.consumer.flow.trimmed.polls").counter().count());
+    }
+
+    @Test
+    void forgetsPausesOfRevokedPartitions() {
+        kafkaProperties.setFlowControlPauseInFlight(3);
+        kafkaProperties.setFlowControlResumeInFlight(1);
+        FlowController flowController = new FlowController(kafkaProperties, new ConsumerMetrics(registry));
+        RebalancingConsumer mock = consumer();
+        Consumer<Object, Object> consumer = flowController.wrap(mock);
+        for (int i = 0; i < 3; i++) {
+            flowController.onDispatched(message(p0));
+        }
+        consumer.poll(Duration.ZERO);
+        assertEquals(Set.of(p0), flowController.getPausedPartitions());
+
+        // Revoked and assigned again, so the consumer no longer has it paused
+        mock.assign(List.of(p1));
+        mock.assign(List.of(p0, p1));
+        mock.updateBeginningOffsets(Map.of(p0, 0L));
+        flowController.onCompleted(message(p0), 1_000); // Two left: above resume, below pause
+        consumer.poll(Duration.ZERO);
+
+        assertTrue(flowController.getPausedPartitions().isEmpty());
+        assertTrue(mock.paused().isEmpty());
+        assertEquals(0.0, registry.get("kafka.consumer.flow.paused.partitions").gauge().value());
+    }
+
+    private RebalancingConsumer consumer() {
+        RebalancingConsumer consumer = new RebalancingConsumer();
+        consumer.assign(List.of(p0, p1));
+        consumer.updateBeginningOffsets(Map.of(p0, 0L, p1, 0L));
+        return consumer;
+    }
+
+    private static void addRecords(MockConsumer<Object, Object> consumer, TopicPartition partition, long from, long to) {
+        for (long offset = from; offset < to; offset++) {
+            consumer.addRecord(new ConsumerRecord<>(partition.topic(), partition.partition(), offset, null, "v" + offset));
+        }
+    }
+
+    private static List<Long> offsets(List<ConsumerRecord<Object, Object>> records) {
+        return records.stream().map(ConsumerRecord::offset).toList();
+    }
+
+    private static KafkaMessage message(TopicPartition partition) {
+        return KafkaMessage.builder().topic(partition.topic()).partition(partition.partition()).build();
+    }
+
+    /**
+     * Mock consumer whose partitions leave the paused set when they are unassigned, as with a real consumer.
+     */
+    private static final class RebalancingConsumer extends MockConsumer<Object, Object> {
+
+        private final Set<TopicPartition> pausedPartitions = new HashSet<>();
+
+        RebalancingConsumer() {
+            super(OffsetResetStrategy.EARLIEST);
+        }
+
+        @Override
+        public synchronized void assign(Collection<TopicPartition> partitions) {
+            super.assign(partitions);
+            pausedPartitions.retainAll(partitions);
+        }
+
+        @Override
+        public synchronized void pause(Collection<TopicPartition> partitions) {
+            super.pause(partitions);
+            pausedPartitions.addAll(partitions);
+        }
+
+        @Override
+        public synchronized void resume(Collection<TopicPartition> partitions) {
+            super.resume(partitions);
+            pausedPartitions.removeAll(partitions);
+        }
+
+        @Override
+        public synchronized Set<TopicPartition> paused() {
+            return Set.copyOf(pausedPartitions);
+        }
+    }
+}
@@ -0,0 +1,198 @@
+package com.dhi.camelkafka.harness;
+
+import com.dhi.camelkafka.service.KafkaCallbackService;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.kafka.clients.admin.Admin;
+import org.apache.kafka.clients.admin.AdminClientConfig;
+import org.apache.kafka.clients.admin.OffsetSpec;
+import org.apache.kafka.clients.consumer.OffsetAndMetadata;
+import org.apache.kafka.clients.producer.KafkaProducer;
+import org.apache.kafka.clients.producer.ProducerConfig;
+import org.apache.kafka.clients.producer.ProducerRecord;
+import org.apache.kafka.common.TopicPartition;
+import org.apache.kafka.common.serialization.StringSerializer;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.kafka.test.EmbeddedKafkaKraftBroker;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * End-to-end throughput and latency harness.
+ * <p>
+ * Starts an in-JVM KRaft broker, runs the real {@link com.dhi.camelkafka.route.KafkaConsumerRoute} against it,
+ * produces a configurable workload and observes committed offsets from the outside through the admin client.
+ * Reports records/s, a produce-to-commit latency histogram and consumer lag over time.
+ * <p>
+ * Workload: {@code -Dharness.messages}, {@code -Dharness.messageSize}, {@code -Dharness.keyCardinality},
+ * {@code -Dharness.partitions}, {@code -Dharness.timeoutSeconds}. Consumer settings are regular properties,
+ * e.g. {@code -Dkafka.maxPollRecords=500 -Dkafka.batching=true -Dkafka.execution=worker-pool}.
+ * Run with {@code mvn -Pperf test}.
+ */
+@Slf4j
+@Tag("perf")
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.NONE)
+class ConsumerThroughputHarness {
+
+    private static final String TOPIC = "harness-topic";
+    private static final String GROUP_ID = "harness-group-" + System.currentTimeMillis();
+    private static final long SAMPLE_INTERVAL_MS = 100;
+
+    private static final int MESSAGES = Integer.getInteger("harness.messages", 50_000);
+    private static final int MESSAGE_SIZE = Integer.getInteger("harness.messageSize", 512);
+    private static final int KEY_CARDINALITY = Integer.getInteger("harness.keyCardinality", 1_000);
+    private static final int PARTITIONS = Integer.getInteger("harness.partitions", 6);
+    private static final int TIMEOUT_SECONDS = Integer.getInteger("harness.timeoutSeconds", 300);
+
+    private static final EmbeddedKafkaKraftBroker BROKER = new EmbeddedKafkaKraftBroker(1, PARTITIONS, TOPIC);
+
+    static {
+        BROKER.afterPropertiesSet();
+    }
+
+    @Autowired
+    private KafkaCallbackService callbackService;
+
+    @DynamicPropertySource
+    static void kafkaProperties(DynamicPropertyRegistry registry) {
+        registry.add("kafka.bootstrapServers", BROKER::getBrokersAsString);
+        registry.add("kafka.groupId", () -> GROUP_ID);
+        registry.add("kafka.topics", () -> TOPIC);
+        registry.add("kafka.securityProtocol", () -> "PLAINTEXT");
+        registry.add("kafka.processingDelayMs", () -> System.getProperty("kafka.processingDelayMs", "0"));
+        // Per-record INFO logging would dominate the measurement
+        registry.add("logging.level.root", () -> "WARN");
+        registry.add("logging.level.com.dhi.camelkafka", () -> "WARN");
+    }
+
+    @AfterAll
+    static void stopBroker() {
+        BROKER.destroy();
+    }
+
+    @Test
+    void measureEndToEndThroughput() throws Exception {
+        System.out.printf("Harness workload: %d messages of %d bytes, %d keys, %d partitions%n",
+                MESSAGES, MESSAGE_SIZE, KEY_CARDINALITY, PARTITIONS);
+
+        long[][] sendNanos = new long[PARTITIONS][MESSAGES];
+        long[] produced = new long[PARTITIONS];
+        long startNanos = System.nanoTime();
+        produce(sendNanos, produced);
+
+        List<Long> latenciesMicros = new ArrayList<>(MESSAGES);
+        List<String> lagTimeline = new ArrayList<>();
+        long committedTotal = observeCommits(sendNanos, produced, startNanos, latenciesMicros, lagTimeline);
+        long elapsedNanos = System.nanoTime() - startNanos;
+
+        report(committedTotal, elapsedNanos, latenciesMicros, lagTimeline);
+        assertEquals(MESSAGES, committedTotal, "Not all produced records were committed within the timeout");
+    }
+
+    private void produce(long[][] sendNanos, long[] produced) throws Exception {
+        Map<String, Object> config = new HashMap<>();
+        config.put(ProducerConfig.BOOTSTRAP_SERVERS_CONFIG, BROKER.getBrokersAsString());
+        config.put(ProducerConfig.KEY_SERIALIZER_CLASS_CONFIG, StringSerializer.class);
+        config.put(ProducerConfig.VALUE_SERIALIZER_CLASS_CONFIG, StringSerializer.class);
+        config.put(ProducerConfig.LINGER_MS_CONFIG, 5);
+
+        String payload = "x".repeat(MESSAGE_SIZE);
+        try (KafkaProducer<String, String> producer = new KafkaProducer<>(config)) {
+            for (int i = 0; i < MESSAGES; i++) {
+                long sentAt = System.nanoTime();
+                producer.send(new ProducerRecord<>(TOPIC, "key-" + (i % KEY_CARDINALITY), payload),
+                        (metadata, exception) -> {
+                            if (exception != null) {
+                                log.error("Failed to produce harness record", exception);
+                                return;
+                            }
+                            synchronized (produced) {
+                                sendNanos[metadata.partition()][(int) metadata.offset()] = sentAt;
+                                produced[metadata.partition()]++;
+                            }
+                        });
+            }
+            producer.flush();
+        }
+    }
+
+    private long observeCommits(long[][] sendNanos, long[] produced, long startNanos,
+                                List<Long> latenciesMicros, List<String> lagTimeline) throws Exception {
+        Map<String, Object> config = Map.of(AdminClientConfig.BOOTSTRAP_SERVERS_CONFIG, BROKER.getBrokersAsString());
+        long[] committed = new long[PARTITIONS];
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(TIMEOUT_SECONDS);
+
+        try (Admin admin = Admin.create(config)) {
+            Map<TopicPartition, OffsetSpec> latest = new HashMap<>();
+            for (int p = 0; p < PARTITIONS; p++) {
+                latest.put(new TopicPartition(TOPIC, p), OffsetSpec.latest());
+            }
+
+            long committedTotal = 0;
+            while (committedTotal < MESSAGES && System.nanoTime() < deadline) {
+                Map<TopicPartition, OffsetAndMetadata> offsets = admin.listConsumerGroupOffsets(GROUP_ID)
+                        .partitionsToOffsetAndMetadata().get();
+                var endOffsets = admin.listOffsets(latest).all().get();
+                long now = System.nanoTime();
+
+                long lag = 0;
+                committedTotal = 0;
+                for (int p = 0; p < PARTITIONS; p++) {
+                    TopicPartition topicPartition = new TopicPartition(TOPIC, p);
+                    OffsetAndMetadata offset = offsets.get(topicPartition);
+                    long commitOffset = offset != null ? offset.offset() : 0;
+                    for (long o = committed[p]; o < commitOffset && o < sendNanos[p].length; o++) {
+                        latenciesMicros.add(TimeUnit.NANOSECONDS.toMicros(now - sendNanos[p][(int) o]));
+                    }
+                    committed[p] = Math.max(committed[p], commitOffset);
+                    committedTotal += committed[p];
+                    lag += endOffsets.get(topicPartition).offset() - committed[p];
+                }
+
+                lagTimeline.add(String.format("%8d ms  lag=%-8d committed=%-8d processed=%d",
+                        TimeUnit.NANOSECONDS.toMillis(now - startNanos), lag, committedTotal,
+                        callbackService.getProcessedCount()));
+                Thread.sleep(SAMPLE_INTERVAL_MS);
+            }
+            return committedTotal;
+        }
+    }
+
+    private void report(long committedTotal, long elapsedNanos, List<Long> latenciesMicros, List<String> lagTimeline) {
+        double seconds = elapsedNanos / 1_000_000_000.0;
+        latenciesMicros.sort(null);
+
+        StringBuilder report = new StringBuilder("\n=== Consumer throughput harness ===\n");
+        report.append(String.format("Committed %d/%d records in %.2f s: %.0f records/s%n",
+                committedTotal, MESSAGES, seconds, committedTotal / seconds));
+        report.append("Produce-to-commit latency (ms):\n");
+        for (double percentile : new double[]{50, 90, 99, 99.9, 100}) {
+            report.append(String.format("  p%-5s %10.1f%n", percentile, percentile(latenciesMicros, percentile) / 1000.0));
+        }
+        report.append("Consumer lag over time:\n");
+        int step = Math.max(1, lagTimeline.size() / 50); // Keep the timeline readable
+        for (int i = 0; i < lagTimeline.size(); i += step) {
+            report.append("  ").append(lagTimeline.get(i)).append('\n');
+        }
+        System.out.println(report);
+    }
+
+    private static long percentile(List<Long> sorted, double percentile) {
+        if (sorted.isEmpty()) {
+            return 0;
+        }
+        int index = (int) Math.ceil(percentile / 100.0 * sorted.size()) - 1;
+        return sorted.get(Math.max(0, Math.min(index, sorted.size() - 1)));
+    }
+}
@@ -0,0 +1,107 @@
+package com.dhi.camelkafka.model;
+
+import org.junit.jupiter.api.Test;
+
+import java.nio.ByteBuffer;
+import java.nio.ReadOnlyBufferException;
+import java.nio.charset.StandardCharsets;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Tests for the content accessors that work on the raw record value without decoding it.
+ */
+class KafkaMessageTest {
+
+    private static final String MULTI_BYTE = "caf\u00e9 \u20ac \ud83d\ude00"; // 2-, 3- and 4-byte UTF-8 characters
+    private static final int MULTI_BYTE_LENGTH = MULTI_BYTE.getBytes(StandardCharsets.UTF_8).length;
+
+    @Test
+    void measuresContentInUtf8Bytes() {
+        assertEquals(14, MULTI_BYTE_LENGTH);
+        assertEquals(MULTI_BYTE_LENGTH, raw(utf8(MULTI_BYTE)).getContentLength());
+        assertEquals(MULTI_BYTE_LENGTH, raw(ByteBuffer.wrap(utf8(MULTI_BYTE))).getContentLength());
+        assertEquals(MULTI_BYTE_LENGTH, raw(direct(MULTI_BYTE)).getContentLength());
+        assertEquals(MULTI_BYTE_LENGTH, KafkaMessage.builder().content(MULTI_BYTE).build().getContentLength());
+        assertEquals(MULTI_BYTE_LENGTH, raw(MULTI_BYTE).getContentLength());
+        assertEquals(0, KafkaMessage.builder().build().getContentLength());
+
+        KafkaMessage decoded = raw(utf8(MULTI_BYTE));
+        assertEquals(MULTI_BYTE, decoded.getContent());
+        assertEquals(MULTI_BYTE_LENGTH, decoded.getContentLength()); // Same after decoding
+
+        ByteBuffer window = ByteBuffer.wrap(utf8("xx" + MULTI_BYTE));
+        window.position(2);
+        assertEquals(MULTI_BYTE_LENGTH, raw(window).getContentLength()); // Only the remaining bytes
+    }
+
+    @Test
+    void detectsBlankContentWithoutDecoding() {
+        String whitespace = " \t\r\n\u000b";
+        assertTrue(raw(utf8(whitespace)).isContentBlank());
+        assertTrue(raw(ByteBuffer.wrap(utf8(whitespace))).isContentBlank());
+        assertTrue(raw(direct(whitespace)).isContentBlank());
+        assertTrue(raw(new byte[0]).isContentBlank());
+        assertTrue(KafkaMessage.builder().content(whitespace).build().isContentBlank());
+
+        assertFalse(raw(utf8(" x ")).isContentBlank());
+        assertFalse(raw(direct(MULTI_BYTE)).isContentBlank());
+        assertFalse(raw(utf8("\u00a0")).isContentBlank()); // No-break space, not removed by String.trim either
+        assertFalse(KafkaMessage.builder().build().isContentBlank());
+
+        ByteBuffer window = ByteBuffer.wrap(utf8("x   "));
+        window.position(1);
+        assertTrue(raw(window).isContentBlank()); // Only the remaining bytes count
+
+        KafkaMessage blank = raw(utf8(whitespace));
+        assertTrue(blank.isContentBlank());
+        assertEquals(whitespace, blank.getContent());
+        assertTrue(blank.isContentBlank()); // Same after decoding
+    }
+
+    @Test
+    void sharesRawValuesAsReadOnlyBuffers() {
+        byte[] bytes = utf8(MULTI_BYTE);
+        ByteBuffer fromArray = raw(bytes).getContentBuffer();
+        assertTrue(fromArray.isReadOnly());
+        assertEquals(ByteBuffer.wrap(bytes), fromArray);
+        bytes[0] = 'C';
+        assertEquals((byte) 'C', fromArray.get(0)); // A view, not a copy
+        assertThrows(ReadOnlyBufferException.class, () -> fromArray.put(0, (byte) 'x'));
+
+        ByteBuffer heap = ByteBuffer.wrap(utf8(MULTI_BYTE));
+        ByteBuffer fromHeap = raw(heap).getContentBuffer();
+        fromHeap.get();
+        assertEquals(0, heap.position()); // Reading the view leaves the raw value untouched
+
+        ByteBuffer direct = direct(MULTI_BYTE);
+        ByteBuffer fromDirect = raw(direct).getContentBuffer();
+        assertTrue(fromDirect.isReadOnly());
+        assertEquals(MULTI_BYTE, StandardCharsets.UTF_8.decode(fromDirect).toString());
+        assertEquals(0, direct.position());
+
+        ByteBuffer fromContent = KafkaMessage.builder().content(MULTI_BYTE).build().getContentBuffer();
+        assertEquals(ByteBuffer.wrap(utf8(MULTI_BYTE)), fromContent);
+        assertTrue(fromContent.isReadOnly());
+        assertNull(KafkaMessage.builder().build().getContentBuffer());
+    }
+
+    private static KafkaMessage raw(Object value) {
+        return KafkaMessage.builder().rawContent(value).build();
+    }
+
+    private static byte[] utf8(String text) {
+        return text.getBytes(StandardCharsets.UTF_8);
+    }
+
+    private static ByteBuffer direct(String text) {
+        byte[] bytes = utf8(text);
+        ByteBuffer buffer = ByteBuffer.allocateDirect(bytes.length);
+        buffer.put(bytes).flip();
+        return buffer;
+    }
+}
@@ -0,0 +1,166 @@
+package com.dhi.camelkafka.processor;
+
+import com.dhi.camelkafka.aggregate.AggregationService;
+import com.dhi.camelkafka.avro.AvroRecordDecoder;
+import com.dhi.camelkafka.commit.OffsetCommitter;
+import com.dhi.camelkafka.config.AggregationProperties;
+import com.dhi.camelkafka.config.DashboardProperties;
+import com.dhi.camelkafka.config.ExtractionProperties;
+import com.dhi.camelkafka.config.KafkaProperties;
+import com.dhi.camelkafka.config.RetryMode;
+import com.dhi.camelkafka.dedup.RecordDeduplicator;
+import com.dhi.camelkafka.extract.JsonFieldExtractor;
+import com.dhi.camelkafka.flow.FlowController;
+import com.dhi.camelkafka.metrics.ConsumerMetrics;
+import com.dhi.camelkafka.model.KafkaMessage;
+import com.dhi.camelkafka.retry.RetryPipeline;
+import com.dhi.camelkafka.service.DashboardService;
+import com.dhi.camelkafka.service.KafkaCallbackService;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.apache.camel.Exchange;
+import org.apache.camel.ProducerTemplate;
+import org.apache.camel.component.kafka.KafkaConstants;
+import org.apache.camel.component.kafka.consumer.KafkaManualCommit;
+import org.apache.camel.impl.DefaultCamelContext;
+import org.apache.camel.support.DefaultExchange;
+import org.apache.kafka.common.TopicPartition;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.support.StaticListableBeanFactory;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Tests for the batch path of the message processor and for records that cannot be handed over.
+ */
+class KafkaMessageProcessorTest {
+
+    private static final String TOPIC = "ecs.AccessLogJsonV1";
+
+    private final DefaultCamelContext camelContext = new DefaultCamelContext();
+    private final Map<Integer, Long> committed = new ConcurrentHashMap<>();
+    private OffsetCommitter offsetCommitter;
+
+    @AfterEach
+    void shutdown() {
+        if (offsetCommitter != null) {
+            offsetCommitter.shutdown();
+        }
+    }
+
+    @Test
+    void keepsProcessingAPartitionAfterAFailedRecord() throws Exception {
+        KafkaProperties kafkaProperties = new KafkaProperties();
+        kafkaProperties.setBatching(true);
+        kafkaProperties.setProcessingDelayMs(0);
+        kafkaProperties.setRetryEnabled(false);
+        KafkaCallbackService callbackService = new KafkaCallbackService();
+        DashboardService dashboardService = new DashboardService(new DashboardProperties());
+        KafkaMessageProcessor processor = processor(kafkaProperties, callbackService, dashboardService);
+
+        List<Exchange> batch = new ArrayList<>();
+        batch.add(record(0, 10, "{\"a\":1}"));
+        batch.add(record(1, 20, "{\"a\":2}"));
+        batch.add(record(0, 11, "   ")); // Fails processing
+        batch.add(record(0, 12, "{\"a\":3}"));
+        batch.add(record(1, 21, "{\"a\":4}"));
+        Exchange batchExchange = new DefaultExchange(camelContext);
+        batchExchange.getIn().setBody(batch);
+
+        processor.process(batchExchange);
+
+        assertEquals(1, callbackService.getErrorCount());
+        List<Long> handled = new ArrayList<>();
+        for (KafkaMessage message : dashboardService.getRecentMessages()) {
+            handled.add(message.getOffset());
+        }
+        assertTrue(handled.containsAll(List.of(10L, 11L, 12L, 20L, 21L)));
+        assertEquals(Map.of(0, 12L, 1, 21L), committed); // Both partitions commit their last record
+        assertEquals(Boolean.TRUE, batchExchange.getProperty(KafkaConstants.MANUAL_COMMIT));
+    }
+
+    @Test
+    void doesNotCommitPastARecordThatNoTopicTook() throws Exception {
+        KafkaProperties kafkaProperties = unpublishableRetries();
+        KafkaCallbackService callbackService = new KafkaCallbackService();
+        KafkaMessageProcessor processor = processor(kafkaProperties, callbackService, new DashboardService(new DashboardProperties()));
+
+        processor.process(record(0, 10, "{\"a\":1}"));
+        processor.process(record(0, 11, "   ")); // Fails, and neither the retry nor the dead-letter topic takes it
+        processor.process(record(0, 12, "{\"a\":2}"));
+        offsetCommitter.flush();
+
+        assertEquals(Map.of(0, 10L), committed); // Consumed again from 11
+        assertEquals(2, offsetCommitter.getInFlightCount(new TopicPartition(TOPIC, 0)));
+        assertEquals(1, callbackService.getErrorCount());
+    }
+
+    @Test
+    void commitsABatchPartitionOnlyUpToARecordThatNoTopicTook() throws Exception {
+        KafkaProperties kafkaProperties = unpublishableRetries();
+        kafkaProperties.setBatching(true);
+        KafkaMessageProcessor processor = processor(kafkaProperties, new KafkaCallbackService(),
+                new DashboardService(new DashboardProperties()));
+
+        List<Exchange> batch = new ArrayList<>();
+        batch.add(record(0, 10, "{\"a\":1}"));
+        batch.add(record(0, 11, "   "));
+        batch.add(record(1, 20, "{\"a\":2}"));
+        batch.add(record(0, 12, "{\"a\":3}"));
+        batch.add(record(1, 21, "{\"a\":4}"));
+        Exchange batchExchange = new DefaultExchange(camelContext);
+        batchExchange.getIn().setBody(batch);
+        processor.process(batchExchange);
+
+        assertEquals(Map.of(0, 10L, 1, 21L), committed);
+
+        // A later batch of the partition cannot commit past the record either
+        Exchange nextBatch = new DefaultExchange(camelContext);
+        nextBatch.getIn().setBody(List.of(record(0, 13, "{\"a\":5}")));
+        processor.process(nextBatch);
+        assertEquals(Map.of(0, 10L, 1, 21L), committed);
+    }
+
+    /**
+     * Retries in kafka mode without a producer, so every retry and dead-letter publish fails.
+     */
+    private static KafkaProperties unpublishableRetries() {
+        KafkaProperties kafkaProperties = new KafkaProperties();
+        kafkaProperties.setProcessingDelayMs(0);
+        kafkaProperties.setRetryEnabled(true);
+        kafkaProperties.setRetryMode(RetryMode.KAFKA);
+        return kafkaProperties;
+    }
+
+    private KafkaMessageProcessor processor(KafkaProperties kafkaProperties, KafkaCallbackService callbackService,
+                                            DashboardService dashboardService) {
+        ConsumerMetrics consumerMetrics = new ConsumerMetrics(new SimpleMeterRegistry());
+        offsetCommitter = new OffsetCommitter(callbackService, kafkaProperties, consumerMetrics);
+        return new KafkaMessageProcessor(callbackService, dashboardService, kafkaProperties,
+                new KeyOrderedWorkerPool(kafkaProperties), new VirtualThreadDispatcher(kafkaProperties),
+                offsetCommitter, consumerMetrics, new FlowController(kafkaProperties, consumerMetrics),
+                new JsonFieldExtractor(new ExtractionProperties()), new AvroRecordDecoder(kafkaProperties),
+                new RetryPipeline(kafkaProperties, consumerMetrics,
+                        new StaticListableBeanFactory().getBeanProvider(ProducerTemplate.class)),
+                new RecordDeduplicator(kafkaProperties, consumerMetrics),
+                new AggregationService(new AggregationProperties(), consumerMetrics));
+    }
+
+    private Exchange record(int partition, long offset, String body) {
+        Exchange exchange = new DefaultExchange(camelContext);
+        exchange.getIn().setHeader(KafkaConstants.TOPIC, TOPIC);
+        exchange.getIn().setHeader(KafkaConstants.PARTITION, partition);
+        exchange.getIn().setHeader(KafkaConstants.OFFSET, offset);
+        exchange.getIn().setHeader(KafkaConstants.TIMESTAMP, System.currentTimeMillis());
+        exchange.getIn().setHeader(KafkaConstants.MANUAL_COMMIT, (KafkaManualCommit) () -> committed.put(partition, offset));
+        exchange.getIn().setBody(body.getBytes(StandardCharsets.UTF_8));
+        return exchange;
+    }
+}
@@ -0,0 +1,164 @@
+package com.dhi.camelkafka.retry;
+
+import com.dhi.camelkafka.config.KafkaProperties;
+import com.dhi.camelkafka.config.RetryMode;
+import com.dhi.camelkafka.model.KafkaMessage;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Tests for the retry and dead-letter pipeline.
+ */
+class RetryPipelineTest {
+
+    private final KafkaProperties kafkaProperties = new KafkaProperties();
+    private final MeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final BlockingQueue<Published> published = new LinkedBlockingQueue<>();
+    private RetryPipeline pipeline;
+
+    @AfterEach
+    void shutdown() {
+        if (pipeline != null) {
+            pipeline.shutdown();
+        }
+    }
+
+    @Test
+    void redeliversLocallyUntilTheHandlerSucceeds() throws Exception {
+        kafkaProperties.setRetryBackoffMs(10);
+        pipeline = pipeline();
+        AtomicInteger calls = new AtomicInteger();
+        CountDownLatch succeeded = new CountDownLatch(1);
+        KafkaMessage message = message("orders");
+
+        pipeline.submit(message, new IllegalStateException("first"), retried -> {
+            if (calls.incrementAndGet() < 2) {
+                throw new IllegalStateException("still failing");
+            }
+            succeeded.countDown();
+        });
+
+        assertTrue(succeeded.await(5, TimeUnit.SECONDS));
+        assertEquals(2, message.getRetryAttempt());
+        assertEquals(2.0, meterRegistry.get("kafka.consumer.retry.attempts").tag("topic", "orders").counter().count());
+        assertRecovered();
+        assertTrue(published.isEmpty());
+    }
+
+    @Test
+    void deadLettersWithFailureHeadersOnceAttemptsAreUsedUp() throws Exception {
+        kafkaProperties.setRetryBackoffMs(5);
+        kafkaProperties.setRetryMaxAttempts(2);
+        pipeline = pipeline();
+
+        pipeline.submit(message("orders"), new IllegalArgumentException("bad payload"), retried -> {
+            throw new IllegalArgumentException("bad payload");
+        });
+
+        Published record = published.poll(5, TimeUnit.SECONDS);
+        assertNotNull(record);
+        assertEquals("orders.DLQ", record.topic());
+        assertEquals("customer-1", record.key());
+        assertArrayEquals("{\"id\":1}".getBytes(StandardCharsets.UTF_8), record.value());
+        assertEquals("3", record.headers().get(RetryPipeline.DELIVERIES_HEADER));
+        assertEquals(IllegalArgumentException.class.getName(), record.headers().get(RetryPipeline.EXCEPTION_CLASS_HEADER));
+        assertEquals("bad payload", record.headers().get(RetryPipeline.EXCEPTION_MESSAGE_HEADER));
+        assertEquals("7", record.headers().get(RetryPipeline.FAILED_OFFSET_HEADER));
+        assertEquals(1.0, meterRegistry.get("kafka.consumer.dlq.records")
+                .tag("topic", "orders").tag("reason", "exhausted").counter().count());
+    }
+
+    @Test
+    void publishesToTheRetryTopicInKafkaMode() throws Exception {
+        kafkaProperties.setRetryMode(RetryMode.KAFKA);
+        pipeline = pipeline();
+        KafkaMessage redelivered = message("orders.retry");
+        redelivered.setRetryAttempt(1);
+
+        long before = System.currentTimeMillis();
+        pipeline.submit(redelivered, new IllegalStateException("downstream unavailable"), retried -> {
+        });
+
+        Published record = published.poll(); // Published before submit returns, so before the record is committed
+        assertNotNull(record);
+        assertEquals("orders.retry", record.topic());
+        assertEquals("2", record.headers().get(RetryPipeline.ATTEMPT_HEADER));
+        assertEquals("orders", record.headers().get(RetryPipeline.SOURCE_TOPIC_HEADER));
+        long notBefore = Long.parseLong((String) record.headers().get(RetryPipeline.NOT_BEFORE_HEADER));
+        assertTrue(notBefore >= before + pipeline.backoffMillis(2));
+    }
+
+    @Test
+    void refusesTheHandOverWhenNoTopicTakesTheRecordInKafkaMode() {
+        kafkaProperties.setRetryMode(RetryMode.KAFKA);
+        List<String> attempted = new CopyOnWriteArrayList<>();
+        pipeline = new RetryPipeline(kafkaProperties, meterRegistry, (topic, key, value, headers) -> {
+            attempted.add(topic);
+            throw new IllegalStateException("broker unavailable");
+        });
+
+        assertThrows(IllegalStateException.class, () -> pipeline.submit(message("orders"),
+                new IllegalArgumentException("bad payload"), retried -> {
+                }));
+        assertEquals(List.of("orders.retry", "orders.DLQ"), attempted);
+        assertEquals(2.0, meterRegistry.get("kafka.consumer.dlq.errors").tag("topic", "orders").counter().count());
+    }
+
+    @Test
+    void backsOffExponentiallyUpToTheMaximum() {
+        kafkaProperties.setRetryBackoffMs(100);
+        kafkaProperties.setRetryBackoffMultiplier(3.0);
+        kafkaProperties.setRetryMaxBackoffMs(1000);
+        pipeline = pipeline();
+
+        assertEquals(100, pipeline.backoffMillis(1));
+        assertEquals(300, pipeline.backoffMillis(2));
+        assertEquals(900, pipeline.backoffMillis(3));
+        assertEquals(1000, pipeline.backoffMillis(4));
+    }
+
+    private RetryPipeline pipeline() {
+        return new RetryPipeline(kafkaProperties, meterRegistry,
+                (topic, key, value, headers) -> published.add(new Published(topic, key, value, headers)));
+    }
+
+    private void assertRecovered() throws InterruptedException {
+        // The counter is incremented right after the handler returns
+        for (int i = 0; i < 100 && meterRegistry.find("kafka.consumer.retry.recovered").counter() == null; i++) {
+            Thread.sleep(10);
+        }
+        assertEquals(1.0, meterRegistry.get("kafka.consumer.retry.recovered").tag("topic", "orders").counter().count());
+    }
+
+    private static KafkaMessage message(String topic) {
+        return KafkaMessage.builder()
+                .id(topic + "-0-7")
+                .topic(topic)
+                .partition(0)
+                .offset(7L)
+                .messageKey("customer-1")
+                .rawContent("{\"id\":1}".getBytes(StandardCharsets.UTF_8))
+                .build();
+    }
+
+    private record Published(String topic, String key, byte[] value, Map<String, Object> headers) {
+    }
+}
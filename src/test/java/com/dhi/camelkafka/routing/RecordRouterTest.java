@@ -0,0 +1,135 @@
+package com.dhi.camelkafka.routing;
+
+import com.dhi.camelkafka.config.RoutingAction;
+import com.dhi.camelkafka.config.RoutingProperties;
+import com.dhi.camelkafka.config.RoutingRule;
+import com.dhi.camelkafka.metrics.ConsumerMetrics;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.apache.camel.CamelContext;
+import org.apache.camel.Exchange;
+import org.apache.camel.ProducerTemplate;
+import org.apache.camel.component.kafka.KafkaConstants;
+import org.apache.camel.impl.DefaultCamelContext;
+import org.apache.camel.support.DefaultExchange;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.support.StaticListableBeanFactory;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Tests for the routing rules and byte-level value matchers.
+ */
+class RecordRouterTest {
+
+    private final CamelContext camelContext = new DefaultCamelContext();
+    private final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+
+    @Test
+    void matchesBytePatternsWithoutDecoding() {
+        BytePattern pattern = new BytePattern("\"status_code\":5");
+        byte[] value = "{\"http\":{\"response\":{\"status_code\":503}}}".getBytes(StandardCharsets.UTF_8);
+
+        assertTrue(pattern.occursIn(value));
+        assertTrue(pattern.occursIn(ByteBuffer.wrap(value)));
+        assertTrue(pattern.occursIn(ByteBuffer.wrap(value).asReadOnlyBuffer()));
+        assertTrue(pattern.occursIn(new String(value, StandardCharsets.UTF_8)));
+        assertFalse(pattern.occursIn("{\"status_code\":200}".getBytes(StandardCharsets.UTF_8)));
+        assertFalse(pattern.occursIn("short".getBytes(StandardCharsets.UTF_8)));
+        assertEquals(21, pattern.indexIn(value, 0, value.length));
+
+        assertTrue(new BytePattern("{\"http\"").isPrefixOf(value));
+        assertFalse(new BytePattern("{\"url\"").isPrefixOf(ByteBuffer.wrap(value)));
+    }
+
+    @Test
+    void appliesTheFirstMatchingRuleAndCountsHits() throws Exception {
+        RoutingRule keepErrors = rule("errors", RoutingAction.PROCESS);
+        keepErrors.setTopics(List.of("ecs.AccessLogJsonV1"));
+        keepErrors.setValueContains(List.of("\"status_code\":5"));
+        RoutingRule dropHealthChecks = rule("health-checks", RoutingAction.DROP);
+        dropHealthChecks.setValueContains(List.of("/health"));
+        RoutingRule keepAuditKeys = rule("audit", RoutingAction.PROCESS);
+        keepAuditKeys.setKeyPrefix("audit-");
+        keepAuditKeys.setHeaders(Map.of("source", "gateway"));
+        RecordRouter router = router(RoutingAction.DROP, keepErrors, dropHealthChecks, keepAuditKeys);
+
+        Exchange error = exchange("{\"url\":\"/health\",\"status_code\":503}", null, Map.of());
+        assertEquals(RoutingAction.PROCESS, router.route(error));
+        assertNull(error.getProperty(RecordRouter.SKIPPED_PROPERTY));
+
+        Exchange healthCheck = exchange("{\"url\":\"/health\",\"status_code\":200}", null, Map.of());
+        assertEquals(RoutingAction.DROP, router.route(healthCheck));
+        assertEquals(Boolean.TRUE, healthCheck.getProperty(RecordRouter.SKIPPED_PROPERTY));
+
+        Map<String, Object> gateway = Map.of("source", "gateway".getBytes(StandardCharsets.UTF_8));
+        assertEquals(RoutingAction.PROCESS, router.route(exchange("{\"status_code\":200}", "audit-7", gateway)));
+        assertEquals(RoutingAction.DROP, router.route(exchange("{\"status_code\":200}", "audit-7", Map.of())));
+        assertEquals(RoutingAction.DROP, router.route(exchange("{\"status_code\":200}", "user-7", gateway)));
+
+        assertEquals(1.0, hits("errors"));
+        assertEquals(1.0, hits("health-checks"));
+        assertEquals(1.0, hits("audit"));
+        assertEquals(2.0, hits("default"));
+    }
+
+    @Test
+    void routesBatchesRecordByRecord() throws Exception {
+        RoutingRule dropDebug = rule("debug", RoutingAction.DROP);
+        dropDebug.setValueStartsWith("{\"level\":\"DEBUG\"");
+        RecordRouter router = router(RoutingAction.PROCESS, dropDebug);
+        Exchange debug = exchange("{\"level\":\"DEBUG\",\"msg\":\"x\"}", null, Map.of());
+        Exchange info = exchange("{\"level\":\"INFO\",\"msg\":\"x\"}", null, Map.of());
+        Exchange batch = new DefaultExchange(camelContext);
+        batch.getIn().setBody(List.of(debug, info));
+
+        router.process(batch);
+
+        assertEquals(Boolean.TRUE, debug.getProperty(RecordRouter.SKIPPED_PROPERTY));
+        assertNull(info.getProperty(RecordRouter.SKIPPED_PROPERTY));
+    }
+
+    @Test
+    void rejectsRouteRulesWithoutEndpoint() {
+        assertThrows(IllegalArgumentException.class, () -> router(RoutingAction.PROCESS, rule("branch", RoutingAction.ROUTE)));
+        assertThrows(IllegalArgumentException.class, () -> router(RoutingAction.ROUTE));
+    }
+
+    private RecordRouter router(RoutingAction defaultAction, RoutingRule... rules) {
+        RoutingProperties properties = new RoutingProperties();
+        properties.setEnabled(true);
+        properties.setDefaultAction(defaultAction);
+        properties.setRules(List.of(rules));
+        return new RecordRouter(properties, new ConsumerMetrics(registry),
+                new StaticListableBeanFactory().getBeanProvider(ProducerTemplate.class));
+    }
+
+    private static RoutingRule rule(String name, RoutingAction action) {
+        RoutingRule rule = new RoutingRule();
+        rule.setName(name);
+        rule.setAction(action);
+        return rule;
+    }
+
+    private Exchange exchange(String value, String key, Map<String, Object> headers) {
+        Exchange exchange = new DefaultExchange(camelContext);
+        exchange.getIn().setHeaders(new HashMap<>(headers));
+        exchange.getIn().setHeader(KafkaConstants.TOPIC, "ecs.AccessLogJsonV1");
+        exchange.getIn().setHeader(KafkaConstants.KEY, key);
+        exchange.getIn().setBody(value.getBytes(StandardCharsets.UTF_8));
+        return exchange;
+    }
+
+    private double hits(String rule) {
+        return registry.get("kafka.consumer.routing.hits").tag("rule", rule).counter().count();
+    }
+}
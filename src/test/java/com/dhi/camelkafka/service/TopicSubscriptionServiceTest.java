@@ -0,0 +1,135 @@
+package com.dhi.camelkafka.service;
+
+import com.dhi.camelkafka.commit.OffsetCommitter;
+import com.dhi.camelkafka.config.KafkaProperties;
+import com.dhi.camelkafka.metrics.ConsumerMetrics;
+import com.dhi.camelkafka.route.KafkaConsumerRoute;
+import com.dhi.camelkafka.route.TopicSubscription;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.apache.camel.builder.RouteBuilder;
+import org.apache.camel.impl.DefaultCamelContext;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Tests for runtime subscription changes and their rollback when a route cannot be added.
+ */
+class TopicSubscriptionServiceTest {
+
+    private final DefaultCamelContext camelContext = new DefaultCamelContext();
+    private final KafkaProperties kafkaProperties = new KafkaProperties();
+    private OffsetCommitter offsetCommitter;
+
+    @AfterEach
+    void shutdown() {
+        if (offsetCommitter != null) {
+            offsetCommitter.shutdown();
+        }
+        camelContext.stop();
+    }
+
+    @Test
+    void keepsTheSharedRouteAndTopicsWhenTheNewRouteFails() throws Exception {
+        kafkaProperties.setSharedConsumer(true);
+        TopicSubscriptionService service = service(List.of("orders", "payments"), null);
+
+        assertThrows(IllegalStateException.class, () -> service.addTopic("broken"));
+
+        TopicSubscriptionService.SubscriptionInfo info = service.getSubscriptions();
+        assertEquals(List.of("orders", "payments"), info.getTopics());
+        assertEquals(1, info.getRoutes().size());
+        assertEquals(List.of("orders", "payments"), info.getRoutes().get(0).getTopics());
+        assertEquals("Started", info.getRoutes().get(0).getStatus());
+        assertNotNull(camelContext.getRoute("kafka-consumer-route-shared"));
+
+        assertTrue(service.addTopic("refunds"));
+        assertEquals(List.of("orders", "payments", "refunds"), service.getSubscriptions().getRoutes().get(0).getTopics());
+    }
+
+    @Test
+    void keepsThePreviousPatternWhenTheNewPatternRouteFails() throws Exception {
+        TopicSubscriptionService service = service(List.of("orders"), "events\\..*");
+
+        assertThrows(IllegalStateException.class, () -> service.setPattern("broken\\..*"));
+
+        TopicSubscriptionService.SubscriptionInfo info = service.getSubscriptions();
+        assertEquals("events\\..*", info.getPattern());
+        assertEquals(Set.of("kafka-consumer-route-pattern", "kafka-consumer-route-orders"),
+                Set.copyOf(info.getRoutes().stream().map(TopicSubscriptionService.RouteInfo::getRouteId).toList()));
+        assertNotNull(camelContext.getRoute("kafka-consumer-route-pattern"));
+        assertNotNull(camelContext.getRoute("kafka-consumer-route-orders"));
+
+        service.setPattern(null);
+        assertNull(service.getSubscriptions().getPattern());
+        assertNull(camelContext.getRoute("kafka-consumer-route-pattern"));
+    }
+
+    @Test
+    void addsAndRemovesOneRoutePerTopic() throws Exception {
+        TopicSubscriptionService service = service(List.of("orders"), null);
+
+        assertTrue(service.addTopic("payments"));
+        assertFalse(service.addTopic("payments"));
+        assertNotNull(camelContext.getRoute("kafka-consumer-route-payments"));
+        assertThrows(IllegalArgumentException.class, () -> service.addTopic("no spaces"));
+
+        assertTrue(service.removeTopic("orders"));
+        assertFalse(service.removeTopic("orders"));
+        assertNull(camelContext.getRoute("kafka-consumer-route-orders"));
+        assertEquals(List.of("payments"), service.getSubscriptions().getTopics());
+
+        service.stopRoute("kafka-consumer-route-payments");
+        assertEquals("Stopped", service.getSubscriptions().getRoutes().get(0).getStatus());
+        assertThrows(NoSuchElementException.class, () -> service.startRoute("kafka-consumer-route-orders"));
+    }
+
+    private TopicSubscriptionService service(List<String> topics, String pattern) throws Exception {
+        kafkaProperties.setTopics(topics);
+        kafkaProperties.setTopicPattern(pattern);
+        kafkaProperties.setCommitIntervalMs(60_000);
+        KafkaConsumerRoute consumerRoute = new DirectConsumerRoute(kafkaProperties);
+        offsetCommitter = new OffsetCommitter(new KafkaCallbackService(), kafkaProperties,
+                new ConsumerMetrics(new SimpleMeterRegistry()));
+        camelContext.start();
+        // KafkaConsumerRoute adds the initial routes in the application
+        for (TopicSubscription subscription : TopicSubscription.plan(kafkaProperties.getAllTopics(), pattern,
+                kafkaProperties.isSharedConsumer(), kafkaProperties.getConsumers())) {
+            camelContext.addRoutes(consumerRoute.consumerRouteBuilder(subscription));
+        }
+        return new TopicSubscriptionService(camelContext, consumerRoute, kafkaProperties, offsetCommitter);
+    }
+
+    /**
+     * Consumer routes on direct endpoints instead of Kafka; a subscription naming "broken" cannot be added.
+     */
+    private static class DirectConsumerRoute extends KafkaConsumerRoute {
+
+        DirectConsumerRoute(KafkaProperties kafkaProperties) {
+            super(kafkaProperties, null, null, null);
+        }
+
+        @Override
+        public RouteBuilder consumerRouteBuilder(TopicSubscription subscription) {
+            return new RouteBuilder() {
+                @Override
+                public void configure() {
+                    if (subscription.describe().contains("broken")) {
+                        throw new IllegalStateException("Cannot subscribe to " + subscription.describe());
+                    }
+                    from("direct:" + subscription.routeId()).routeId(subscription.routeId()).log("${body}");
+                }
+            };
+        }
+    }
+}
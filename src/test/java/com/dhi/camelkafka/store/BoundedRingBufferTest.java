@@ -0,0 +1,79 @@
+package com.dhi.camelkafka.store;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Tests for the bounded ring buffer used by the dashboard.
+ */
+class BoundedRingBufferTest {
+
+    @Test
+    void keepsMostRecentElementsNewestFirst() {
+        BoundedRingBuffer<Integer> buffer = new BoundedRingBuffer<>(3);
+        for (int i = 1; i <= 5; i++) {
+            buffer.add(i);
+        }
+
+        assertEquals(List.of(5, 4, 3), buffer.snapshot());
+        assertEquals(3, buffer.size());
+    }
+
+    @Test
+    void filtersAndLimitsSnapshot() {
+        BoundedRingBuffer<Integer> buffer = new BoundedRingBuffer<>(10);
+        for (int i = 1; i <= 10; i++) {
+            buffer.add(i);
+        }
+
+        assertEquals(List.of(10, 8), buffer.snapshot(i -> i % 2 == 0, 2));
+    }
+
+    @Test
+    void clearHidesExistingElements() {
+        BoundedRingBuffer<Integer> buffer = new BoundedRingBuffer<>(4);
+        buffer.add(1);
+        buffer.add(2);
+        buffer.clear();
+        buffer.add(3);
+
+        assertEquals(List.of(3), buffer.snapshot());
+        assertEquals(1, buffer.size());
+    }
+
+    @Test
+    void concurrentWritersNeverExceedCapacity() throws Exception {
+        BoundedRingBuffer<Long> buffer = new BoundedRingBuffer<>(64);
+        int writers = 4;
+        ExecutorService executor = Executors.newFixedThreadPool(writers);
+        List<Future<?>> results = new ArrayList<>();
+        try {
+            for (int w = 0; w < writers; w++) {
+                results.add(executor.submit(() -> {
+                    for (long i = 0; i < 10_000; i++) {
+                        buffer.add(i);
+                        assertTrue(buffer.snapshot().size() <= 64);
+                    }
+                }));
+            }
+            // Rethrows a writer's assertion failure
+            for (Future<?> result : results) {
+                result.get(30, TimeUnit.SECONDS);
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+
+        assertEquals(40_000, buffer.nextSequence());
+        assertEquals(64, buffer.snapshot().size());
+    }
+}
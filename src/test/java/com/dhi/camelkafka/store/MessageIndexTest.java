@@ -0,0 +1,137 @@
+package com.dhi.camelkafka.store;
+
+import com.dhi.camelkafka.model.KafkaMessage;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Tests for the secondary indexes over the dashboard ring buffer.
+ */
+class MessageIndexTest {
+
+    @Test
+    void walksOnlyTheQueriedPartitionAndPagesWithTheCursor() {
+        MessageIndex index = new MessageIndex(new BoundedRingBuffer<>(100));
+        for (int i = 0; i < 60; i++) {
+            index.add(message("orders", i % 3, i, "customer-" + (i % 7)));
+        }
+
+        MessageQuery partitionOne = new MessageQuery("orders", 1, null, null, null, null, null);
+        MessageIndex.Result first = index.search(partitionOne, Long.MAX_VALUE, 5);
+        assertEquals(List.of(58L, 55L, 52L, 49L, 46L), offsets(first));
+        assertEquals(5, first.scanned());
+
+        MessageIndex.Result second = index.search(partitionOne, first.nextBefore(), 5);
+        assertEquals(List.of(43L, 40L, 37L, 34L, 31L), offsets(second));
+        assertEquals(5, second.scanned());
+
+        MessageQuery offsetRange = new MessageQuery("orders", 1, null, 10L, 20L, null, null);
+        assertEquals(List.of(19L, 16L, 13L, 10L), offsets(index.search(offsetRange, Long.MAX_VALUE, 100)));
+    }
+
+    @Test
+    void findsMessagesByKey() {
+        MessageIndex index = new MessageIndex(new BoundedRingBuffer<>(100));
+        for (int i = 0; i < 60; i++) {
+            index.add(message(i % 2 == 0 ? "orders" : "payments", 0, i, "customer-" + (i % 7)));
+        }
+
+        MessageQuery byKey = new MessageQuery(null, null, "customer-3", null, null, null, null);
+        MessageIndex.Result result = index.search(byKey, Long.MAX_VALUE, 100);
+        assertEquals(List.of(59L, 52L, 45L, 38L, 31L, 24L, 17L, 10L, 3L), offsets(result));
+        assertTrue(result.scanned() < 60);
+
+        MessageQuery keyAndTopic = new MessageQuery("payments", null, "customer-3", null, null, null, null);
+        assertEquals(List.of(59L, 45L, 31L, 17L, 3L), offsets(index.search(keyAndTopic, Long.MAX_VALUE, 100)));
+    }
+
+    @Test
+    void evictsIndexEntriesWithTheRing() {
+        MessageIndex index = new MessageIndex(new BoundedRingBuffer<>(10));
+        for (int i = 0; i < 25; i++) {
+            index.add(message("orders", 0, i, "same-key"));
+        }
+
+        assertEquals(10, index.search(MessageQuery.forTopic("orders"), Long.MAX_VALUE, 100).messages().size());
+        List<Long> byKey = offsets(index.search(new MessageQuery(null, null, "same-key", null, null, null, null),
+                Long.MAX_VALUE, 100));
+        assertEquals(List.of(24L, 23L, 22L, 21L, 20L, 19L, 18L, 17L, 16L, 15L), byKey);
+    }
+
+    @Test
+    void filtersByProcessingTime() {
+        MessageIndex index = new MessageIndex(new BoundedRingBuffer<>(100));
+        long now = System.currentTimeMillis();
+        for (int i = 0; i < 10; i++) {
+            KafkaMessage message = message("orders", 0, i, null);
+            message.setProcessedAtMillis(i < 5 ? now - 60000 : now);
+            index.add(message);
+        }
+
+        MessageQuery recent = new MessageQuery("orders", null, null, null, null, now - 1000, null);
+        assertEquals(List.of(9L, 8L, 7L, 6L, 5L), offsets(index.search(recent, Long.MAX_VALUE, 100)));
+        MessageQuery future = new MessageQuery(null, null, null, null, null, now + 60000, null);
+        assertEquals(0, index.search(future, Long.MAX_VALUE, 100).scanned());
+    }
+
+    @Test
+    void linksConcurrentWritersInSequenceOrder() throws InterruptedException {
+        MessageIndex index = new MessageIndex(new BoundedRingBuffer<>(100_000));
+        int writers = 8;
+        int perWriter = 5_000;
+        CountDownLatch start = new CountDownLatch(1);
+        List<Thread> threads = new ArrayList<>();
+        for (int w = 0; w < writers; w++) {
+            int partition = w;
+            Thread thread = new Thread(() -> {
+                try {
+                    start.await();
+                } catch (InterruptedException e) {
+                    return;
+                }
+                for (int i = 0; i < perWriter; i++) {
+                    index.add(message("orders", partition, i, "customer-" + (i % 13)));
+                }
+            });
+            thread.start();
+            threads.add(thread);
+        }
+        start.countDown();
+        for (Thread thread : threads) {
+            thread.join();
+        }
+
+        assertEquals(writers * perWriter, index.search(MessageQuery.forTopic("orders"), Long.MAX_VALUE, Integer.MAX_VALUE)
+                .messages().size());
+        for (int partition = 0; partition < writers; partition++) {
+            List<Long> offsets = offsets(index.search(new MessageQuery("orders", partition, null, null, null, null, null),
+                    Long.MAX_VALUE, Integer.MAX_VALUE));
+            assertEquals(perWriter, offsets.size());
+            for (int i = 0; i < perWriter; i++) {
+                assertEquals(perWriter - 1 - i, offsets.get(i)); // Each writer's messages, newest first
+            }
+        }
+    }
+
+    private static KafkaMessage message(String topic, int partition, long offset, String key) {
+        return KafkaMessage.builder()
+                .id(topic + "-" + partition + "-" + offset)
+                .topic(topic)
+                .partition(partition)
+                .offset(offset)
+                .messageKey(key)
+                .content("{}")
+                .processedAtMillis(System.currentTimeMillis())
+                .build();
+    }
+
+    private static List<Long> offsets(MessageIndex.Result result) {
+        return result.messages().stream().map(KafkaMessage::getOffset).toList();
+    }
+}
@@ -0,0 +1,104 @@
+package com.dhi.camelkafka.store;
+
+import com.dhi.camelkafka.model.KafkaMessage;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Tests for the memory-mapped message journal.
+ */
+class MessageJournalTest {
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void pagesBackwardAcrossSegments() throws Exception {
+        try (MessageJournal journal = new MessageJournal(directory, 1024, 0, 0)) {
+            for (int i = 0; i < 100; i++) {
+                assertEquals(i, journal.append(message(i)));
+            }
+
+            assertTrue(journal.getSegmentCount() > 1);
+            List<MessageJournal.Entry> newest = journal.readBefore(Long.MAX_VALUE, 3);
+            assertEquals(List.of(99L, 98L, 97L), newest.stream().map(MessageJournal.Entry::sequence).toList());
+            KafkaMessage message = newest.get(0).message();
+            assertEquals("orders-1-99", message.getId());
+            assertEquals("{\"n\":99}", message.getContent());
+            assertEquals(99L, message.getOffset());
+            assertEquals(1, message.getPartition());
+            assertNull(message.getMessageKey());
+
+            List<MessageJournal.Entry> page = journal.readBefore(97, 1000);
+            assertEquals(97, page.size());
+            assertEquals(96, page.get(0).sequence());
+            assertEquals(0, page.get(96).sequence());
+        }
+    }
+
+    @Test
+    void recoversIndexedMessagesAfterReopening() throws Exception {
+        try (MessageJournal journal = new MessageJournal(directory, 1024, 0, 0)) {
+            for (int i = 0; i < 40; i++) {
+                journal.append(message(i));
+            }
+        }
+
+        try (MessageJournal reopened = new MessageJournal(directory, 1024, 0, 0)) {
+            assertEquals(0, reopened.getFirstSequence());
+            assertEquals(40, reopened.getNextSequence());
+            assertEquals(40, reopened.append(message(40)));
+            assertEquals("{\"n\":39}", reopened.readBefore(40, 1).get(0).message().getContent());
+        }
+    }
+
+    @Test
+    void deletesOldestSegmentsBeyondRetentionSize() throws Exception {
+        try (MessageJournal journal = new MessageJournal(directory, 1024, 2048, 0)) {
+            for (int i = 0; i < 150; i++) {
+                journal.append(message(i));
+            }
+            Thread.sleep(1100); // Retention is checked at most once per second
+            journal.append(message(150));
+
+            assertTrue(journal.getFirstSequence() > 0);
+            assertTrue(journal.getSizeBytes() <= 2048);
+            assertEquals(journal.getFirstSequence(),
+                    journal.readBefore(Long.MAX_VALUE, Integer.MAX_VALUE).stream()
+                            .mapToLong(MessageJournal.Entry::sequence).min().orElseThrow());
+        }
+    }
+
+    @Test
+    void findsFirstSequenceAfterATime() throws Exception {
+        try (MessageJournal journal = new MessageJournal(directory, 1024, 0, 0)) {
+            long before = System.currentTimeMillis() - 1;
+            for (int i = 0; i < 10; i++) {
+                journal.append(message(i));
+            }
+
+            assertEquals(0, journal.sequenceAfter(before));
+            assertEquals(10, journal.sequenceAfter(System.currentTimeMillis() + 60000));
+        }
+    }
+
+    private static KafkaMessage message(int n) {
+        return KafkaMessage.builder()
+                .id("orders-1-" + n)
+                .topic("orders")
+                .partition(1)
+                .offset((long) n)
+                .timestamp(1715678467123L + n)
+                .rawContent(("{\"n\":" + n + "}").getBytes(StandardCharsets.UTF_8))
+                .processedAtMillis(System.currentTimeMillis())
+                .build();
+    }
+}